@@ -0,0 +1,49 @@
+package edlab.eda.reader.nutmeg.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edlab.eda.reader.nutmeg.NutReader;
+import edlab.eda.reader.nutmeg.NutmegPlot;
+
+/**
+ * Throughput of {@link edlab.eda.reader.nutmeg.NutReader#read()} and
+ * {@link edlab.eda.reader.nutmeg.NutReader#parse()}. The processed file size
+ * is reported as <code>megabytes</code> in MB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark extends WaveformState {
+
+  @Benchmark
+  public List<NutmegPlot> readParse(final Throughput throughput) {
+
+    throughput.megabytes += this.megabytes;
+
+    return this.getReader().read().parse().getPlots();
+  }
+
+  @Benchmark
+  public List<NutmegPlot> readParseMapped(final Throughput throughput) {
+
+    throughput.megabytes += this.megabytes;
+
+    // the plots are decoded eagerly and remain valid after the reader is
+    // closed
+    try (NutReader reader = this.getReader().setMemoryMapped(true).read()
+        .parse()) {
+      return reader.getPlots();
+    }
+  }
+}
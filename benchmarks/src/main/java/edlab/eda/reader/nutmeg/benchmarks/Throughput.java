@@ -0,0 +1,26 @@
+package edlab.eda.reader.nutmeg.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counter for the processed data. JMH reports the counter as a rate, i.e. in
+ * MB/s for throughput benchmarks.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+
+  /**
+   * Processed data in megabytes
+   */
+  public double megabytes;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    this.megabytes = 0;
+  }
+}
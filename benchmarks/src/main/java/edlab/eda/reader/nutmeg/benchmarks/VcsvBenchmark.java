@@ -0,0 +1,71 @@
+package edlab.eda.reader.nutmeg.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edlab.eda.reader.nutmeg.NutmegPlot;
+
+/**
+ * Export of all plots to the Virtuoso Comma Separated Value format. The
+ * output is discarded, the number of written characters is reported as
+ * <code>megabytes</code> in MB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VcsvBenchmark extends WaveformState {
+
+  private List<NutmegPlot> nutmegPlots;
+
+  @Override
+  protected void prepare() {
+    this.nutmegPlots = this.getReader().read().parse().getPlots();
+  }
+
+  @Benchmark
+  public long export(final Throughput throughput) throws IOException {
+
+    final CountingWriter writer = new CountingWriter();
+
+    for (final NutmegPlot plot : this.nutmegPlots) {
+      plot.toVirtuosoCommaSeperatedValues(writer);
+    }
+
+    throughput.megabytes += writer.count / 1e6;
+
+    return writer.count;
+  }
+
+  /**
+   * Writer that counts the characters and discards them.
+   */
+  private static final class CountingWriter extends Writer {
+
+    private long count = 0;
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) {
+      this.count += len;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package edlab.eda.reader.nutmeg.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edlab.eda.reader.nutmeg.NutReader;
+import edlab.eda.reader.nutmeg.NutmegComplexPlot;
+import edlab.eda.reader.nutmeg.NutmegPlot;
+import edlab.eda.reader.nutmeg.NutmegRealPlot;
+
+/**
+ * Access to a single wave. For eager plots, the wave is already decoded. For
+ * lazy plots, the headers are parsed and only the accessed wave is decoded
+ * from the mapped file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaveBenchmark extends WaveformState {
+
+  private NutmegPlot plot;
+  private String wave;
+
+  @Override
+  protected void prepare() {
+    this.plot = this.getReader().read().parse().getPlots().get(0);
+    this.wave = "v" + (this.variables / 2);
+  }
+
+  @Benchmark
+  public Object getWave() {
+    return get(this.plot, this.wave);
+  }
+
+  @Benchmark
+  public Object getWaveLazy() {
+    try (NutReader reader = this.getReader().setLazy(true)
+        .setMemoryMapped(true).read().parse()) {
+      return get(reader.getPlots().get(0), this.wave);
+    }
+  }
+
+  private static Object get(final NutmegPlot plot, final String wave) {
+    if (plot.isComplex()) {
+      return ((NutmegComplexPlot) plot).getWave(wave);
+    } else {
+      return ((NutmegRealPlot) plot).getWave(wave);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package edlab.eda.reader.nutmeg.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import edlab.eda.reader.nutmeg.NutmegGenerator;
+
+/**
+ * Writer for synthetic waveform files that are used by the benchmarks, see
+ * {@link NutmegGenerator}.
+ */
+final class WaveformFiles {
+
+  static final String NUTASCII = "nutascii";
+  static final String NUTBIN = "nutbin";
+
+  private WaveformFiles() {
+  }
+
+  /**
+   * Write a synthetic waveform file to a temporary file. The file is deleted
+   * when the JVM exits.
+   *
+   * @param format    - {@link #NUTASCII} or {@link #NUTBIN}
+   * @param points    - number of points per plot
+   * @param variables - number of variables per plot, including the reference
+   *                  wave
+   * @param complex   - <code>true</code> for complex plots,
+   *                  <code>false</code> for real plots
+   * @param plots     - number of plots
+   * @return file
+   * @throws IOException when the file cannot be written
+   */
+  static File write(final String format, final int points,
+      final int variables, final boolean complex, final int plots)
+      throws IOException {
+
+    final File file = File.createTempFile(format, ".raw");
+    file.deleteOnExit();
+
+    final NutmegGenerator generator = NutmegGenerator.getNutmegGenerator()
+        .setNoOfPlots(plots).setNoOfVariables(variables)
+        .setNoOfPoints(points).setComplex(complex);
+
+    if ((NUTBIN.equals(format) ? generator.writeNutbin(file.getPath())
+        : generator.writeNutascii(file.getPath())) == null) {
+      throw new IOException("Cannot write " + file);
+    }
+
+    return file;
+  }
+}
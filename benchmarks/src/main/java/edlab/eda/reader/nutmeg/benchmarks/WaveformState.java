@@ -0,0 +1,69 @@
+package edlab.eda.reader.nutmeg.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edlab.eda.reader.nutmeg.NutReader;
+
+/**
+ * Synthetic waveform file that is shared by all threads of a benchmark. The
+ * file is written once per trial.
+ */
+@State(Scope.Benchmark)
+public class WaveformState {
+
+  @Param({ WaveformFiles.NUTASCII, WaveformFiles.NUTBIN })
+  public String format;
+
+  @Param({ "1000", "100000" })
+  public int points;
+
+  @Param({ "10", "100" })
+  public int variables;
+
+  @Param({ "false", "true" })
+  public boolean complex;
+
+  @Param({ "1", "4" })
+  public int plots;
+
+  protected File file;
+
+  /**
+   * Size of the file in megabytes
+   */
+  protected double megabytes;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.file = WaveformFiles.write(this.format, this.points, this.variables,
+        this.complex, this.plots);
+    this.megabytes = this.file.length() / 1e6;
+    this.prepare();
+  }
+
+  /**
+   * Prepare a benchmark after the file was written.
+   */
+  protected void prepare() {
+  }
+
+  /**
+   * Create a reader for the file.
+   *
+   * @return reader
+   */
+  protected NutReader getReader() {
+    if (WaveformFiles.NUTBIN.equals(this.format)) {
+      return NutReader.getNutbinReader(this.file.getPath());
+    } else {
+      return NutReader.getNutasciiReader(this.file.getPath());
+    }
+  }
+}
@@ -0,0 +1,340 @@
+package edlab.eda.reader.nutmeg;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Tokenizer for a Nutmeg waveform file in ASCII syntax. The tokenizer works
+ * directly on the bytes of a {@link ByteSource}, numbers are converted without
+ * creating intermediate strings.
+ */
+final class AsciiTokenizer {
+
+  private static final byte NEWLINE = '\n';
+  private static final byte CARRIAGE_RETURN = '\r';
+  private static final byte COMMA = ',';
+
+  /**
+   * Largest mantissa that can be represented exactly by a double
+   */
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  /**
+   * Maximal number of digits that are accumulated in a long
+   */
+  private static final int MAX_DIGITS = 18;
+
+  /**
+   * Powers of ten that can be represented exactly by a double
+   */
+  private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+      1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17,
+      1e18, 1e19, 1e20, 1e21, 1e22 };
+
+  private final ByteSource source;
+  private final long end;
+  private long pos;
+
+  /**
+   * Create a new tokenizer that reads the complete source.
+   *
+   * @param source - source of the waveform file
+   */
+  AsciiTokenizer(final ByteSource source) {
+    this(source, 0, source.size());
+  }
+
+  /**
+   * Create a new tokenizer that reads the bytes <code>[start, end)</code> of
+   * the source.
+   *
+   * @param source - source of the waveform file
+   * @param start  - first position
+   * @param end    - position after the last byte
+   */
+  AsciiTokenizer(final ByteSource source, final long start, final long end) {
+    this.source = source;
+    this.pos = start;
+    this.end = end;
+  }
+
+  /**
+   * Returns the current position of the tokenizer.
+   *
+   * @return position in the source
+   */
+  long getPosition() {
+    return this.pos;
+  }
+
+  /**
+   * Move the tokenizer to a new position.
+   *
+   * @param pos - position in the source
+   */
+  void setPosition(final long pos) {
+    this.pos = Math.min(pos, this.end);
+  }
+
+  /**
+   * Check if there are bytes left.
+   *
+   * @return <code>true</code> when bytes are left, <code>false</code>
+   *         otherwise
+   */
+  boolean hasNextLine() {
+    return this.pos < this.end;
+  }
+
+  /**
+   * Returns the next line without line terminator.
+   *
+   * @return line or <code>null</code> when no line is left
+   */
+  String nextLine() {
+
+    if (this.pos >= this.end) {
+      return null;
+    }
+
+    final long start = this.pos;
+    long stop = start;
+
+    while ((stop < this.end) && (this.source.get(stop) != NEWLINE)) {
+      stop++;
+    }
+
+    this.pos = stop < this.end ? stop + 1 : stop;
+
+    if ((stop > start) && (this.source.get(stop - 1) == CARRIAGE_RETURN)) {
+      stop--;
+    }
+
+    return this.source.getString(start, (int) (stop - start));
+  }
+
+  /**
+   * Skip whitespace characters.
+   *
+   * @return <code>true</code> when a token follows, <code>false</code> when
+   *         the end is reached
+   */
+  boolean skipWhitespace() {
+
+    while ((this.pos < this.end) && isWhitespace(this.source.get(this.pos))) {
+      this.pos++;
+    }
+
+    return this.pos < this.end;
+  }
+
+  /**
+   * Skip the next whitespace separated token.
+   *
+   * @return <code>true</code> when a token was skipped, <code>false</code>
+   *         when the end is reached
+   */
+  boolean skipToken() {
+
+    if (!this.skipWhitespace()) {
+      return false;
+    }
+
+    while ((this.pos < this.end) && !isWhitespace(this.source.get(this.pos))) {
+      this.pos++;
+    }
+
+    return true;
+  }
+
+  /**
+   * Skip a comma when it is the next byte.
+   *
+   * @return <code>true</code> when a comma was skipped, <code>false</code>
+   *         otherwise
+   */
+  boolean skipComma() {
+
+    if ((this.pos < this.end) && (this.source.get(this.pos) == COMMA)) {
+      this.pos++;
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Parse the next number. A number ends at a whitespace character or a comma.
+   *
+   * @return value
+   * @throws NumberFormatException  when the token is not a number
+   * @throws NoSuchElementException when no token is left
+   */
+  double nextDouble() {
+
+    if (!this.skipWhitespace()) {
+      throw new NoSuchElementException();
+    }
+
+    final long start = this.pos;
+    long p = start;
+    byte b = this.source.get(p);
+
+    boolean negative = false;
+
+    if ((b == '-') || (b == '+')) {
+      negative = b == '-';
+      p++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean exact = true;
+    boolean anyDigit = false;
+
+    // Integer part
+    while ((p < this.end) && ((b = this.source.get(p)) >= '0') && (b <= '9')) {
+      anyDigit = true;
+      if (digits < MAX_DIGITS) {
+        mantissa = (10 * mantissa) + (b - '0');
+        if (mantissa != 0) {
+          digits++;
+        }
+      } else {
+        exponent++;
+        exact &= b == '0';
+      }
+      p++;
+    }
+
+    // Fractional part
+    if ((p < this.end) && (this.source.get(p) == '.')) {
+      p++;
+      while ((p < this.end) && ((b = this.source.get(p)) >= '0')
+          && (b <= '9')) {
+        anyDigit = true;
+        if (digits < MAX_DIGITS) {
+          mantissa = (10 * mantissa) + (b - '0');
+          if (mantissa != 0) {
+            digits++;
+          }
+          exponent--;
+        } else {
+          exact &= b == '0';
+        }
+        p++;
+      }
+    }
+
+    // Exponent
+    if (anyDigit && (p < this.end)
+        && (((b = this.source.get(p)) == 'e') || (b == 'E'))) {
+
+      p++;
+
+      boolean negativeExponent = false;
+
+      if ((p < this.end)
+          && (((b = this.source.get(p)) == '-') || (b == '+'))) {
+        negativeExponent = b == '-';
+        p++;
+      }
+
+      int value = 0;
+      boolean anyExponentDigit = false;
+
+      while ((p < this.end) && ((b = this.source.get(p)) >= '0')
+          && (b <= '9')) {
+        anyExponentDigit = true;
+        if (value < 100000) {
+          value = (10 * value) + (b - '0');
+        }
+        p++;
+      }
+
+      if (!anyExponentDigit) {
+        anyDigit = false;
+      }
+
+      exponent += negativeExponent ? -value : value;
+    }
+
+    if (!anyDigit || ((p < this.end) && !isDelimiter(this.source.get(p)))) {
+      return this.parseToken(start);
+    }
+
+    this.pos = p;
+
+    if (exact) {
+
+      // Remove trailing zeros from the mantissa
+      while ((mantissa != 0) && ((mantissa % 10) == 0)
+          && (exponent < 0)) {
+        mantissa /= 10;
+        exponent++;
+      }
+
+      if (mantissa == 0) {
+        return negative ? -0.0 : 0.0;
+      }
+
+      // Fast path, the result is correctly rounded because mantissa and
+      // power of ten are exact
+      if ((mantissa <= MAX_EXACT_MANTISSA)
+          && (exponent >= -(POWERS_OF_TEN.length - 1))
+          && (exponent <= (POWERS_OF_TEN.length - 1))) {
+
+        final double value = exponent < 0
+            ? mantissa / POWERS_OF_TEN[-exponent]
+            : mantissa * POWERS_OF_TEN[exponent];
+
+        return negative ? -value : value;
+      }
+    }
+
+    return Double.parseDouble(this.source.getString(start, (int) (p - start)));
+  }
+
+  /**
+   * Parse a token that is not covered by the fast path with
+   * {@link Double#parseDouble(String)}.
+   *
+   * @param start - start of the token
+   * @return value
+   */
+  private double parseToken(final long start) {
+
+    long p = start;
+
+    while ((p < this.end) && !isDelimiter(this.source.get(p))) {
+      p++;
+    }
+
+    this.pos = p;
+
+    return Double.parseDouble(this.source.getString(start, (int) (p - start)));
+  }
+
+  /**
+   * Check if a byte is a whitespace character.
+   *
+   * @param b - byte
+   * @return <code>true</code> when the byte is a whitespace,
+   *         <code>false</code> otherwise
+   */
+  static boolean isWhitespace(final byte b) {
+    return (b == ' ') || (b == '\t') || (b == NEWLINE)
+        || (b == CARRIAGE_RETURN) || (b == '\f') || (b == 0x0B);
+  }
+
+  /**
+   * Check if a byte terminates a number.
+   *
+   * @param b - byte
+   * @return <code>true</code> when the byte terminates a number,
+   *         <code>false</code> otherwise
+   */
+  private static boolean isDelimiter(final byte b) {
+    return (b == COMMA) || isWhitespace(b);
+  }
+}
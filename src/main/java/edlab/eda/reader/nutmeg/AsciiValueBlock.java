@@ -0,0 +1,333 @@
+package edlab.eda.reader.nutmeg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * ASCII value block of a plot in a Nutmeg waveform file. Each point starts
+ * with its index, followed by one token per variable. Complex values are
+ * written as <code>re,im</code>.
+ */
+final class AsciiValueBlock extends ValueBlock {
+
+  private static final byte NEWLINE = '\n';
+  private static final byte CARRIAGE_RETURN = '\r';
+  private static final byte TAB = '\t';
+
+  private final long end;
+
+  /**
+   * Positions of every {@link PlotIndex#CHECKPOINT_INTERVAL}-th point,
+   * <code>null</code> when the positions are not known
+   */
+  private final long[] checkpoints;
+
+  /**
+   * Create a new value block.
+   *
+   * @param source      - source of the waveform file
+   * @param offset      - position of the first point in the source
+   * @param end         - position after the last byte of the block
+   * @param noOfVars    - number of variables
+   * @param noOfPoints  - number of points
+   * @param complex     - <code>true</code> when the values are complex,
+   *                    <code>false</code> otherwise
+   * @param checkpoints - positions of every
+   *                    {@link PlotIndex#CHECKPOINT_INTERVAL}-th point or
+   *                    <code>null</code>
+   */
+  AsciiValueBlock(final ByteSource source, final long offset, final long end,
+      final int noOfVars, final int noOfPoints, final boolean complex,
+      final long[] checkpoints) {
+    super(source, offset, noOfVars, noOfPoints, complex);
+    this.end = end;
+    this.checkpoints = checkpoints;
+  }
+
+  @Override
+  long decode(final double[][] re, final double[][] im) {
+
+    this.checkOpen();
+
+    final AsciiTokenizer tokenizer = new AsciiTokenizer(this.source,
+        this.offset, this.end);
+
+    return this.decodeRange(tokenizer, re, im, 0, this.noOfPoints, 0);
+  }
+
+  @Override
+  long stream(final PlotHandler handler, final PointChunk chunk) {
+
+    this.checkOpen();
+
+    final AsciiTokenizer tokenizer = new AsciiTokenizer(this.source,
+        this.offset, this.end);
+
+    int last;
+
+    for (int first = 0; first < this.noOfPoints; first += chunk
+        .getCapacity()) {
+
+      last = Math.min(this.noOfPoints, first + chunk.getCapacity());
+
+      if (this.decodeRange(tokenizer, chunk.re, chunk.im, first, last,
+          first) < 0) {
+        return -1;
+      }
+
+      chunk.set(first, last - first);
+      handler.points(chunk);
+    }
+
+    return tokenizer.getPosition();
+  }
+
+  /**
+   * Decode a range of points. The points in front of the range are skipped
+   * without converting their values. When the checkpoints of the block are
+   * known, decoding starts at the last checkpoint in front of the range.
+   */
+  @Override
+  long decodeSlice(final double[][] re, final double[][] im, final int from,
+      final int to) {
+
+    this.checkOpen();
+
+    long start = this.offset;
+    int first = 0;
+
+    if ((this.checkpoints != null) && (this.checkpoints.length > 0)) {
+
+      final int checkpoint = Math.min(this.checkpoints.length - 1,
+          from / PlotIndex.CHECKPOINT_INTERVAL);
+
+      start = this.checkpoints[checkpoint];
+      first = checkpoint * PlotIndex.CHECKPOINT_INTERVAL;
+    }
+
+    final AsciiTokenizer tokenizer = new AsciiTokenizer(this.source, start,
+        this.end);
+
+    if (this.decodeRange(tokenizer, new double[this.noOfVars][],
+        new double[this.noOfVars][], first, from, 0) < 0) {
+      return -1;
+    }
+
+    return this.decodeRange(tokenizer, re, im, from, to, from);
+  }
+
+  /**
+   * Decode the block in parallel. The block is split at the starts of
+   * points, which are lines that start with the index of the point. The
+   * following lines with values of the point start with a tab. When the
+   * checkpoints of the block are known, the block is split at checkpoints.
+   * When a range does not contain the expected number of values, the block
+   * is decoded sequentially.
+   */
+  @Override
+  long decode(final double[][] re, final double[][] im,
+      final ForkJoinPool pool) {
+
+    this.checkOpen();
+
+    final int chunks = this.getNoOfChunks(pool, this.end - this.offset);
+
+    if (chunks <= 1) {
+      return this.decode(re, im);
+    }
+
+    final long[] starts = new long[chunks + 1];
+    final int[] firsts = new int[chunks + 1];
+
+    int n = 1;
+    long start;
+    int first;
+
+    for (int i = 1; i < chunks; i++) {
+
+      if (this.checkpoints == null) {
+        start = this.findPoint(
+            this.offset + (((this.end - this.offset) * i) / chunks));
+        first = this.getIndex(start);
+      } else {
+        first = (this.checkpoints.length * i) / chunks;
+        start = this.checkpoints[first];
+        first *= PlotIndex.CHECKPOINT_INTERVAL;
+      }
+
+      if ((start > starts[n - 1]) && (first > firsts[n - 1])) {
+        starts[n] = start;
+        firsts[n] = first;
+        n++;
+      }
+    }
+
+    starts[0] = this.offset;
+    firsts[0] = 0;
+    starts[n] = this.end;
+    firsts[n] = this.noOfPoints;
+
+    final long[] positions = new long[n];
+    final List<ForkJoinTask<?>> tasks = new ArrayList<>(n);
+
+    for (int i = 0; i < n; i++) {
+
+      final int chunk = i;
+
+      tasks.add(ForkJoinTask.adapt(() -> {
+
+        final AsciiTokenizer tokenizer = new AsciiTokenizer(this.source,
+            starts[chunk], starts[chunk + 1]);
+
+        positions[chunk] = this.decodeRange(tokenizer, re, im,
+            firsts[chunk], firsts[chunk + 1], 0);
+
+        // A range must end exactly before the next point
+        if ((chunk < (positions.length - 1)) && tokenizer.skipWhitespace()) {
+          positions[chunk] = -1;
+        }
+      }));
+    }
+
+    invokeAll(pool, tasks);
+
+    for (final long position : positions) {
+      if (position < 0) {
+        return this.decode(re, im);
+      }
+    }
+
+    return positions[n - 1];
+  }
+
+  /**
+   * Decode a range of points.
+   *
+   * @param tokenizer - tokenizer at the start of the first point
+   * @param re        - real parts
+   * @param im        - imaginary parts
+   * @param from      - index of the first point
+   * @param to        - index after the last point
+   * @param shift     - index of point 0 in the arrays
+   * @return position after the last value, <code>-1</code> when the range is
+   *         not valid
+   */
+  private long decodeRange(final AsciiTokenizer tokenizer,
+      final double[][] re, final double[][] im, final int from, final int to,
+      final int shift) {
+
+    double[] dst;
+
+    try {
+
+      for (int i = from; i < to; i++) {
+
+        // skip index of point
+        tokenizer.skipToken();
+
+        for (int j = 0; j < this.noOfVars; j++) {
+
+          if (this.complex) {
+
+            if ((re[j] == null) && (im[j] == null)) {
+              tokenizer.skipToken();
+            } else {
+
+              if ((dst = re[j]) != null) {
+                dst[i - shift] = tokenizer.nextDouble();
+              } else {
+                tokenizer.nextDouble();
+              }
+
+              if (!tokenizer.skipComma()) {
+                return -1;
+              }
+
+              if ((dst = im[j]) != null) {
+                dst[i - shift] = tokenizer.nextDouble();
+              } else {
+                tokenizer.nextDouble();
+              }
+            }
+
+          } else if ((dst = re[j]) != null) {
+            dst[i - shift] = tokenizer.nextDouble();
+          } else {
+            tokenizer.skipToken();
+          }
+        }
+      }
+    } catch (final NoSuchElementException e) {
+      return -1;
+    }
+
+    return tokenizer.getPosition();
+  }
+
+  /**
+   * Find the start of the first point after a position.
+   *
+   * @param pos - position in the block
+   * @return start of the line with the index of the point, end of the block
+   *         when no point was found
+   */
+  private long findPoint(final long pos) {
+
+    long lineStart = pos;
+    byte b;
+
+    // continue at the start of the next line
+    while ((lineStart < this.end)
+        && (this.source.get(lineStart - 1) != NEWLINE)) {
+      lineStart++;
+    }
+
+    while (lineStart < this.end) {
+
+      b = this.source.get(lineStart);
+
+      if ((b != TAB) && (b != NEWLINE) && (b != CARRIAGE_RETURN)) {
+        return lineStart;
+      }
+
+      while ((lineStart < this.end)
+          && (this.source.get(lineStart) != NEWLINE)) {
+        lineStart++;
+      }
+
+      lineStart++;
+    }
+
+    return this.end;
+  }
+
+  /**
+   * Returns the index of a point.
+   *
+   * @param start - start of the point
+   * @return index, <code>-1</code> when the index is not valid
+   */
+  private int getIndex(final long start) {
+
+    final AsciiTokenizer tokenizer = new AsciiTokenizer(this.source, start,
+        this.end);
+
+    final double index;
+
+    try {
+      index = tokenizer.nextDouble();
+    } catch (final NoSuchElementException | NumberFormatException e) {
+      return -1;
+    }
+
+    if ((index <= 0) || (index >= this.noOfPoints)
+        || (index != Math.rint(index))) {
+      return -1;
+    }
+
+    return (int) index;
+  }
+}
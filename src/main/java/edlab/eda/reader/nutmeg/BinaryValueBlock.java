@@ -0,0 +1,502 @@
+package edlab.eda.reader.nutmeg;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Binary value block of a plot in a Nutmeg waveform file. The values are
+ * stored point by point (row-major), the block is decoded into one array per
+ * variable (column-major). The values are 8-byte doubles or, when the size
+ * of the values is set with {@link NutReader#setBinaryValueSize(int)}, 4-byte
+ * floats.
+ */
+final class BinaryValueBlock extends ValueBlock {
+
+  /**
+   * Number of bytes that are decoded at once. The block is transposed while
+   * it is still in the cache.
+   */
+  static final int BLOCK_BYTES = 1 << 17;
+
+  /**
+   * Number of values that are evaluated for the detection of the byte order.
+   */
+  private static final int DETECTION_SAMPLES = 256;
+
+  /**
+   * A column selection is decoded with strided reads when less than
+   * 1/SPARSE_RATIO of all columns are selected
+   */
+  private static final int SPARSE_RATIO = 8;
+
+  private final ByteOrder order;
+
+  /**
+   * Number of bytes of a single value
+   */
+  private final int bytesPerNum;
+
+  /**
+   * Create a new value block.
+   *
+   * @param source          - source of the waveform file
+   * @param offset          - position of the first value in the source
+   * @param noOfVars        - number of variables
+   * @param noOfPoints      - number of points
+   * @param complex         - <code>true</code> when the values are complex,
+   *                        <code>false</code> otherwise
+   * @param singlePrecision - <code>true</code> when the values are 4-byte
+   *                        floats, <code>false</code> for 8-byte doubles
+   * @param order           - byte order of the values
+   */
+  BinaryValueBlock(final ByteSource source, final long offset,
+      final int noOfVars, final int noOfPoints, final boolean complex,
+      final boolean singlePrecision, final ByteOrder order) {
+    super(source, offset, noOfVars, noOfPoints, complex);
+    this.order = order;
+    this.bytesPerNum = singlePrecision ? HeaderParser.BYTES_PER_FLOAT
+        : HeaderParser.BYTES_PER_NUM;
+  }
+
+  /**
+   * Returns the number of values in one point.
+   *
+   * @return number of values
+   */
+  int getRowLength() {
+    return this.complex ? 2 * this.noOfVars : this.noOfVars;
+  }
+
+  /**
+   * Returns the length of the value block in bytes.
+   *
+   * @return length in bytes
+   */
+  long getLength() {
+    return (long) this.getRowLength() * this.noOfPoints * this.bytesPerNum;
+  }
+
+  /**
+   * Returns the byte order of the values.
+   *
+   * @return byte order
+   */
+  ByteOrder getByteOrder() {
+    return this.order;
+  }
+
+  @Override
+  long decode(final double[][] re, final double[][] im) {
+
+    this.checkOpen();
+
+    if ((this.offset + this.getLength()) > this.source.size()) {
+      return -1;
+    }
+
+    this.decodeRange(re, im, 0, this.noOfPoints, 0, this.isSparse(re, im));
+
+    return this.offset + this.getLength();
+  }
+
+  @Override
+  long stream(final PlotHandler handler, final PointChunk chunk) {
+
+    this.checkOpen();
+
+    if ((this.offset + this.getLength()) > this.source.size()) {
+      return -1;
+    }
+
+    final boolean sparse = this.isSparse(chunk.re, chunk.im);
+
+    int last;
+
+    for (int first = 0; first < this.noOfPoints; first += chunk
+        .getCapacity()) {
+
+      last = Math.min(this.noOfPoints, first + chunk.getCapacity());
+
+      this.decodeRange(chunk.re, chunk.im, first, last, first, sparse);
+
+      chunk.set(first, last - first);
+      handler.points(chunk);
+    }
+
+    return this.offset + this.getLength();
+  }
+
+  @Override
+  long decodeSlice(final double[][] re, final double[][] im, final int from,
+      final int to) {
+
+    this.checkOpen();
+
+    if ((this.offset + this.getLength()) > this.source.size()) {
+      return -1;
+    }
+
+    this.decodeRange(re, im, from, to, from, this.isSparse(re, im));
+
+    return this.offset + this.getLength();
+  }
+
+  @Override
+  boolean isRandomAccess() {
+    return true;
+  }
+
+  @Override
+  double getReal(final int column, final int point) {
+
+    this.checkOpen();
+
+    final long pos = this.offset + ((((long) point * this.getRowLength())
+        + (this.complex ? 2L * column : column)) * this.bytesPerNum);
+
+    if ((pos + this.bytesPerNum) > this.source.size()) {
+      return Double.NaN;
+    }
+
+    final ByteBuffer buffer = this.source.slice(pos, this.bytesPerNum)
+        .order(this.order);
+
+    if (this.bytesPerNum == Double.BYTES) {
+      return buffer.getDouble(0);
+    } else {
+      return buffer.getFloat(0);
+    }
+  }
+
+  @Override
+  long decode(final double[][] re, final double[][] im,
+      final ForkJoinPool pool) {
+
+    this.checkOpen();
+
+    final int chunks = this.getNoOfChunks(pool, this.getLength());
+
+    if (chunks <= 1) {
+      return this.decode(re, im);
+    }
+
+    if ((this.offset + this.getLength()) > this.source.size()) {
+      return -1;
+    }
+
+    final boolean sparse = this.isSparse(re, im);
+    final List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+
+    for (int i = 0; i < chunks; i++) {
+
+      final int first = (int) (((long) this.noOfPoints * i) / chunks);
+      final int last = (int) (((long) this.noOfPoints * (i + 1)) / chunks);
+
+      // Each task writes a disjoint range of the arrays
+      tasks.add(ForkJoinTask
+          .adapt(() -> this.decodeRange(re, im, first, last, 0, sparse)));
+    }
+
+    invokeAll(pool, tasks);
+
+    return this.offset + this.getLength();
+  }
+
+  /**
+   * Check if only few columns are selected.
+   *
+   * @param re - real parts
+   * @param im - imaginary parts
+   * @return <code>true</code> when the columns should be decoded with strided
+   *         reads, <code>false</code> otherwise
+   */
+  private boolean isSparse(final double[][] re, final double[][] im) {
+
+    // Floats are always widened block by block
+    if (this.bytesPerNum != Double.BYTES) {
+      return false;
+    }
+
+    int selected = 0;
+
+    for (int i = 0; i < this.noOfVars; i++) {
+      if ((re[i] != null) || (this.complex && (im[i] != null))) {
+        selected++;
+      }
+    }
+
+    return (selected * SPARSE_RATIO) < this.noOfVars;
+  }
+
+  /**
+   * Decode a range of points.
+   *
+   * @param re     - real parts
+   * @param im     - imaginary parts
+   * @param from   - index of the first point
+   * @param to     - index after the last point
+   * @param shift  - index of point 0 in the arrays
+   * @param sparse - <code>true</code> when the columns are decoded with
+   *               strided reads, <code>false</code> for a cache-blocked
+   *               transpose
+   */
+  private void decodeRange(final double[][] re, final double[][] im,
+      final int from, final int to, final int shift, final boolean sparse) {
+    if (sparse) {
+      this.decodeStrided(re, im, from, to, shift);
+    } else {
+      this.decodeBlocked(re, im, from, to, shift);
+    }
+  }
+
+  /**
+   * Decode the block with a cache-blocked transpose. Each block of points is
+   * copied at once and transposed while it is in the cache.
+   *
+   * @param re    - real parts
+   * @param im    - imaginary parts
+   * @param from  - index of the first point
+   * @param to    - index after the last point
+   * @param shift - index of point 0 in the arrays
+   */
+  private void decodeBlocked(final double[][] re, final double[][] im,
+      final int from, final int to, final int shift) {
+
+    final int rowLength = this.getRowLength();
+    final int rowsPerBlock = Math.max(1,
+        BLOCK_BYTES / (rowLength * this.bytesPerNum));
+
+    final double[] block = new double[rowsPerBlock * rowLength];
+
+    double[] dst;
+    int rows;
+
+    for (int first = from; first < to; first += rowsPerBlock) {
+
+      rows = Math.min(rowsPerBlock, to - first);
+
+      this.read(first, rows * rowLength, block);
+
+      // Transpose the block, every column is written sequentially
+      for (int i = 0; i < this.noOfVars; i++) {
+
+        if (this.complex) {
+
+          if ((dst = re[i]) != null) {
+            for (int j = 0, k = 2 * i; j < rows; j++, k += rowLength) {
+              dst[(first - shift) + j] = block[k];
+            }
+          }
+
+          if ((dst = im[i]) != null) {
+            for (int j = 0, k = (2 * i) + 1; j < rows; j++, k += rowLength) {
+              dst[(first - shift) + j] = block[k];
+            }
+          }
+
+        } else if ((dst = re[i]) != null) {
+          for (int j = 0, k = i; j < rows; j++, k += rowLength) {
+            dst[(first - shift) + j] = block[k];
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Read consecutive values of the block.
+   *
+   * @param first  - index of the first point
+   * @param n      - number of values
+   * @param values - array for the values
+   */
+  private void read(final int first, final int n, final double[] values) {
+
+    final ByteBuffer bytes = this.source
+        .slice(this.offset
+            + ((long) first * this.getRowLength() * this.bytesPerNum),
+            n * this.bytesPerNum)
+        .order(this.order);
+
+    if (this.bytesPerNum == Double.BYTES) {
+      bytes.asDoubleBuffer().get(values, 0, n);
+    } else {
+
+      final FloatBuffer floats = bytes.asFloatBuffer();
+
+      for (int i = 0; i < n; i++) {
+        values[i] = floats.get(i);
+      }
+    }
+  }
+
+  /**
+   * Decode only the selected columns of the block. The values are read
+   * directly from the buffer without copying complete points.
+   *
+   * @param re    - real parts
+   * @param im    - imaginary parts
+   * @param from  - index of the first point
+   * @param to    - index after the last point
+   * @param shift - index of point 0 in the arrays
+   */
+  private void decodeStrided(final double[][] re, final double[][] im,
+      final int from, final int to, final int shift) {
+
+    final int rowLength = this.getRowLength();
+    final int rowsPerBlock = Math.max(1,
+        BLOCK_BYTES / (rowLength * Double.BYTES));
+
+    DoubleBuffer buffer;
+    double[] dst;
+    int rows;
+
+    for (int first = from; first < to; first += rowsPerBlock) {
+
+      rows = Math.min(rowsPerBlock, to - first);
+
+      buffer = this.source
+          .slice(this.offset + ((long) first * rowLength * Double.BYTES),
+              rows * rowLength * Double.BYTES)
+          .order(this.order).asDoubleBuffer();
+
+      for (int i = 0; i < this.noOfVars; i++) {
+
+        if (this.complex) {
+
+          if ((dst = re[i]) != null) {
+            for (int j = 0, k = 2 * i; j < rows; j++, k += rowLength) {
+              dst[(first - shift) + j] = buffer.get(k);
+            }
+          }
+
+          if ((dst = im[i]) != null) {
+            for (int j = 0, k = (2 * i) + 1; j < rows; j++, k += rowLength) {
+              dst[(first - shift) + j] = buffer.get(k);
+            }
+          }
+
+        } else if ((dst = re[i]) != null) {
+          for (int j = 0, k = i; j < rows; j++, k += rowLength) {
+            dst[(first - shift) + j] = buffer.get(k);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Detect the byte order of a value block. ngspice writes the values in the
+   * native byte order of the machine, Spectre writes big-endian values. The
+   * first values of the reference wave are decoded with both byte orders and
+   * the order that results in smaller binary exponents is selected. Values in
+   * the wrong byte order have almost randomly distributed exponents. When the
+   * reference wave is not conclusive, all values of the first points are
+   * evaluated.
+   *
+   * @param source          - source of the waveform file
+   * @param offset          - position of the first value in the source
+   * @param noOfPoints      - number of points
+   * @param rowLength       - number of values in one point
+   * @param singlePrecision - <code>true</code> when the values are 4-byte
+   *                        floats, <code>false</code> for 8-byte doubles
+   * @return byte order, {@link ByteOrder#BIG_ENDIAN} when both orders are
+   *         equally likely
+   */
+  static ByteOrder detectByteOrder(final ByteSource source, final long offset,
+      final int noOfPoints, final int rowLength,
+      final boolean singlePrecision) {
+
+    final int bytesPerNum = singlePrecision ? HeaderParser.BYTES_PER_FLOAT
+        : HeaderParser.BYTES_PER_NUM;
+
+    final int rows = Math.min(Math.min(DETECTION_SAMPLES, noOfPoints),
+        Math.max(1, BLOCK_BYTES / (rowLength * bytesPerNum)));
+
+    final ByteBuffer big = source.slice(offset, rows * rowLength * bytesPerNum)
+        .order(ByteOrder.BIG_ENDIAN);
+    final ByteBuffer little = source
+        .slice(offset, rows * rowLength * bytesPerNum)
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    long bigPenalty = 0;
+    long littlePenalty = 0;
+
+    for (int i = 0; i < rows; i++) {
+      bigPenalty += exponentPenalty(big, i * rowLength, bytesPerNum);
+      littlePenalty += exponentPenalty(little, i * rowLength, bytesPerNum);
+    }
+
+    if (bigPenalty == littlePenalty) {
+
+      final int n = Math.min(DETECTION_SAMPLES, rows * rowLength);
+
+      for (int i = 0; i < n; i++) {
+        bigPenalty += exponentPenalty(big, i, bytesPerNum);
+        littlePenalty += exponentPenalty(little, i, bytesPerNum);
+      }
+    }
+
+    if (littlePenalty < bigPenalty) {
+      return ByteOrder.LITTLE_ENDIAN;
+    } else {
+      return ByteOrder.BIG_ENDIAN;
+    }
+  }
+
+  /**
+   * Returns the magnitude of the binary exponent of a value in a buffer, see
+   * {@link #exponentPenalty(double)}.
+   *
+   * @param buffer      - buffer
+   * @param index       - index of the value
+   * @param bytesPerNum - number of bytes of a value
+   * @return penalty
+   */
+  private static int exponentPenalty(final ByteBuffer buffer,
+      final int index, final int bytesPerNum) {
+
+    if (bytesPerNum == Double.BYTES) {
+      return exponentPenalty(buffer.getDouble(index * bytesPerNum));
+    }
+
+    final float value = buffer.getFloat(index * bytesPerNum);
+    final int exponent = Math.getExponent(value);
+
+    if ((value != 0.0f) && ((exponent > Float.MAX_EXPONENT)
+        || (exponent < Float.MIN_EXPONENT))) {
+      return Double.MAX_EXPONENT + 1;
+    }
+
+    return exponentPenalty(value);
+  }
+
+  /**
+   * Returns the magnitude of the binary exponent of a value. Zero is neutral,
+   * non-finite and subnormal values get the maximal penalty.
+   *
+   * @param value - value
+   * @return penalty
+   */
+  private static int exponentPenalty(final double value) {
+
+    if (value == 0.0) {
+      return 0;
+    }
+
+    final int exponent = Math.getExponent(value);
+
+    if ((exponent > Double.MAX_EXPONENT)
+        || (exponent < Double.MIN_EXPONENT)) {
+      return Double.MAX_EXPONENT + 1;
+    }
+
+    return Math.abs(exponent);
+  }
+}
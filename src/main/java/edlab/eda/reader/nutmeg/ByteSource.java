@@ -0,0 +1,316 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Random access to the contents of a waveform file. All positions are
+ * <code>long</code> values, such that files larger than 2 GB can be
+ * addressed.
+ */
+abstract class ByteSource {
+
+  /**
+   * Default size of a single mapping (1 GB) as power of two.
+   */
+  static final int WINDOW_SHIFT = 30;
+
+  /**
+   * Returns the number of bytes in the source.
+   *
+   * @return size in bytes
+   */
+  abstract long size();
+
+  /**
+   * Returns the byte at a given position.
+   *
+   * @param pos - position in the source
+   * @return byte at pos
+   */
+  abstract byte get(long pos);
+
+  /**
+   * Returns a buffer with the bytes <code>[pos, pos + len)</code>. The
+   * returned buffer has position 0 and limit <code>len</code>. Whenever
+   * possible, the buffer shares its content with the source.
+   *
+   * @param pos - position in the source
+   * @param len - number of bytes
+   * @return buffer
+   */
+  abstract ByteBuffer slice(long pos, int len);
+
+  /**
+   * Release the memory of the source immediately. Accessing the source or a
+   * buffer returned by {@link #slice(long, int)} afterwards crashes the
+   * virtual machine. Only sources whose buffers are not passed to plots or
+   * callers must be closed, all other sources are released by the garbage
+   * collector.
+   */
+  void close() {
+  }
+
+  /**
+   * Returns the big-endian double that starts at a given position.
+   *
+   * @param pos - position in the source
+   * @return double
+   */
+  double getDouble(final long pos) {
+    return this.slice(pos, Double.BYTES).getDouble(0);
+  }
+
+  /**
+   * Decode the bytes <code>[pos, pos + len)</code> to a string.
+   *
+   * @param pos - position in the source
+   * @param len - number of bytes
+   * @return string
+   */
+  String getString(final long pos, final int len) {
+
+    final ByteBuffer buffer = this.slice(pos, len);
+
+    if (buffer.hasArray()) {
+      return new String(buffer.array(), buffer.arrayOffset(), len,
+          Charset.defaultCharset());
+    } else {
+      final byte[] bytes = new byte[len];
+      buffer.get(bytes);
+      return new String(bytes, Charset.defaultCharset());
+    }
+  }
+
+  /**
+   * Create a source from an array that is already in memory.
+   *
+   * @param data - content
+   * @return source
+   */
+  static ByteSource wrap(final byte[] data) {
+    return new HeapByteSource(data);
+  }
+
+  /**
+   * Map a file into memory. Files that are larger than a single mapping are
+   * split into multiple windows.
+   *
+   * @param file - file to be mapped
+   * @return source
+   * @throws IOException when the file cannot be mapped
+   */
+  static ByteSource map(final File file) throws IOException {
+    return map(file, WINDOW_SHIFT);
+  }
+
+  /**
+   * Map a file into memory with windows of <code>2^windowShift</code> bytes.
+   *
+   * @param file        - file to be mapped
+   * @param windowShift - size of a window as power of two
+   * @return source
+   * @throws IOException when the file cannot be mapped
+   */
+  static ByteSource map(final File file, final int windowShift)
+      throws IOException {
+    return new MappedByteSource(file, windowShift);
+  }
+
+  /**
+   * Create a view on the bytes <code>[off, off + len)</code> of a buffer.
+   *
+   * @param buffer - buffer
+   * @param off    - offset in the buffer
+   * @param len    - number of bytes
+   * @return view with position 0 and limit <code>len</code>
+   */
+  static ByteBuffer slice(final ByteBuffer buffer, final int off,
+      final int len) {
+
+    final ByteBuffer duplicate = buffer.duplicate();
+
+    // Cast to Buffer, the covariant overrides do not exist in Java 8
+    ((Buffer) duplicate).limit(off + len);
+    ((Buffer) duplicate).position(off);
+
+    return duplicate.slice();
+  }
+
+  /**
+   * Release the memory of a direct or mapped buffer immediately instead of
+   * waiting for the garbage collector. The buffer must not be used
+   * afterwards. When the memory cannot be released explicitly, it is
+   * released by the garbage collector.
+   *
+   * @param buffer - direct or mapped buffer
+   */
+  static void free(final ByteBuffer buffer) {
+
+    if ((buffer == null) || !buffer.isDirect()) {
+      return;
+    }
+
+    try {
+
+      // Java 9 and later
+      final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+          ByteBuffer.class);
+      final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+
+    } catch (final NoSuchMethodException e) {
+
+      // Java 8
+      try {
+        final Method cleaner = buffer.getClass().getMethod("cleaner");
+        cleaner.setAccessible(true);
+        final Object clean = cleaner.invoke(buffer);
+
+        if (clean != null) {
+          clean.getClass().getMethod("clean").invoke(clean);
+        }
+      } catch (final ReflectiveOperationException | RuntimeException e1) {
+        // released by the garbage collector
+      }
+
+    } catch (final ReflectiveOperationException | RuntimeException e) {
+      // released by the garbage collector, e.g. for views on a buffer
+    }
+  }
+
+  /**
+   * Source backed by a byte array.
+   */
+  private static final class HeapByteSource extends ByteSource {
+
+    private final byte[] data;
+    private final ByteBuffer buffer;
+
+    private HeapByteSource(final byte[] data) {
+      this.data = data;
+      this.buffer = ByteBuffer.wrap(data);
+    }
+
+    @Override
+    long size() {
+      return this.data.length;
+    }
+
+    @Override
+    byte get(final long pos) {
+      return this.data[(int) pos];
+    }
+
+    @Override
+    double getDouble(final long pos) {
+      return this.buffer.getDouble((int) pos);
+    }
+
+    @Override
+    ByteBuffer slice(final long pos, final int len) {
+      return ByteBuffer.wrap(this.data, (int) pos, len).slice();
+    }
+  }
+
+  /**
+   * Source backed by one or more read-only mappings of a file.
+   */
+  private static final class MappedByteSource extends ByteSource {
+
+    private final long size;
+    private final int shift;
+    private final long mask;
+    private final MappedByteBuffer[] windows;
+
+    private MappedByteSource(final File file, final int shift)
+        throws IOException {
+
+      this.shift = shift;
+      this.mask = (1L << shift) - 1;
+
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+          FileChannel channel = raf.getChannel()) {
+
+        this.size = channel.size();
+
+        final int noOfWindows = (int) ((this.size + this.mask) >>> shift);
+        this.windows = new MappedByteBuffer[noOfWindows];
+
+        long start;
+
+        for (int i = 0; i < noOfWindows; i++) {
+          start = (long) i << shift;
+          this.windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+              Math.min(1L << shift, this.size - start));
+        }
+      }
+    }
+
+    @Override
+    long size() {
+      return this.size;
+    }
+
+    @Override
+    void close() {
+      for (int i = 0; i < this.windows.length; i++) {
+        free(this.windows[i]);
+        this.windows[i] = null;
+      }
+    }
+
+    @Override
+    byte get(final long pos) {
+      return this.windows[(int) (pos >>> this.shift)]
+          .get((int) (pos & this.mask));
+    }
+
+    @Override
+    double getDouble(final long pos) {
+
+      final int window = (int) (pos >>> this.shift);
+      final int off = (int) (pos & this.mask);
+
+      if ((off + Double.BYTES) <= this.windows[window].limit()) {
+        return this.windows[window].getDouble(off);
+      } else {
+        return super.getDouble(pos);
+      }
+    }
+
+    @Override
+    ByteBuffer slice(final long pos, final int len) {
+
+      if (len == 0) {
+        return ByteBuffer.allocate(0);
+      }
+
+      final int window = (int) (pos >>> this.shift);
+      final int off = (int) (pos & this.mask);
+
+      if ((off + (long) len) <= this.windows[window].limit()) {
+        return slice(this.windows[window], off, len);
+      }
+
+      // The range crosses a window boundary and must be copied
+      final ByteBuffer buffer = ByteBuffer.allocate(len);
+
+      for (int i = 0; i < len; i++) {
+        buffer.put(i, this.get(pos + i));
+      }
+
+      return buffer;
+    }
+  }
+}
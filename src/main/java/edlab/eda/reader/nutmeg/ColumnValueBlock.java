@@ -0,0 +1,199 @@
+package edlab.eda.reader.nutmeg;
+
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Value block of a plot in a column-major cache file. The values of each
+ * wave are stored contiguously in a page-aligned column, the real and
+ * imaginary parts of complex waves in two consecutive columns. A single wave
+ * is decoded without touching the columns of other waves.
+ */
+final class ColumnValueBlock extends ValueBlock {
+
+  /**
+   * Maximal number of values that are read with one slice of the source
+   */
+  private static final int SLICE_VALUES = 1 << 20;
+
+  private final ByteOrder order;
+  private final long stride;
+
+  /**
+   * Create a new value block.
+   *
+   * @param source     - source of the cache file
+   * @param offset     - position of the first column in the source
+   * @param noOfVars   - number of variables
+   * @param noOfPoints - number of points
+   * @param complex    - <code>true</code> when the values are complex,
+   *                   <code>false</code> otherwise
+   * @param order      - byte order of the values
+   */
+  ColumnValueBlock(final ByteSource source, final long offset,
+      final int noOfVars, final int noOfPoints, final boolean complex,
+      final ByteOrder order) {
+    super(source, offset, noOfVars, noOfPoints, complex);
+    this.order = order;
+    this.stride = NutcacheReader.getStride(noOfPoints);
+  }
+
+  /**
+   * Returns the length of the value block in bytes.
+   *
+   * @return length in bytes
+   */
+  long getLength() {
+    return NutcacheReader.getNoOfColumns(this.complex, this.noOfVars)
+        * this.stride;
+  }
+
+  @Override
+  long decode(final double[][] re, final double[][] im) {
+
+    this.checkOpen();
+
+    if ((this.offset + this.getLength()) > this.source.size()) {
+      return -1;
+    }
+
+    this.decodeRange(re, im, 0, this.noOfPoints, 0);
+
+    return this.offset + this.getLength();
+  }
+
+  @Override
+  long stream(final PlotHandler handler, final PointChunk chunk) {
+
+    this.checkOpen();
+
+    if ((this.offset + this.getLength()) > this.source.size()) {
+      return -1;
+    }
+
+    int last;
+
+    for (int first = 0; first < this.noOfPoints; first += chunk
+        .getCapacity()) {
+
+      last = Math.min(this.noOfPoints, first + chunk.getCapacity());
+
+      this.decodeRange(chunk.re, chunk.im, first, last, first);
+
+      chunk.set(first, last - first);
+      handler.points(chunk);
+    }
+
+    return this.offset + this.getLength();
+  }
+
+  @Override
+  long decodeSlice(final double[][] re, final double[][] im, final int from,
+      final int to) {
+
+    this.checkOpen();
+
+    if ((this.offset + this.getLength()) > this.source.size()) {
+      return -1;
+    }
+
+    this.decodeRange(re, im, from, to, from);
+
+    return this.offset + this.getLength();
+  }
+
+  @Override
+  boolean isRandomAccess() {
+    return true;
+  }
+
+  @Override
+  double getReal(final int column, final int point) {
+
+    this.checkOpen();
+
+    if ((this.offset + this.getLength()) > this.source.size()) {
+      return Double.NaN;
+    }
+
+    return this.source.slice(this.offset
+        + ((this.complex ? 2L : 1L) * column * this.stride)
+        + ((long) point * Double.BYTES), Double.BYTES).order(this.order)
+        .getDouble(0);
+  }
+
+  /**
+   * Returns a view on a column of the mapped cache file. Columns that cross
+   * the boundary of a mapping are copied to the heap.
+   */
+  @Override
+  DoubleBuffer getColumn(final int column, final boolean imag) {
+
+    this.checkOpen();
+
+    if ((((long) this.noOfPoints * Double.BYTES) > Integer.MAX_VALUE)
+        || ((this.offset + this.getLength()) > this.source.size())) {
+      return null;
+    }
+
+    final int columns = this.complex ? 2 : 1;
+
+    return this.source
+        .slice(this.offset
+            + ((((long) columns * column) + (imag ? 1 : 0)) * this.stride),
+            this.noOfPoints * Double.BYTES)
+        .order(this.order).asDoubleBuffer().asReadOnlyBuffer();
+  }
+
+  /**
+   * Decode a range of points.
+   *
+   * @param re    - real parts
+   * @param im    - imaginary parts
+   * @param from  - index of the first point
+   * @param to    - index after the last point
+   * @param shift - index of point 0 in the arrays
+   */
+  private void decodeRange(final double[][] re, final double[][] im,
+      final int from, final int to, final int shift) {
+
+    final int columns = this.complex ? 2 : 1;
+
+    for (int i = 0; i < this.noOfVars; i++) {
+
+      if (re[i] != null) {
+        this.read(this.offset + ((long) columns * i * this.stride), re[i],
+            from, to, shift);
+      }
+
+      if (this.complex && (im[i] != null)) {
+        this.read(this.offset + ((((long) columns * i) + 1) * this.stride),
+            im[i], from, to, shift);
+      }
+    }
+  }
+
+  /**
+   * Read a range of values from a column.
+   *
+   * @param column - position of the column in the source
+   * @param dst    - array for the values
+   * @param from   - index of the first point
+   * @param to     - index after the last point
+   * @param shift  - index of point 0 in the array
+   */
+  private void read(final long column, final double[] dst, final int from,
+      final int to, final int shift) {
+
+    int n;
+
+    for (int first = from; first < to; first += SLICE_VALUES) {
+
+      n = Math.min(SLICE_VALUES, to - first);
+
+      this.source
+          .slice(column + ((long) first * Double.BYTES), n * Double.BYTES)
+          .order(this.order).asDoubleBuffer().get(dst, first - shift, n);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package edlab.eda.reader.nutmeg;
+
+/**
+ * Waveform that was reduced to a small number of points for plotting, see
+ * {@link NutmegPlot#getMinMax(java.util.List, int)} and
+ * {@link NutmegPlot#getLttb(java.util.List, int)}. Each point consists of a
+ * value of the reference wave and a value of the wave. The points are a
+ * subset of the points of the plot, in the same order.
+ */
+public final class DecimatedWave {
+
+  private final String name;
+  private final double[] reference;
+  private final double[] values;
+  private final int noOfSourcePoints;
+
+  DecimatedWave(final String name, final double[] reference,
+      final double[] values, final int noOfSourcePoints) {
+    this.name = name;
+    this.reference = reference;
+    this.values = values;
+    this.noOfSourcePoints = noOfSourcePoints;
+  }
+
+  /**
+   * Returns the name of the wave.
+   *
+   * @return name
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Returns the values of the reference wave at the selected points.
+   *
+   * @return array of values, must not be modified
+   */
+  public double[] getReference() {
+    return this.reference;
+  }
+
+  /**
+   * Returns the values of the wave at the selected points. For complex plots,
+   * the values are magnitudes.
+   *
+   * @return array of values, must not be modified
+   */
+  public double[] getValues() {
+    return this.values;
+  }
+
+  /**
+   * Returns the number of selected points.
+   *
+   * @return number of points
+   */
+  public int getNoOfPoints() {
+    return this.values.length;
+  }
+
+  /**
+   * Returns the number of points the selection was made from.
+   *
+   * @return number of points
+   */
+  public int getNoOfSourcePoints() {
+    return this.noOfSourcePoints;
+  }
+
+  /**
+   * Returns if points were dropped.
+   *
+   * @return True if less points were selected than available
+   */
+  public boolean isDecimated() {
+    return this.values.length < this.noOfSourcePoints;
+  }
+
+  @Override
+  public String toString() {
+    return this.name + " (" + this.getNoOfPoints() + " of "
+        + this.noOfSourcePoints + " points)";
+  }
+}
@@ -0,0 +1,229 @@
+package edlab.eda.reader.nutmeg;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Reduction of waveforms to a small number of points for plotting. The
+ * points are divided into buckets with the same number of points, the first
+ * and the last point are always kept.
+ * <ul>
+ * <li><b>Min/max</b> keeps the minimum and the maximum of each bucket, such
+ * that no peak is lost. A plot that is as wide as the number of buckets in
+ * pixels looks like a plot of all points.</li>
+ * <li><b>Largest-Triangle-Three-Buckets</b> keeps the point of each bucket
+ * that forms the largest triangle with the point that was kept in the
+ * previous bucket and the average of the next bucket, see S. Steinarsson,
+ * <i>Downsampling Time Series for Visual Representation</i>, 2013. The shape
+ * of the wave is kept with fewer points than min/max.</li>
+ * </ul>
+ */
+final class Decimator {
+
+  /**
+   * Minimal number of points for min/max
+   */
+  static final int MIN_MAX_POINTS = 4;
+
+  /**
+   * Minimal number of points for Largest-Triangle-Three-Buckets
+   */
+  static final int LTTB_POINTS = 3;
+
+  private Decimator() {
+  }
+
+  /**
+   * Keep the minimum and the maximum of each bucket.
+   *
+   * @param name       - name of the wave
+   * @param x          - values of the reference wave
+   * @param y          - values of the wave, same size as the reference
+   * @param noOfPoints - maximal number of points that are kept, at least
+   *                   {@link #MIN_MAX_POINTS}
+   * @return decimated wave
+   */
+  static DecimatedWave minMax(final String name, final DoubleBuffer x,
+      final DoubleBuffer y, final int noOfPoints) {
+
+    final int n = y.remaining();
+
+    if (n <= noOfPoints) {
+      return all(name, x, y);
+    }
+
+    final int buckets = (noOfPoints - 2) / 2;
+    final int[] selected = new int[(2 * buckets) + 2];
+
+    int size = 0;
+    selected[size++] = 0;
+
+    int start = 1;
+    int end;
+    int min;
+    int max;
+
+    for (int bucket = 0; bucket < buckets; bucket++) {
+
+      end = bucketEnd(bucket, buckets, n);
+      min = start;
+      max = start;
+
+      for (int i = start + 1; i < end; i++) {
+        if (y.get(i) < y.get(min)) {
+          min = i;
+        } else if (y.get(i) > y.get(max)) {
+          max = i;
+        }
+      }
+
+      // keep the order of the points
+      selected[size++] = Math.min(min, max);
+
+      if (min != max) {
+        selected[size++] = Math.max(min, max);
+      }
+
+      start = end;
+    }
+
+    selected[size++] = n - 1;
+
+    return select(name, x, y, selected, size);
+  }
+
+  /**
+   * Keep the point of each bucket that forms the largest triangle with its
+   * neighbouring buckets.
+   *
+   * @param name       - name of the wave
+   * @param x          - values of the reference wave
+   * @param y          - values of the wave, same size as the reference
+   * @param noOfPoints - maximal number of points that are kept, at least
+   *                   {@link #LTTB_POINTS}
+   * @return decimated wave
+   */
+  static DecimatedWave lttb(final String name, final DoubleBuffer x,
+      final DoubleBuffer y, final int noOfPoints) {
+
+    final int n = y.remaining();
+
+    if (n <= noOfPoints) {
+      return all(name, x, y);
+    }
+
+    final int buckets = noOfPoints - 2;
+    final int[] selected = new int[noOfPoints];
+
+    selected[0] = 0;
+
+    int previous = 0;
+    int start = 1;
+    int end;
+    int nextEnd;
+    double avgX;
+    double avgY;
+    double area;
+    double maxArea;
+    int max;
+
+    for (int bucket = 0; bucket < buckets; bucket++) {
+
+      end = bucketEnd(bucket, buckets, n);
+      nextEnd = (bucket + 1) < buckets ? bucketEnd(bucket + 1, buckets, n) : n;
+
+      // average of the next bucket, the last point after the last bucket
+      avgX = 0.0;
+      avgY = 0.0;
+
+      for (int i = end; i < nextEnd; i++) {
+        avgX += x.get(i);
+        avgY += y.get(i);
+      }
+
+      avgX /= nextEnd - end;
+      avgY /= nextEnd - end;
+
+      maxArea = -1.0;
+      max = start;
+
+      for (int i = start; i < end; i++) {
+
+        // twice the area of the triangle
+        area = Math.abs(((x.get(previous) - avgX)
+            * (y.get(i) - y.get(previous)))
+            - ((x.get(previous) - x.get(i)) * (avgY - y.get(previous))));
+
+        if (area > maxArea) {
+          maxArea = area;
+          max = i;
+        }
+      }
+
+      selected[bucket + 1] = max;
+      previous = max;
+      start = end;
+    }
+
+    selected[noOfPoints - 1] = n - 1;
+
+    return select(name, x, y, selected, noOfPoints);
+  }
+
+  /**
+   * Returns the index after the last point of a bucket. The buckets divide
+   * all points except the first and the last point.
+   *
+   * @param bucket  - index of the bucket
+   * @param buckets - number of buckets
+   * @param n       - number of points
+   * @return index
+   */
+  private static int bucketEnd(final int bucket, final int buckets,
+      final int n) {
+    return 1 + (int) (((bucket + 1L) * (n - 2)) / buckets);
+  }
+
+  /**
+   * Keep all points.
+   *
+   * @param name - name of the wave
+   * @param x    - values of the reference wave
+   * @param y    - values of the wave
+   * @return wave
+   */
+  private static DecimatedWave all(final String name, final DoubleBuffer x,
+      final DoubleBuffer y) {
+
+    final double[] reference = new double[y.remaining()];
+    final double[] values = new double[y.remaining()];
+
+    x.duplicate().get(reference);
+    y.duplicate().get(values);
+
+    return new DecimatedWave(name, reference, values, values.length);
+  }
+
+  /**
+   * Keep selected points.
+   *
+   * @param name     - name of the wave
+   * @param x        - values of the reference wave
+   * @param y        - values of the wave
+   * @param selected - indices of the selected points in ascending order
+   * @param size     - number of selected points
+   * @return decimated wave
+   */
+  private static DecimatedWave select(final String name, final DoubleBuffer x,
+      final DoubleBuffer y, final int[] selected, final int size) {
+
+    final double[] reference = new double[size];
+    final double[] values = new double[size];
+
+    for (int i = 0; i < size; i++) {
+      reference[i] = x.get(selected[i]);
+      values[i] = y.get(selected[i]);
+    }
+
+    return new DecimatedWave(name, reference, values, y.remaining());
+  }
+}
@@ -0,0 +1,277 @@
+package edlab.eda.reader.nutmeg;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Value block whose values are stored outside of the heap. The values of
+ * each variable are copied from another block into a separate direct buffer,
+ * the real and imaginary parts of complex variables into two buffers. The
+ * copy is done in chunks, such that the complete plot never resides on the
+ * heap.
+ */
+final class DirectValueBlock extends ValueBlock {
+
+  /**
+   * Number of bytes of the chunks that are used for copying a block
+   */
+  private static final int CHUNK_BYTES = 1 << 20;
+
+  private final ByteBuffer[] re;
+  private final ByteBuffer[] im;
+
+  private DirectValueBlock(final int noOfVars, final int noOfPoints,
+      final boolean complex) {
+    super(null, 0, noOfVars, noOfPoints, complex);
+    this.re = new ByteBuffer[noOfVars];
+    this.im = new ByteBuffer[noOfVars];
+  }
+
+  /**
+   * Copy the values of selected variables of a block to direct buffers.
+   *
+   * @param block     - block to be copied
+   * @param selection - one entry per variable, <code>true</code> when the
+   *                  variable is copied
+   * @return block, <code>null</code> when the block is not valid or too
+   *         large
+   */
+  static DirectValueBlock copy(final ValueBlock block,
+      final boolean[] selection) {
+
+    final int noOfPoints = block.getNoOfPoints();
+
+    if (((long) noOfPoints * Double.BYTES) > Integer.MAX_VALUE) {
+      System.err.println("Plot with " + noOfPoints
+          + " points cannot be stored outside of the heap");
+      return null;
+    }
+
+    final DirectValueBlock direct = new DirectValueBlock(block.getNoOfVars(),
+        noOfPoints, block.isComplex());
+
+    int selected = 0;
+
+    for (int i = 0; i < selection.length; i++) {
+      if (selection[i]) {
+
+        direct.re[i] = allocate(noOfPoints);
+
+        if (direct.complex) {
+          direct.im[i] = allocate(noOfPoints);
+        }
+
+        selected++;
+      }
+    }
+
+    final int capacity = Math.max(1, Math.min(noOfPoints, CHUNK_BYTES
+        / ((direct.complex ? 2 : 1) * Double.BYTES * Math.max(1, selected))));
+
+    final PlotHandler handler = new PlotHandler() {
+
+      @Override
+      public void startPlot(final NutmegPlotInfo info) {
+      }
+
+      @Override
+      public void points(final PointChunk chunk) {
+        for (int i = 0; i < selection.length; i++) {
+          if (selection[i]) {
+
+            put(direct.re[i], chunk.re[i], chunk.getFirstPoint(),
+                chunk.getNoOfPoints());
+
+            if (direct.complex) {
+              put(direct.im[i], chunk.im[i], chunk.getFirstPoint(),
+                  chunk.getNoOfPoints());
+            }
+          }
+        }
+      }
+
+      @Override
+      public void endPlot() {
+      }
+    };
+
+    if (block.stream(handler,
+        new PointChunk(selection, block.isComplex(), capacity)) < 0) {
+      direct.close();
+      return null;
+    }
+
+    return direct;
+  }
+
+  @Override
+  long decode(final double[][] re, final double[][] im) {
+
+    this.checkOpen();
+
+    for (int i = 0; i < this.noOfVars; i++) {
+
+      if (!get(this.re[i], re[i], 0, this.noOfPoints)) {
+        return -1;
+      }
+
+      if (this.complex && !get(this.im[i], im[i], 0, this.noOfPoints)) {
+        return -1;
+      }
+    }
+
+    return 0;
+  }
+
+  @Override
+  long stream(final PlotHandler handler, final PointChunk chunk) {
+
+    this.checkOpen();
+
+    int last;
+
+    for (int first = 0; first < this.noOfPoints; first += chunk
+        .getCapacity()) {
+
+      last = Math.min(this.noOfPoints, first + chunk.getCapacity());
+
+      for (int i = 0; i < this.noOfVars; i++) {
+
+        if (!get(this.re[i], chunk.re[i], first, last - first)) {
+          return -1;
+        }
+
+        if (this.complex
+            && !get(this.im[i], chunk.im[i], first, last - first)) {
+          return -1;
+        }
+      }
+
+      chunk.set(first, last - first);
+      handler.points(chunk);
+    }
+
+    return 0;
+  }
+
+  @Override
+  long decodeSlice(final double[][] re, final double[][] im, final int from,
+      final int to) {
+
+    this.checkOpen();
+
+    for (int i = 0; i < this.noOfVars; i++) {
+
+      if (!get(this.re[i], re[i], from, to - from)) {
+        return -1;
+      }
+
+      if (this.complex && !get(this.im[i], im[i], from, to - from)) {
+        return -1;
+      }
+    }
+
+    return 0;
+  }
+
+  @Override
+  boolean isRandomAccess() {
+    return true;
+  }
+
+  @Override
+  double getReal(final int column, final int point) {
+
+    this.checkOpen();
+
+    final ByteBuffer buffer = this.re[column];
+
+    if (buffer == null) {
+      return Double.NaN;
+    }
+
+    return buffer.getDouble(point * Double.BYTES);
+  }
+
+  @Override
+  DoubleBuffer getColumn(final int column, final boolean imag) {
+
+    this.checkOpen();
+
+    final ByteBuffer buffer = imag ? this.im[column] : this.re[column];
+
+    if (buffer == null) {
+      return null;
+    }
+
+    return buffer.asReadOnlyBuffer().order(buffer.order()).asDoubleBuffer();
+  }
+
+  /**
+   * Drop the buffers of the block. The memory is not released explicitly,
+   * views that were returned by {@link #getColumn(int, boolean)} may still
+   * refer to it. It is released by the garbage collector as soon as neither
+   * the block nor a view refers to it.
+   */
+  @Override
+  void close() {
+
+    super.close();
+
+    for (int i = 0; i < this.noOfVars; i++) {
+      this.re[i] = null;
+      this.im[i] = null;
+    }
+  }
+
+  /**
+   * Allocate a direct buffer for the values of a variable.
+   *
+   * @param noOfPoints - number of values
+   * @return buffer in native byte order
+   */
+  private static ByteBuffer allocate(final int noOfPoints) {
+    return ByteBuffer.allocateDirect(noOfPoints * Double.BYTES)
+        .order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Copy values from an array to a buffer.
+   *
+   * @param dst   - buffer
+   * @param src   - array
+   * @param first - index of the first value in the buffer
+   * @param n     - number of values
+   */
+  private static void put(final ByteBuffer dst, final double[] src,
+      final int first, final int n) {
+    ByteSource.slice(dst, first * Double.BYTES, n * Double.BYTES)
+        .order(dst.order()).asDoubleBuffer().put(src, 0, n);
+  }
+
+  /**
+   * Copy values from a buffer to an array.
+   *
+   * @param src   - buffer, <code>null</code> when the variable was not copied
+   * @param dst   - array, <code>null</code> when the variable is skipped
+   * @param first - index of the first value in the buffer
+   * @param n     - number of values
+   * @return <code>true</code> when the values were copied or skipped,
+   *         <code>false</code> when the variable was not copied
+   */
+  private static boolean get(final ByteBuffer src, final double[] dst,
+      final int first, final int n) {
+
+    if (dst == null) {
+      return true;
+    } else if (src == null) {
+      return false;
+    }
+
+    ByteSource.slice(src, first * Double.BYTES, n * Double.BYTES)
+        .order(src.order()).asDoubleBuffer().get(dst, 0, n);
+
+    return true;
+  }
+}
@@ -0,0 +1,208 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Listener that emits JDK Flight Recorder events, see
+ * {@link NutReaderMetrics#getFlightRecorderMetrics()}. This class must only
+ * be loaded when the Java runtime provides the Flight Recorder.
+ */
+final class FlightRecorderMetrics implements NutReaderMetrics {
+
+  private static final String CATEGORY = "Nutmeg Reader";
+
+  @Override
+  public void fileRead(final File file, final long bytes, final long nanos) {
+
+    final ReadEvent event = new ReadEvent();
+
+    if (event.isEnabled()) {
+      event.file = file.getPath();
+      event.bytes = bytes;
+      event.phaseDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void headersParsed(final File file, final int noOfPlots,
+      final long nanos) {
+
+    final HeaderEvent event = new HeaderEvent();
+
+    if (event.isEnabled()) {
+      event.file = file.getPath();
+      event.plots = noOfPlots;
+      event.phaseDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void plotDecoded(final NutmegPlotInfo info, final int noOfWaves,
+      final long allocated, final long nanos) {
+
+    final DecodeEvent event = new DecodeEvent();
+
+    if (event.isEnabled()) {
+      event.plotname = info.getPlotname();
+      event.waves = noOfWaves;
+      event.points = info.getNoOfPoints();
+      event.allocated = allocated;
+      event.phaseDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void plotValidated(final NutmegPlotInfo info, final boolean valid,
+      final long nanos) {
+
+    final ValidateEvent event = new ValidateEvent();
+
+    if (event.isEnabled()) {
+      event.plotname = info.getPlotname();
+      event.valid = valid;
+      event.phaseDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void duplicatesDropped(final NutmegPlotInfo info,
+      final int noOfDuplicates) {
+
+    final DuplicateEvent event = new DuplicateEvent();
+
+    if (event.isEnabled()) {
+      event.plotname = info.getPlotname();
+      event.duplicates = noOfDuplicates;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void fileParsed(final File file, final int noOfPlots,
+      final long noOfPoints, final long nanos) {
+
+    final ParseEvent event = new ParseEvent();
+
+    if (event.isEnabled()) {
+      event.file = file.getPath();
+      event.plots = noOfPlots;
+      event.points = noOfPoints;
+      event.phaseDuration = nanos;
+      event.commit();
+    }
+  }
+
+  @Name("edlab.eda.reader.nutmeg.Read")
+  @Label("Read Waveform File")
+  @Category(CATEGORY)
+  static final class ReadEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Phase Duration")
+    @Timespan
+    long phaseDuration;
+  }
+
+  @Name("edlab.eda.reader.nutmeg.Headers")
+  @Label("Parse Headers")
+  @Category(CATEGORY)
+  static final class HeaderEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Plots")
+    int plots;
+
+    @Label("Phase Duration")
+    @Timespan
+    long phaseDuration;
+  }
+
+  @Name("edlab.eda.reader.nutmeg.Decode")
+  @Label("Decode Plot")
+  @Category(CATEGORY)
+  static final class DecodeEvent extends Event {
+
+    @Label("Plot")
+    String plotname;
+
+    @Label("Waves")
+    int waves;
+
+    @Label("Points")
+    int points;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    @Label("Phase Duration")
+    @Timespan
+    long phaseDuration;
+  }
+
+  @Name("edlab.eda.reader.nutmeg.Validate")
+  @Label("Validate Plot")
+  @Category(CATEGORY)
+  static final class ValidateEvent extends Event {
+
+    @Label("Plot")
+    String plotname;
+
+    @Label("Valid")
+    boolean valid;
+
+    @Label("Phase Duration")
+    @Timespan
+    long phaseDuration;
+  }
+
+  @Name("edlab.eda.reader.nutmeg.Duplicates")
+  @Label("Drop Duplicate Variables")
+  @Category(CATEGORY)
+  static final class DuplicateEvent extends Event {
+
+    @Label("Plot")
+    String plotname;
+
+    @Label("Duplicates")
+    int duplicates;
+  }
+
+  @Name("edlab.eda.reader.nutmeg.Parse")
+  @Label("Parse Waveform File")
+  @Category(CATEGORY)
+  static final class ParseEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Plots")
+    int plots;
+
+    @Label("Points")
+    long points;
+
+    @Label("Phase Duration")
+    @Timespan
+    long phaseDuration;
+  }
+}
@@ -0,0 +1,355 @@
+package edlab.eda.reader.nutmeg;
+
+/**
+ * Value block whose values are stored on the heap with single precision. The
+ * values of each variable are copied from another block into a separate
+ * array, the real and imaginary parts of complex variables into two arrays.
+ * The reference wave (time or frequency) is kept with double precision. The
+ * copy is done in chunks, such that the values are never held with double
+ * precision completely.
+ */
+final class FloatValueBlock extends ValueBlock {
+
+  /**
+   * Number of bytes of the chunks that are used for copying a block
+   */
+  private static final int CHUNK_BYTES = 1 << 20;
+
+  private double[] refRe;
+  private double[] refIm;
+  private final float[][] re;
+  private final float[][] im;
+
+  private FloatValueBlock(final int noOfVars, final int noOfPoints,
+      final boolean complex) {
+    super(null, 0, noOfVars, noOfPoints, complex);
+    this.re = new float[noOfVars][];
+    this.im = new float[noOfVars][];
+  }
+
+  /**
+   * Copy the values of selected variables of a block to arrays with single
+   * precision. The reference wave is always copied with double precision.
+   *
+   * @param block     - block to be copied
+   * @param selection - one entry per variable, <code>true</code> when the
+   *                  variable is copied
+   * @return block, <code>null</code> when the block is not valid
+   */
+  static FloatValueBlock copy(final ValueBlock block,
+      final boolean[] selection) {
+
+    final int noOfPoints = block.getNoOfPoints();
+
+    final FloatValueBlock floats = new FloatValueBlock(block.getNoOfVars(),
+        noOfPoints, block.isComplex());
+
+    int selected = 0;
+
+    floats.refRe = new double[noOfPoints];
+
+    if (floats.complex) {
+      floats.refIm = new double[noOfPoints];
+    }
+
+    for (int i = 1; i < selection.length; i++) {
+      if (selection[i]) {
+
+        floats.re[i] = new float[noOfPoints];
+
+        if (floats.complex) {
+          floats.im[i] = new float[noOfPoints];
+        }
+
+        selected++;
+      }
+    }
+
+    final int capacity = Math.max(1,
+        Math.min(noOfPoints, CHUNK_BYTES / ((floats.complex ? 2 : 1)
+            * Double.BYTES * (selected + 1))));
+
+    final PlotHandler handler = new PlotHandler() {
+
+      @Override
+      public void startPlot(final NutmegPlotInfo info) {
+      }
+
+      @Override
+      public void points(final PointChunk chunk) {
+
+        final int first = chunk.getFirstPoint();
+        final int n = chunk.getNoOfPoints();
+
+        System.arraycopy(chunk.re[0], 0, floats.refRe, first, n);
+
+        if (floats.complex) {
+          System.arraycopy(chunk.im[0], 0, floats.refIm, first, n);
+        }
+
+        for (int i = 1; i < selection.length; i++) {
+          if (selection[i]) {
+
+            put(floats.re[i], chunk.re[i], first, n);
+
+            if (floats.complex) {
+              put(floats.im[i], chunk.im[i], first, n);
+            }
+          }
+        }
+      }
+
+      @Override
+      public void endPlot() {
+      }
+    };
+
+    final boolean[] copied = selection.clone();
+    copied[0] = true;
+
+    if (block.stream(handler,
+        new PointChunk(copied, block.isComplex(), capacity)) < 0) {
+      return null;
+    }
+
+    return floats;
+  }
+
+  @Override
+  long decode(final double[][] re, final double[][] im) {
+
+    this.checkOpen();
+
+    for (int i = 0; i < this.noOfVars; i++) {
+
+      if (!this.get(i, false, re[i], 0, this.noOfPoints)) {
+        return -1;
+      }
+
+      if (this.complex
+          && !this.get(i, true, im[i], 0, this.noOfPoints)) {
+        return -1;
+      }
+    }
+
+    return 0;
+  }
+
+  @Override
+  long stream(final PlotHandler handler, final PointChunk chunk) {
+
+    this.checkOpen();
+
+    int last;
+
+    for (int first = 0; first < this.noOfPoints; first += chunk
+        .getCapacity()) {
+
+      last = Math.min(this.noOfPoints, first + chunk.getCapacity());
+
+      for (int i = 0; i < this.noOfVars; i++) {
+
+        if (!this.get(i, false, chunk.re[i], first, last - first)) {
+          return -1;
+        }
+
+        if (this.complex
+            && !this.get(i, true, chunk.im[i], first, last - first)) {
+          return -1;
+        }
+      }
+
+      chunk.set(first, last - first);
+      handler.points(chunk);
+    }
+
+    return 0;
+  }
+
+  @Override
+  long decodeSlice(final double[][] re, final double[][] im, final int from,
+      final int to) {
+
+    this.checkOpen();
+
+    for (int i = 0; i < this.noOfVars; i++) {
+
+      if (!this.get(i, false, re[i], from, to - from)) {
+        return -1;
+      }
+
+      if (this.complex && !this.get(i, true, im[i], from, to - from)) {
+        return -1;
+      }
+    }
+
+    return 0;
+  }
+
+  @Override
+  boolean isRandomAccess() {
+    return true;
+  }
+
+  @Override
+  double getReal(final int column, final int point) {
+
+    this.checkOpen();
+
+    if (column == 0) {
+      final double[] values = this.refRe;
+      return (values == null) ? Double.NaN : values[point];
+    } else {
+      final float[] values = this.re[column];
+      return (values == null) ? Double.NaN : values[point];
+    }
+  }
+
+  @Override
+  double[] decodeReal(final int column) {
+
+    this.checkOpen();
+
+    if (column == 0) {
+      return copy(this.refRe);
+    } else {
+      return toDouble(this.re[column]);
+    }
+  }
+
+  @Override
+  double[][] decodeComplex(final int column) {
+
+    this.checkOpen();
+
+    final float[] values = this.re[column];
+
+    if (column == 0) {
+      return new double[][] { copy(this.refRe), copy(this.refIm) };
+    } else if (values == null) {
+      return null;
+    } else {
+      return new double[][] { toDouble(values), toDouble(this.im[column]) };
+    }
+  }
+
+  @Override
+  float[] decodeRealFloat(final int column) {
+
+    this.checkOpen();
+
+    if (column == 0) {
+      return toFloat(this.refRe);
+    } else {
+      return this.re[column];
+    }
+  }
+
+  @Override
+  float[][] decodeComplexFloat(final int column) {
+
+    this.checkOpen();
+
+    final float[] values = this.re[column];
+
+    if (column == 0) {
+      return new float[][] { toFloat(this.refRe), toFloat(this.refIm) };
+    } else if (values == null) {
+      return null;
+    } else {
+      return new float[][] { values, this.im[column] };
+    }
+  }
+
+  @Override
+  boolean isSinglePrecision() {
+    return true;
+  }
+
+  @Override
+  void close() {
+
+    super.close();
+
+    this.refRe = null;
+    this.refIm = null;
+
+    for (int i = 0; i < this.noOfVars; i++) {
+      this.re[i] = null;
+      this.im[i] = null;
+    }
+  }
+
+  /**
+   * Copy the values of the reference wave, such that the stored values cannot
+   * be modified by the caller.
+   *
+   * @param values - values, can be <code>null</code>
+   * @return new array, <code>null</code> when the values are
+   *         <code>null</code>
+   */
+  private static double[] copy(final double[] values) {
+    return (values == null) ? null : values.clone();
+  }
+
+  /**
+   * Copy values from an array with double precision to an array with single
+   * precision.
+   *
+   * @param dst   - array with single precision
+   * @param src   - array with double precision
+   * @param first - index of the first value in the destination
+   * @param n     - number of values
+   */
+  private static void put(final float[] dst, final double[] src,
+      final int first, final int n) {
+    for (int i = 0; i < n; i++) {
+      dst[first + i] = (float) src[i];
+    }
+  }
+
+  /**
+   * Copy the values of a variable to an array with double precision.
+   *
+   * @param column - index of the variable
+   * @param imag   - <code>true</code> for the imaginary parts,
+   *               <code>false</code> for the real parts
+   * @param dst    - array, <code>null</code> when the variable is skipped
+   * @param first  - index of the first value in the block
+   * @param n      - number of values
+   * @return <code>true</code> when the values were copied or skipped,
+   *         <code>false</code> when the variable was not copied
+   */
+  private boolean get(final int column, final boolean imag,
+      final double[] dst, final int first, final int n) {
+
+    if (dst == null) {
+      return true;
+    }
+
+    if (column == 0) {
+
+      final double[] src = imag ? this.refIm : this.refRe;
+
+      if (src == null) {
+        return false;
+      }
+
+      System.arraycopy(src, first, dst, 0, n);
+
+    } else {
+
+      final float[] src = imag ? this.im[column] : this.re[column];
+
+      if (src == null) {
+        return false;
+      }
+
+      for (int i = 0; i < n; i++) {
+        dst[i] = src[first + i];
+      }
+    }
+
+    return true;
+  }
+}
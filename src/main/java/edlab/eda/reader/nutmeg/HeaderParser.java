@@ -0,0 +1,282 @@
+package edlab.eda.reader.nutmeg;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parser for the headers of the plots in a Nutmeg waveform file. The parser
+ * reads the header of a plot line by line and matches each line against the
+ * header keywords. Only the header region is searched, the value block that
+ * follows is skipped: binary value blocks by their computed length, ASCII
+ * value blocks line by line without tokenizing them.
+ */
+final class HeaderParser {
+
+  static final String PLOT_ID = "Plotname:";
+  static final String FLAGS_ID = "Flags:";
+  static final String NO_OF_VAR_ID = "No. Variables:";
+  static final String NO_OF_POINTS_ID = "No. Points:";
+  static final String VARS_ID = "Variables:";
+  static final String VALS_ASCII_ID = "Values:";
+  static final String VALS_BINARY_ID = "Binary:";
+
+  static final int BYTES_PER_NUM = 8;
+  static final int BYTES_PER_FLOAT = 4;
+
+  private static final byte[] PLOT_PATTERN = PLOT_ID
+      .getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte NEWLINE = '\n';
+
+  private final ByteSource source;
+  private final AsciiTokenizer tokenizer;
+
+  /**
+   * <code>true</code> when binary values are 4-byte floats
+   */
+  private final boolean singlePrecision;
+
+  /**
+   * Create a new parser that starts at the beginning of the source.
+   *
+   * @param source          - source of the waveform file
+   * @param singlePrecision - <code>true</code> when binary values are 4-byte
+   *                        floats, <code>false</code> when they are 8-byte
+   *                        doubles
+   */
+  HeaderParser(final ByteSource source, final boolean singlePrecision) {
+    this.source = source;
+    this.tokenizer = new AsciiTokenizer(source);
+    this.singlePrecision = singlePrecision;
+  }
+
+  /**
+   * Returns the metadata of the next valid plot. Invalid plots are skipped.
+   *
+   * @return metadata of the plot, <code>null</code> when no plot is left
+   */
+  NutmegPlotInfo next() {
+
+    String plotname;
+    NutmegPlotInfo info;
+
+    while ((plotname = this.nextPlotname()) != null) {
+
+      info = this.parsePlot(plotname);
+
+      if (info != null) {
+        return info;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Continue parsing at a given position, for example after a plot whose
+   * header is already known.
+   *
+   * @param pos - position of a line start in the source
+   */
+  void setPosition(final long pos) {
+    this.tokenizer.setPosition(pos);
+  }
+
+  /**
+   * Skip lines until a line with a plotname is found.
+   *
+   * @return plotname, <code>null</code> when no plot is left
+   */
+  private String nextPlotname() {
+
+    String line;
+
+    while ((line = this.tokenizer.nextLine()) != null) {
+      if (line.startsWith(PLOT_ID)) {
+        return line.substring(PLOT_ID.length()).trim();
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Parse the header of a plot after the line with the plotname.
+   *
+   * @param plotname - name of the plot
+   * @return metadata of the plot, <code>null</code> when the plot is invalid
+   */
+  private NutmegPlotInfo parsePlot(final String plotname) {
+
+    String line;
+    long lineStart = this.tokenizer.getPosition();
+
+    String flag = null;
+    int noOfVars = -1;
+    int noOfPoints = -1;
+
+    try {
+
+      while ((line = this.tokenizer.nextLine()) != null) {
+
+        if (line.startsWith(VARS_ID)) {
+          break;
+        } else if (line.startsWith(FLAGS_ID)) {
+          flag = line.substring(FLAGS_ID.length()).trim();
+        } else if (line.startsWith(NO_OF_VAR_ID)) {
+          noOfVars = Integer
+              .parseInt(line.substring(NO_OF_VAR_ID.length()).trim());
+        } else if (line.startsWith(NO_OF_POINTS_ID)) {
+          noOfPoints = Integer
+              .parseInt(line.substring(NO_OF_POINTS_ID.length()).trim());
+        } else if (line.startsWith(PLOT_ID)) {
+          // header is incomplete, continue with the next plot
+          this.tokenizer.setPosition(lineStart);
+          return null;
+        }
+
+        lineStart = this.tokenizer.getPosition();
+      }
+    } catch (final NumberFormatException e) {
+      return null;
+    }
+
+    if ((line == null) || (noOfVars <= 0) || (noOfPoints < 0)
+        || (flag == null)) {
+      return null;
+    }
+
+    // Plots with other flags are skipped after their value block
+    final boolean supported = NutReader.REAL_ID.equals(flag)
+        || NutReader.COMPLEX_ID.equals(flag);
+    final boolean complex = flag.contains(NutReader.COMPLEX_ID);
+
+    if (noOfPoints == 0) {
+      noOfPoints = 1;
+    }
+
+    final String[] varNames = new String[noOfVars];
+    final String[] varUnits = new String[noOfVars];
+
+    String[] refracturedLine;
+
+    line = line.substring(VARS_ID.length()).trim();
+
+    for (int i = 0; i < noOfVars; i++) {
+
+      if ((i > 0) || (line.length() == 0)) {
+        line = this.tokenizer.nextLine();
+      }
+
+      if (line == null) {
+        return null;
+      }
+
+      refracturedLine = line.trim().split("\\s");
+
+      if (refracturedLine.length < 3) {
+        return null;
+      }
+
+      varNames[i] = refracturedLine[1];
+      varUnits[i] = refracturedLine[2];
+    }
+
+    line = this.tokenizer.nextLine();
+
+    if (line == null) {
+      return null;
+    }
+
+    final long offset = this.tokenizer.getPosition();
+    final long length;
+
+    if (line.startsWith(VALS_BINARY_ID)) {
+
+      length = (complex ? 2L : 1L) * noOfPoints * noOfVars
+          * (this.singlePrecision ? BYTES_PER_FLOAT : BYTES_PER_NUM);
+
+      if ((offset + length) > this.source.size()) {
+        this.tokenizer.setPosition(this.source.size());
+        return null;
+      }
+
+      this.tokenizer.setPosition(offset + length);
+
+      if (!supported) {
+        return null;
+      }
+
+      return new NutmegPlotInfo(plotname, complex, true, this.singlePrecision,
+          varNames, varUnits, noOfPoints, offset, length, null);
+
+    } else if (line.startsWith(VALS_ASCII_ID)) {
+
+      final long end = this.findLine(offset, PLOT_PATTERN);
+      length = end - offset;
+
+      this.tokenizer.setPosition(end);
+
+      if (!supported) {
+        return null;
+      }
+
+      return new NutmegPlotInfo(plotname, complex, false, varNames, varUnits,
+          noOfPoints, offset, length);
+
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Find the next line that starts with a pattern.
+   *
+   * @param start   - start of a line in the source
+   * @param pattern - pattern
+   * @return start of the line, size of the source when no line was found
+   */
+  private long findLine(final long start, final byte[] pattern) {
+
+    final long size = this.source.size();
+
+    long pos = start;
+
+    while (pos < size) {
+
+      if (this.startsWith(pos, pattern)) {
+        return pos;
+      }
+
+      while ((pos < size) && (this.source.get(pos) != NEWLINE)) {
+        pos++;
+      }
+
+      pos++;
+    }
+
+    return size;
+  }
+
+  /**
+   * Check if the source contains a pattern at a given position.
+   *
+   * @param pos     - position in the source
+   * @param pattern - pattern
+   * @return <code>true</code> when the pattern was found, <code>false</code>
+   *         otherwise
+   */
+  private boolean startsWith(final long pos, final byte[] pattern) {
+
+    if ((pos + pattern.length) > this.source.size()) {
+      return false;
+    }
+
+    for (int i = 0; i < pattern.length; i++) {
+      if (this.source.get(pos + i) != pattern[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
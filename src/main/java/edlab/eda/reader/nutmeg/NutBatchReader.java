@@ -0,0 +1,445 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.text.translate.CharSequenceTranslator;
+
+/**
+ * Reader for many waveform files, for example the results of a Monte Carlo
+ * or corner analysis. The syntax of each file is detected, see
+ * {@link NutReader#getReader(String)}. The files are read and parsed
+ * concurrently, at most {@link #setParallelism(int)} files at a time. Virtual
+ * threads are used when the Java runtime provides them.
+ */
+public final class NutBatchReader {
+
+  private static final String GLOB_CHARS = "*?[{";
+
+  private final List<File> files;
+
+  /**
+   * <code>true</code> when files that are not waveform files are skipped,
+   * <code>false</code> when an invalid result is reported for them
+   */
+  private final boolean skipUnknown;
+
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private boolean ordered = true;
+  private Consumer<NutReader> configurator = null;
+  private CharSequenceTranslator translator = new DefaultTranslator();
+
+  private NutBatchReader(final List<File> files, final boolean skipUnknown) {
+    this.files = files;
+    this.skipUnknown = skipUnknown;
+  }
+
+  /**
+   * Creates a {@link NutBatchReader} for all waveform files in a directory or
+   * for all files that match a glob pattern, e.g.
+   * <code>/sim/mc/run_*&#47;nutbin.raw</code> or
+   * <code>/sim/corners/**&#47;*.raw</code>. Files that are not waveform files
+   * are skipped. The files are read in the lexicographic order of their
+   * paths.
+   *
+   * @param path Path to a directory, a file or a glob pattern
+   * @return nutBatchReader - reader, <code>null</code> when the path is not
+   *         valid
+   */
+  public static NutBatchReader getNutBatchReader(final String path) {
+
+    try {
+
+      final List<File> files = list(path);
+
+      if (files == null) {
+        System.err.println("Path " + path + " does not exist");
+        return null;
+      }
+
+      return new NutBatchReader(files, true);
+
+    } catch (final IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Creates a {@link NutBatchReader} for a list of waveform files. An invalid
+   * result is reported for files that cannot be read.
+   *
+   * @param files Paths to the waveform files
+   * @return nutBatchReader - reader
+   */
+  public static NutBatchReader getNutBatchReader(final List<String> files) {
+    return new NutBatchReader(
+        files.stream().map(File::new).collect(Collectors.toList()), false);
+  }
+
+  /**
+   * Set the maximal number of files that are read at the same time.
+   *
+   * @param parallelism Number of files, the number of processors by default
+   * @return nutBatchReader - this reader
+   */
+  public NutBatchReader setParallelism(final int parallelism) {
+    this.parallelism = Math.max(1, parallelism);
+    return this;
+  }
+
+  /**
+   * Report the results in the order of the files instead of the order of
+   * completion. In order, a file that takes long delays the results of the
+   * following files.
+   *
+   * @param ordered <code>true</code> when the results are reported in the
+   *                order of the files (default), <code>false</code> when they
+   *                are reported as soon as they are available
+   * @return nutBatchReader - this reader
+   */
+  public NutBatchReader setOrdered(final boolean ordered) {
+    this.ordered = ordered;
+    return this;
+  }
+
+  /**
+   * Configure the reader of each file before it is read, e.g.
+   * <code>reader -&gt; reader.setLazy(true).setMemoryMapped(true)</code>.
+   *
+   * @param configurator Configuration of a reader or <code>null</code>
+   * @return nutBatchReader - this reader
+   */
+  public NutBatchReader setConfigurator(
+      final Consumer<NutReader> configurator) {
+    this.configurator = configurator;
+    return this;
+  }
+
+  /**
+   * Set the translator for wave names.
+   *
+   * @param translator Translator for wave names
+   * @return nutBatchReader - this reader
+   */
+  public NutBatchReader setTranslator(
+      final CharSequenceTranslator translator) {
+    this.translator = translator;
+    return this;
+  }
+
+  /**
+   * Returns the files that are read.
+   *
+   * @return list of files
+   */
+  public List<File> getFiles() {
+    return Collections.unmodifiableList(this.files);
+  }
+
+  /**
+   * Read and parse all files.
+   *
+   * @return list of results, <code>null</code> when reading was interrupted
+   */
+  public List<NutBatchResult> read() {
+
+    final List<NutBatchResult> results = new ArrayList<>();
+
+    if (this.read(results::add) == null) {
+      return null;
+    }
+
+    return results;
+  }
+
+  /**
+   * Read and parse all files. The results are passed to the consumer in the
+   * calling thread, one after another. When reading is interrupted or the
+   * consumer throws an exception, the readers of the results that were not
+   * passed to the consumer are closed.
+   *
+   * @param consumer Consumer of the results
+   * @return nutBatchReader - this reader, <code>null</code> when reading was
+   *         interrupted
+   */
+  public NutBatchReader read(final Consumer<NutBatchResult> consumer) {
+
+    final ExecutorService executor = newExecutor(this.parallelism);
+
+    // results that are not yet passed to the consumer, guarded by itself
+    final Set<NutBatchResult> undelivered = new HashSet<>();
+    final AtomicBoolean aborted = new AtomicBoolean();
+
+    try {
+
+      if (this.ordered) {
+
+        final Deque<Future<NutBatchResult>> pending = new ArrayDeque<>();
+
+        for (final File file : this.files) {
+
+          if (pending.size() >= this.parallelism) {
+            deliver(pending.removeFirst().get(), consumer, undelivered);
+          }
+
+          pending.add(executor.submit(
+              () -> track(this.read(file), undelivered, aborted)));
+        }
+
+        while (!pending.isEmpty()) {
+          deliver(pending.removeFirst().get(), consumer, undelivered);
+        }
+
+      } else {
+
+        final CompletionService<NutBatchResult> completion;
+        completion = new ExecutorCompletionService<>(executor);
+
+        int running = 0;
+
+        for (final File file : this.files) {
+
+          if (running >= this.parallelism) {
+            deliver(completion.take().get(), consumer, undelivered);
+            running--;
+          }
+
+          completion.submit(
+              () -> track(this.read(file), undelivered, aborted));
+          running++;
+        }
+
+        for (; running > 0; running--) {
+          deliver(completion.take().get(), consumer, undelivered);
+        }
+      }
+
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (final ExecutionException e) {
+      e.printStackTrace();
+      return null;
+    } finally {
+
+      executor.shutdownNow();
+
+      // tasks that complete later close their results themselves
+      synchronized (undelivered) {
+
+        aborted.set(true);
+
+        for (final NutBatchResult result : undelivered) {
+          result.getReader().close();
+        }
+
+        undelivered.clear();
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * Read and parse a single file.
+   *
+   * @param file Waveform file
+   * @return result, <code>null</code> when the file is skipped
+   */
+  private NutBatchResult read(final File file) {
+
+    final long start = System.nanoTime();
+
+    final NutReader reader = NutReader.detect(file, this.translator);
+
+    if ((reader == null) && this.skipUnknown) {
+      return null;
+    } else if (reader == null) {
+      return new NutBatchResult(file, null, null, System.nanoTime() - start,
+          0, 0);
+    }
+
+    if (this.configurator != null) {
+      this.configurator.accept(reader);
+    }
+
+    final long opened = System.nanoTime();
+
+    long read = opened;
+    long parsed = opened;
+    List<NutmegPlot> plots = null;
+
+    try {
+
+      if (reader.read() != null) {
+
+        read = System.nanoTime();
+
+        if (reader.parse() != null) {
+          plots = reader.getPlots();
+        }
+
+        parsed = System.nanoTime();
+      }
+
+    } catch (final RuntimeException e) {
+      e.printStackTrace();
+    } finally {
+
+      // the reader of an invalid result is not used anymore
+      if (plots == null) {
+        reader.close();
+      }
+    }
+
+    return new NutBatchResult(file, reader, plots, opened - start,
+        read - opened, parsed - read);
+  }
+
+  /**
+   * Remember a result until it is passed to the consumer. When reading was
+   * already aborted, the reader of the result is closed.
+   *
+   * @param result      Result, <code>null</code> when the file was skipped
+   * @param undelivered Results that are not yet passed to the consumer
+   * @param aborted     <code>true</code> when reading was aborted
+   * @return result
+   */
+  private static NutBatchResult track(final NutBatchResult result,
+      final Set<NutBatchResult> undelivered, final AtomicBoolean aborted) {
+
+    if ((result == null) || (result.getReader() == null)) {
+      return result;
+    }
+
+    synchronized (undelivered) {
+      if (aborted.get()) {
+        result.getReader().close();
+      } else {
+        undelivered.add(result);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Pass a result to a consumer.
+   *
+   * @param result      Result, <code>null</code> when the file was skipped
+   * @param consumer    Consumer of the results
+   * @param undelivered Results that are not yet passed to the consumer
+   */
+  private static void deliver(final NutBatchResult result,
+      final Consumer<NutBatchResult> consumer,
+      final Set<NutBatchResult> undelivered) {
+
+    if (result != null) {
+
+      synchronized (undelivered) {
+        undelivered.remove(result);
+      }
+
+      consumer.accept(result);
+    }
+  }
+
+  /**
+   * Create an executor with virtual threads when the Java runtime provides
+   * them, with a fixed number of threads otherwise. The number of files that
+   * are read at the same time is limited by the caller.
+   *
+   * @param parallelism Number of threads
+   * @return executor
+   */
+  private static ExecutorService newExecutor(final int parallelism) {
+    try {
+      return (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (final ReflectiveOperationException | RuntimeException e) {
+      return Executors.newFixedThreadPool(parallelism);
+    }
+  }
+
+  /**
+   * List the files in a directory or the files that match a glob pattern.
+   *
+   * @param path Path to a directory, a file or a glob pattern
+   * @return sorted list of files, <code>null</code> when the path does not
+   *         exist
+   * @throws IOException when a directory cannot be listed
+   */
+  private static List<File> list(final String path) throws IOException {
+
+    int glob = -1;
+
+    for (int i = 0; (i < path.length()) && (glob < 0); i++) {
+      if (GLOB_CHARS.indexOf(path.charAt(i)) >= 0) {
+        glob = i;
+      }
+    }
+
+    if (glob < 0) {
+
+      final File file = new File(path);
+
+      if (file.isFile()) {
+        return Collections.singletonList(file);
+      } else if (!file.isDirectory()) {
+        return null;
+      }
+
+      try (Stream<Path> paths = Files.list(file.toPath())) {
+        return paths.filter(Files::isRegularFile).sorted().map(Path::toFile)
+            .collect(Collectors.toList());
+      }
+    }
+
+    // The directory in front of the first segment with a wildcard
+    final int cut = Math.max(path.lastIndexOf('/', glob),
+        path.lastIndexOf(File.separatorChar, glob));
+
+    final Path base = Paths.get((cut < 0) ? "." : path.substring(0, cut + 1));
+    final String pattern = path.substring(cut + 1);
+
+    if (!Files.isDirectory(base)) {
+      return null;
+    }
+
+    final PathMatcher matcher = FileSystems.getDefault()
+        .getPathMatcher("glob:" + pattern);
+
+    // Without "**", a file can only be as deep as the pattern
+    final int depth = pattern.contains("**") ? Integer.MAX_VALUE
+        : (int) (pattern.chars().filter(c -> c == '/').count() + 1);
+
+    try (Stream<Path> paths = Files.walk(base, depth)) {
+      return paths.filter(Files::isRegularFile)
+          .filter(p -> matcher.matches(base.relativize(p))).sorted()
+          .map(Path::toFile).collect(Collectors.toList());
+    }
+  }
+}
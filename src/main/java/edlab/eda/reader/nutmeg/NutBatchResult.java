@@ -0,0 +1,112 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Result of a single waveform file that was read by a {@link NutBatchReader}.
+ * Besides the plots, the result contains the time that was spent for the
+ * individual steps of reading the file.
+ */
+public final class NutBatchResult {
+
+  private final File file;
+  private final NutReader reader;
+  private final List<NutmegPlot> plots;
+  private final long openTime;
+  private final long readTime;
+  private final long parseTime;
+
+  NutBatchResult(final File file, final NutReader reader,
+      final List<NutmegPlot> plots, final long openTime, final long readTime,
+      final long parseTime) {
+    this.file = file;
+    this.reader = reader;
+    this.plots = plots;
+    this.openTime = openTime;
+    this.readTime = readTime;
+    this.parseTime = parseTime;
+  }
+
+  /**
+   * Returns the waveform file.
+   *
+   * @return file
+   */
+  public File getFile() {
+    return this.file;
+  }
+
+  /**
+   * Returns the reader of the waveform file, for example to close it.
+   *
+   * @return reader, <code>null</code> when no reader could be created
+   */
+  public NutReader getReader() {
+    return this.reader;
+  }
+
+  /**
+   * Returns the plots of the waveform file.
+   *
+   * @return list of plots, <code>null</code> when the file could not be read
+   *         or parsed
+   */
+  public List<NutmegPlot> getPlots() {
+    return this.plots;
+  }
+
+  /**
+   * Returns if the file was read and parsed successfully.
+   *
+   * @return True if the plots are available
+   */
+  public boolean isValid() {
+    return this.plots != null;
+  }
+
+  /**
+   * Returns the time for detecting the syntax of the file and creating the
+   * reader, including the checks of the file.
+   *
+   * @return time in nanoseconds
+   */
+  public long getOpenTime() {
+    return this.openTime;
+  }
+
+  /**
+   * Returns the time for reading or mapping the file.
+   *
+   * @return time in nanoseconds
+   */
+  public long getReadTime() {
+    return this.readTime;
+  }
+
+  /**
+   * Returns the time for parsing the plots.
+   *
+   * @return time in nanoseconds
+   */
+  public long getParseTime() {
+    return this.parseTime;
+  }
+
+  /**
+   * Returns the total time that was spent for the file.
+   *
+   * @return time in nanoseconds
+   */
+  public long getTotalTime() {
+    return this.openTime + this.readTime + this.parseTime;
+  }
+
+  @Override
+  public String toString() {
+    return this.file + " (" + (this.isValid() ? this.plots.size() : 0)
+        + " plots, open " + (this.openTime / 1000) + " us, read "
+        + (this.readTime / 1000) + " us, parse " + (this.parseTime / 1000)
+        + " us)";
+  }
+}
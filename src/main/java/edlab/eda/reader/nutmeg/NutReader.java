@@ -1,15 +1,29 @@
 package edlab.eda.reader.nutmeg;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 import org.apache.commons.text.translate.CharSequenceTranslator;
 
 /**
  * Reader for a Nutmeg waveform file
  */
-public abstract class NutReader {
+public abstract class NutReader implements AutoCloseable {
 
   /**
    * List of plots
@@ -21,11 +35,78 @@ public abstract class NutReader {
    */
   private File file;
 
+  /**
+   * Content of the waveform file, <code>null</code> until the file is read
+   */
+  ByteSource data = null;
+
   /**
    * Translator for wave names
    */
   protected final CharSequenceTranslator translator;
 
+  /**
+   * Flag that indicates whether the file is mapped into memory instead of
+   * being read into the heap
+   */
+  protected boolean memoryMapped = false;
+
+  /**
+   * Byte order of binary values, <code>null</code> when the byte order is
+   * detected for each plot
+   */
+  protected ByteOrder byteOrder = null;
+
+  /**
+   * Flag that indicates whether waves are decoded on first access
+   */
+  protected boolean lazy = false;
+
+  /**
+   * Pool for the parallel decoding of plots, <code>null</code> when the plots
+   * are decoded sequentially
+   */
+  protected ForkJoinPool pool = null;
+
+  /**
+   * Filter for the names of the waves that are decoded, <code>null</code>
+   * when all waves are decoded
+   */
+  protected Predicate<String> waveFilter = null;
+
+  /**
+   * Filter for the plots that are decoded, <code>null</code> when all plots
+   * are decoded
+   */
+  protected Predicate<NutmegPlotInfo> plotFilter = null;
+
+  /**
+   * Flag that indicates whether the headers are read from and written to a
+   * sidecar index
+   */
+  protected boolean indexed = false;
+
+  /**
+   * Flag that indicates whether the waves are stored outside of the heap
+   */
+  protected boolean offHeap = false;
+
+  /**
+   * Flag that indicates whether the waves are stored with single precision
+   */
+  protected boolean singlePrecision = false;
+
+  /**
+   * Number of bytes of a binary value, 8 for doubles or 4 for floats
+   */
+  protected int binaryValueSize = HeaderParser.BYTES_PER_NUM;
+
+  /**
+   * Listener for the phases of reading and parsing, <code>null</code> when no
+   * metrics are reported
+   */
+  protected NutReaderMetrics metrics = null;
+
   /**
    * Flag that indicates whether a waveform is real or complex.
    *
@@ -47,6 +128,16 @@ public abstract class NutReader {
 
   protected static final String REAL_ID = "real";
   protected static final String COMPLEX_ID = "complex";
+  protected static final String TITLE_ID = "Title:";
+
+  /**
+   * Number of bytes of the values in a chunk of points that is passed to a
+   * {@link PlotHandler}
+   */
+  private static final int CHUNK_BYTES = 1 << 20;
+
+  private static final ThreadMXBean THREADS = ManagementFactory
+      .getThreadMXBean();
 
   /**
    * Create a new {@link edlab.eda.reader.nutmeg.NutReader NutReader}
@@ -85,6 +176,312 @@ public abstract class NutReader {
     return this.file;
   }
 
+  /**
+   * Map the waveform file into memory with a
+   * {@link java.nio.channels.FileChannel FileChannel} instead of reading it
+   * into the heap. Mapped files can be larger than 2 GB
+   * and only the pages that are accessed are loaded by the operating system.
+   * The option must be set before {@link #read()} is called.
+   * 
+   * @param memoryMapped <code>true</code> when the file should be mapped,
+   *                     <code>false</code> otherwise
+   * @return nutReader - this reader
+   */
+  public NutReader setMemoryMapped(final boolean memoryMapped) {
+    this.memoryMapped = memoryMapped;
+    return this;
+  }
+
+  /**
+   * Returns whether the waveform file is mapped into memory.
+   * 
+   * @return <code>true</code> when the file is mapped, <code>false</code>
+   *         otherwise
+   */
+  public boolean isMemoryMapped() {
+    return this.memoryMapped;
+  }
+
+  /**
+   * Set the byte order of the values in a binary waveform file. Spectre
+   * writes big-endian values, ngspice writes the values in the native byte
+   * order of the machine. By default (<code>null</code>), the byte order is
+   * detected for each plot.
+   * 
+   * @param byteOrder Byte order of the values or <code>null</code> when the
+   *                  byte order should be detected
+   * @return nutReader - this reader
+   */
+  public NutReader setByteOrder(final ByteOrder byteOrder) {
+    this.byteOrder = byteOrder;
+    return this;
+  }
+
+  /**
+   * Returns the byte order of the values in a binary waveform file.
+   * 
+   * @return byteOrder - byte order or <code>null</code> when the byte order
+   *         is detected for each plot
+   */
+  public ByteOrder getByteOrder() {
+    return this.byteOrder;
+  }
+
+  /**
+   * Use a sidecar index next to the waveform file (<code>.nutidx</code>). The
+   * index contains the headers of all plots and the positions of their value
+   * blocks, for ASCII files also the position of every 1024-th point. When a
+   * valid index exists, the headers are not scanned again. Otherwise the
+   * index is written after the headers were scanned. The index is
+   * invalidated when the size or the modification time of the waveform file
+   * changes.
+   * 
+   * @param indexed <code>true</code> when a sidecar index should be used,
+   *                <code>false</code> otherwise
+   * @return nutReader - this reader
+   */
+  public NutReader setIndexed(final boolean indexed) {
+    this.indexed = indexed;
+    return this;
+  }
+
+  /**
+   * Returns whether a sidecar index is used.
+   * 
+   * @return <code>true</code> when a sidecar index is used,
+   *         <code>false</code> otherwise
+   */
+  public boolean isIndexed() {
+    return this.indexed;
+  }
+
+  /**
+   * Decode waves on first access instead of decoding all waves during
+   * {@link #parse()}. Names, units and the number of points of all plots are
+   * still available directly after parsing. The plots keep a reference to the
+   * data of the waveform file, which is best combined with
+   * {@link #setMemoryMapped(boolean)}.
+   * 
+   * @param lazy <code>true</code> when waves should be decoded on first
+   *             access, <code>false</code> otherwise
+   * @return nutReader - this reader
+   */
+  public NutReader setLazy(final boolean lazy) {
+    this.lazy = lazy;
+    return this;
+  }
+
+  /**
+   * Returns whether waves are decoded on first access.
+   * 
+   * @return <code>true</code> when waves are decoded on first access,
+   *         <code>false</code> otherwise
+   */
+  public boolean isLazy() {
+    return this.lazy;
+  }
+
+  /**
+   * Store the waves of the plots outside of the heap. The values are copied
+   * in chunks to direct buffers during {@link #parse()}, such that large
+   * plots never reside on the heap. The columns of a cache file are used
+   * directly from the mapped file. The waves are accessible without copying
+   * with {@link NutmegRealPlot#getBuffer(String)},
+   * {@link NutmegComplexPlot#getRealBuffer(String)} and
+   * {@link NutmegComplexPlot#getImagBuffer(String)}, the other accessors
+   * return a new array on each call. The memory is released with
+   * {@link NutmegPlot#close()} or {@link #close()}. Best combined with
+   * {@link #setMemoryMapped(boolean)}.
+   * 
+   * @param offHeap <code>true</code> when the waves should be stored outside
+   *                of the heap, <code>false</code> otherwise
+   * @return nutReader - this reader
+   */
+  public NutReader setOffHeap(final boolean offHeap) {
+    this.offHeap = offHeap;
+    return this;
+  }
+
+  /**
+   * Returns whether the waves are stored outside of the heap.
+   * 
+   * @return <code>true</code> when the waves are stored outside of the heap,
+   *         <code>false</code> otherwise
+   */
+  public boolean isOffHeap() {
+    return this.offHeap;
+  }
+
+  /**
+   * Store the waves of the plots with single precision, which halves the
+   * memory of the plots on the heap. The reference wave (time or frequency)
+   * is always stored with double precision. The values are converted in
+   * chunks during {@link #parse()}, waves are therefore not decoded on first
+   * access even when {@link #setLazy(boolean)} is set. The arrays are
+   * accessible without copying with
+   * {@link NutmegRealPlot#getFloatWave(String)},
+   * {@link NutmegComplexPlot#getRealFloat(String)} and
+   * {@link NutmegComplexPlot#getImagFloat(String)}, the other accessors
+   * return a new array on each call. The option is ignored for plots that
+   * are stored outside of the heap.
+   * 
+   * @param singlePrecision <code>true</code> when the waves should be stored
+   *                        as floats, <code>false</code> otherwise
+   * @return nutReader - this reader
+   */
+  public NutReader setSinglePrecision(final boolean singlePrecision) {
+    this.singlePrecision = singlePrecision;
+    return this;
+  }
+
+  /**
+   * Returns whether the waves are stored with single precision.
+   * 
+   * @return <code>true</code> when the waves are stored as floats,
+   *         <code>false</code> otherwise
+   */
+  public boolean isSinglePrecision() {
+    return this.singlePrecision;
+  }
+
+  /**
+   * Set the number of bytes of the values in binary files. Spectre and
+   * ngspice write 8-byte doubles. The header of a Nutmeg file does not state
+   * the size of the values, files with 4-byte floats, e.g. from
+   * {@link NutmegGenerator#setSinglePrecision(boolean)}, can therefore only
+   * be read with this option. The size applies to all plots of the file and
+   * is ignored for ASCII files.
+   * 
+   * @param binaryValueSize <code>8</code> for doubles (default) or
+   *                        <code>4</code> for floats, other sizes are ignored
+   * @return nutReader - this reader
+   */
+  public NutReader setBinaryValueSize(final int binaryValueSize) {
+
+    if ((binaryValueSize == HeaderParser.BYTES_PER_NUM)
+        || (binaryValueSize == HeaderParser.BYTES_PER_FLOAT)) {
+      this.binaryValueSize = binaryValueSize;
+    } else {
+      System.err.println("Binary values with " + binaryValueSize
+          + " bytes are not supported");
+    }
+
+    return this;
+  }
+
+  /**
+   * Returns the number of bytes of the values in binary files.
+   * 
+   * @return number of bytes, 8 for doubles or 4 for floats
+   */
+  public int getBinaryValueSize() {
+    return this.binaryValueSize;
+  }
+
+  /**
+   * Decode only the waves whose names are accepted by a filter. The filter is
+   * evaluated for the translated names of the waves, the reference wave of a
+   * plot is always decoded. All other columns are skipped when the values
+   * are decoded or streamed.
+   * 
+   * @param waveFilter Filter for the names of the waves or <code>null</code>
+   *                   when all waves should be decoded
+   * @return nutReader - this reader
+   */
+  public NutReader setWaveFilter(final Predicate<String> waveFilter) {
+    this.waveFilter = waveFilter;
+    return this;
+  }
+
+  /**
+   * Returns the filter for the names of the waves that are decoded.
+   * 
+   * @return waveFilter - filter or <code>null</code> when all waves are
+   *         decoded
+   */
+  public Predicate<String> getWaveFilter() {
+    return this.waveFilter;
+  }
+
+  /**
+   * Decode only the plots which are accepted by a filter. The filter is
+   * evaluated for the header of each plot, the values of rejected plots are
+   * skipped without decoding them. Filters for the name or the analysis of a
+   * plot are created with {@link NutmegPlotInfo#byPlotname(String)},
+   * {@link NutmegPlotInfo#byPlotname(Pattern)} and
+   * {@link NutmegPlotInfo#byAnalysis(String)}.
+   * 
+   * @param plotFilter Filter for the plots or <code>null</code> when all
+   *                   plots should be decoded
+   * @return nutReader - this reader
+   */
+  public NutReader setPlotFilter(final Predicate<NutmegPlotInfo> plotFilter) {
+    this.plotFilter = plotFilter;
+    return this;
+  }
+
+  /**
+   * Returns the filter for the plots that are decoded.
+   * 
+   * @return plotFilter - filter or <code>null</code> when all plots are
+   *         decoded
+   */
+  public Predicate<NutmegPlotInfo> getPlotFilter() {
+    return this.plotFilter;
+  }
+
+  /**
+   * Decode the plots of a waveform file in parallel. The headers of all plots
+   * are located first, afterwards each plot is decoded as a separate task in
+   * the given pool. The order of the plots in {@link #getPlots()} is the
+   * order of the file. Large plots are additionally split into ranges of
+   * points, which are decoded in parallel into the same waves.
+   * 
+   * @param pool Pool for decoding, e.g. {@link ForkJoinPool#commonPool()}, or
+   *             <code>null</code> when the plots should be decoded
+   *             sequentially
+   * @return nutReader - this reader
+   */
+  public NutReader setPool(final ForkJoinPool pool) {
+    this.pool = pool;
+    return this;
+  }
+
+  /**
+   * Returns the pool for the parallel decoding of plots.
+   * 
+   * @return pool - pool or <code>null</code> when the plots are decoded
+   *         sequentially
+   */
+  public ForkJoinPool getPool() {
+    return this.pool;
+  }
+
+  /**
+   * Report the phases of reading and parsing to a listener, e.g. the time
+   * for reading the file, for parsing the headers and for decoding each plot.
+   * Events for the JDK Flight Recorder are emitted by
+   * {@link NutReaderMetrics#getFlightRecorderMetrics()}.
+   * 
+   * @param metrics Listener or <code>null</code> when no metrics should be
+   *                reported
+   * @return nutReader - this reader
+   */
+  public NutReader setMetrics(final NutReaderMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Returns the listener for the phases of reading and parsing.
+   * 
+   * @return metrics - listener or <code>null</code> when no metrics are
+   *         reported
+   */
+  public NutReaderMetrics getMetrics() {
+    return this.metrics;
+  }
+
   /**
    * Return a list of all plots.
    * 
@@ -147,18 +544,849 @@ public abstract class NutReader {
   }
 
   /**
-   * Reads a waveform file into memory.
+   * Creates a {@link edlab.eda.reader.nutmeg.NutReader NutReader} of a
+   * column-major cache file, see {@link #writeCache(String)}.
    * 
-   * @return nutReader - Reader when reading of the file was successful, null
-   *         otherwise.
+   * @param file Path to cache file
+   * @return nutReader - Reader for the corresponding cache,
+   *         <code>null</code> when the file is not existing
    */
-  public abstract NutReader read();
+  public static NutReader getNutcacheReader(final String file) {
+    return NutcacheReader.getNutReader(file);
+  }
 
   /**
-   * Parses a waveform file.
+   * Creates a {@link edlab.eda.reader.nutmeg.NutReader NutReader} of a
+   * column-major cache file, see {@link #writeCache(String)}.
    * 
-   * @return nutReader - Reader when reading of the file was successful, null
-   *         otherwise.
+   * @param file       Path to cache file
+   * @param translator Translator for wave names
+   * @return nutReader - Reader for the corresponding cache,
+   *         <code>null</code> when the file is not existing
+   */
+  public static NutReader getNutcacheReader(final String file,
+      final CharSequenceTranslator translator) {
+    return NutcacheReader.getNutReader(file, translator);
+  }
+
+  /**
+   * Creates a {@link edlab.eda.reader.nutmeg.NutReader NutReader} of a nutmeg
+   * waveform file whose syntax is detected from the file. ASCII and binary
+   * waveform files are distinguished by their header, cache files by their
+   * magic number.
+   * 
+   * @param file Path to waveform file
+   * @return nutReader - Reader for the corresponding waveform,
+   *         <code>null</code> when the file is not existing or not a waveform
+   *         file
+   */
+  public static NutReader getReader(final String file) {
+    return getReader(file, new DefaultTranslator());
+  }
+
+  /**
+   * Creates a {@link edlab.eda.reader.nutmeg.NutReader NutReader} of a nutmeg
+   * waveform file whose syntax is detected from the file. ASCII and binary
+   * waveform files are distinguished by their header, cache files by their
+   * magic number.
+   * 
+   * @param file       Path to waveform file
+   * @param translator Translator for wave names
+   * @return nutReader - Reader for the corresponding waveform,
+   *         <code>null</code> when the file is not existing or not a waveform
+   *         file
+   */
+  public static NutReader getReader(final String file,
+      final CharSequenceTranslator translator) {
+
+    final File waveFile = new File(file);
+
+    if (!waveFile.exists()) {
+      System.err.println("File " + file + " does not exist");
+      return null;
+    }
+
+    final NutReader reader = detect(waveFile, translator);
+
+    if (reader == null) {
+      System.err.println("File " + file + " is not a waveform file");
+    }
+
+    return reader;
+  }
+
+  /**
+   * Detect the syntax of a waveform file. Only the first line and the header
+   * of the first plot are read.
+   * 
+   * @param file       Waveform file
+   * @param translator Translator for wave names
+   * @return nutReader - Reader for the corresponding waveform,
+   *         <code>null</code> when the file is not a waveform file
+   */
+  static NutReader detect(final File file,
+      final CharSequenceTranslator translator) {
+
+    ByteSource source = null;
+
+    try {
+
+      source = ByteSource.map(file);
+
+      if ((source.size() >= Integer.BYTES)
+          && (source.slice(0, Integer.BYTES)
+              .getInt() == NutcacheReader.MAGIC)) {
+        return NutcacheReader.getNutReader(file.getPath(), translator);
+      }
+
+      final AsciiTokenizer tokenizer = new AsciiTokenizer(source);
+
+      String line = tokenizer.nextLine();
+
+      // Spectre and ngspice start with the title, files without a title
+      // start with the first plot
+      if ((line == null) || !(line.startsWith(TITLE_ID)
+          || line.startsWith(HeaderParser.PLOT_ID))) {
+        return null;
+      }
+
+      while ((line = tokenizer.nextLine()) != null) {
+        if (line.startsWith(HeaderParser.VALS_BINARY_ID)) {
+          return NutbinReader.getNutReader(file.getPath(), translator);
+        } else if (line.startsWith(HeaderParser.VALS_ASCII_ID)) {
+          return NutasciiReader.getNutReader(file.getPath(), translator);
+        }
+      }
+
+      return null;
+
+    } catch (final IOException e) {
+      e.printStackTrace();
+      return null;
+    } finally {
+      if (source != null) {
+        source.close();
+      }
+    }
+  }
+
+  /**
+   * Scans the headers of all plots without decoding any values. For binary
+   * files, the value block of each plot is skipped by its computed length.
+   * For ASCII files, the lines of the value block are skipped without
+   * tokenizing them. In combination with {@link #setMemoryMapped(boolean)},
+   * only the pages with headers are loaded.
+   * 
+   * @return list of all plots in the order of the file, <code>null</code>
+   *         when the file was not read.
+   */
+  public List<NutmegPlotInfo> scan() {
+
+    if (this.data == null) {
+      return null;
+    }
+
+    return this.catalog(this.data);
+  }
+
+  /**
+   * Returns the headers of all plots. The headers are read from the sidecar
+   * index when it is enabled and valid, otherwise they are scanned.
+   * 
+   * @param source Source of the waveform file
+   * @return list of all plots in the order of the file
+   */
+  List<NutmegPlotInfo> catalog(final ByteSource source) {
+
+    List<NutmegPlotInfo> infos;
+
+    final boolean singlePrecision;
+    singlePrecision = this.binaryValueSize == HeaderParser.BYTES_PER_FLOAT;
+
+    if (this.indexed) {
+
+      infos = PlotIndex.read(this.getFile());
+
+      if ((infos != null) && isValueSize(infos, singlePrecision)) {
+        return infos;
+      }
+    }
+
+    infos = new ArrayList<>();
+
+    final HeaderParser parser = new HeaderParser(source, singlePrecision);
+
+    NutmegPlotInfo info;
+
+    while ((info = parser.next()) != null) {
+
+      if (this.indexed && !info.isBinary()) {
+        info = info
+            .withCheckpoints(PlotIndex.findCheckpoints(source, info));
+      }
+
+      infos.add(info);
+    }
+
+    if (this.indexed) {
+      PlotIndex.write(this.getFile(), infos);
+    }
+
+    return infos;
+  }
+
+  /**
+   * Check if the headers of binary plots were scanned for the size of the
+   * binary values of this reader. An index that was written for another size
+   * must be scanned again.
+   * 
+   * @param infos           Metadata of the plots
+   * @param singlePrecision <code>true</code> when binary values are 4-byte
+   *                        floats
+   * @return <code>true</code> when the size of all binary plots matches,
+   *         <code>false</code> otherwise
    */
-  public abstract NutReader parse();
-}
\ No newline at end of file
+  private static boolean isValueSize(final List<NutmegPlotInfo> infos,
+      final boolean singlePrecision) {
+
+    for (final NutmegPlotInfo info : infos) {
+      if (info.isBinary() && (info.isSinglePrecision() != singlePrecision)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Streams all plots of a waveform file to a handler. The values are decoded
+   * in chunks of points into reusable buffers, neither the plots nor their
+   * waves are kept in memory. When the file was not read with
+   * {@link #read()}, it is mapped into memory and only the pages of the
+   * current chunk need to be resident. Variables which are rejected by the
+   * wave filter or which are duplicates of a previous variable have no
+   * buffers in the chunks. Plots which are rejected by the plot filter are
+   * not passed to the handler.
+   * 
+   * @param handler Handler for the plots
+   * @return nutReader - Reader when streaming of the file was successful,
+   *         null otherwise.
+   */
+  public NutReader stream(final PlotHandler handler) {
+    return this.stream(handler, -1);
+  }
+
+  /**
+   * Streams all plots of a waveform file to a handler, see
+   * {@link #stream(PlotHandler)}.
+   * 
+   * @param handler   Handler for the plots
+   * @param chunkSize Maximal number of points in a chunk, a chunk size which
+   *                  is not positive selects a chunk of about 1 MiB
+   * @return nutReader - Reader when streaming of the file was successful,
+   *         null otherwise.
+   */
+  public NutReader stream(final PlotHandler handler, final int chunkSize) {
+
+    if (this.data != null) {
+      return this.stream(this.data, this.catalog(this.data), handler,
+          chunkSize);
+    }
+
+    final ByteSource source;
+
+    try {
+      source = ByteSource.map(this.getFile());
+    } catch (final IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+
+    try {
+      return this.stream(source, this.catalog(source), handler, chunkSize);
+    } finally {
+      source.close();
+    }
+  }
+
+  /**
+   * Streams plots of a waveform file to a handler.
+   * 
+   * @param source    Source of the waveform file
+   * @param infos     Metadata of the plots
+   * @param handler   Handler for the plots
+   * @param chunkSize Maximal number of points in a chunk, a chunk size which
+   *                  is not positive selects a chunk of about 1 MiB
+   * @return nutReader - Reader when streaming of the file was successful,
+   *         null otherwise.
+   */
+  private NutReader stream(final ByteSource source,
+      final List<NutmegPlotInfo> infos, final PlotHandler handler,
+      final int chunkSize) {
+
+    ValueBlock block;
+    int capacity;
+    long result;
+
+    for (final NutmegPlotInfo info : infos) {
+
+      if (!this.accept(info)) {
+        continue;
+      }
+
+      block = this.makeBlock(source, info);
+
+      if (chunkSize > 0) {
+        capacity = chunkSize;
+      } else {
+        capacity = CHUNK_BYTES / ((info.isComplex() ? 2 : 1)
+            * info.getNoOfVariables() * Double.BYTES);
+      }
+
+      capacity = Math.max(1, Math.min(info.getNoOfPoints(), capacity));
+
+      handler.startPlot(info);
+
+      result = block.stream(handler, new PointChunk(
+          this.select(info, this.waveFilter), info.isComplex(), capacity));
+
+      // the plot is completed also when decoding failed
+      handler.endPlot();
+
+      if (result < 0) {
+        return null;
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * Converts the plots of a waveform file to a column-major cache file. Each
+   * wave is stored contiguously and page-aligned, such that a single wave is
+   * read without touching the pages of other waves. The cache is read with
+   * {@link #getNutcacheReader(String)}. Plot and wave filters are applied,
+   * only the selected plots and waves are stored in the cache. The values are
+   * streamed, the plots are not kept in memory.
+   * 
+   * @param cache Path to the cache file
+   * @return nutReader - Reader when writing of the cache was successful, null
+   *         otherwise.
+   */
+  public NutReader writeCache(final String cache) {
+
+    ByteSource source = this.data;
+
+    if (source == null) {
+      try {
+        source = ByteSource.map(this.getFile());
+      } catch (final IOException e) {
+        e.printStackTrace();
+        return null;
+      }
+    }
+
+    try {
+
+      final List<NutmegPlotInfo> infos = new ArrayList<>();
+      final List<boolean[]> selections = new ArrayList<>();
+
+      for (final NutmegPlotInfo info : this.catalog(source)) {
+        if (this.accept(info)) {
+          infos.add(info);
+          selections.add(this.select(info, this.waveFilter));
+        }
+      }
+
+      try (NutcacheWriter writer = new NutcacheWriter(new File(cache), infos,
+          selections)) {
+
+        if (this.stream(source, infos, writer, -1) == null) {
+          return null;
+        }
+
+        writer.commit();
+
+      } catch (final IOException | UncheckedIOException e) {
+        e.printStackTrace();
+        return null;
+      }
+
+    } finally {
+      if (source != this.data) {
+        source.close();
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * Reads a waveform file into memory.
+   * 
+   * @return nutReader - Reader when reading of the file was successful, null
+   *         otherwise.
+   */
+  public abstract NutReader read();
+
+  /**
+   * Close all plots of the reader and release the content of the waveform
+   * file, see {@link NutmegPlot#close()}. Mapped files are unmapped by the
+   * garbage collector as soon as neither the reader nor a plot or buffer
+   * refers to them, such that buffers that were obtained before remain
+   * valid. The file must be read again before it can be parsed.
+   */
+  @Override
+  public void close() {
+
+    if (this.plots != null) {
+
+      for (final NutmegPlot plot : this.plots) {
+        plot.close();
+      }
+
+      this.plots.clear();
+    }
+
+    // not unmapped explicitly, views of plots may still refer to it
+    this.data = null;
+  }
+
+  /**
+   * Parses a waveform file.
+   * 
+   * @return nutReader - Reader when reading of the file was successful, null
+   *         otherwise.
+   */
+  public NutReader parse() {
+    return this.parseWaves(this.waveFilter);
+  }
+
+  /**
+   * Parses a waveform file and decodes only a subset of the waves. The
+   * reference wave of a plot is always decoded. The filter that is set with
+   * {@link #setWaveFilter(Predicate)} is ignored.
+   * 
+   * @param waves Translated names of the waves that are decoded
+   * @return nutReader - Reader when reading of the file was successful, null
+   *         otherwise.
+   */
+  public NutReader parse(final Set<String> waves) {
+    return this.parseWaves(waves::contains);
+  }
+
+  /**
+   * Parses a waveform file.
+   * 
+   * @param filter Filter for the names of the waves or <code>null</code>
+   * @return nutReader - Reader when reading of the file was successful, null
+   *         otherwise.
+   */
+  private NutReader parseWaves(final Predicate<String> filter) {
+
+    if (this.data == null) {
+      return null;
+    }
+
+    this.plots = new LinkedList<>();
+
+    final long start = System.nanoTime();
+    final List<NutmegPlotInfo> infos = this.scan();
+
+    if (this.metrics != null) {
+      this.metrics.headersParsed(this.file, infos.size(),
+          System.nanoTime() - start);
+    }
+
+    if (this.pool != null) {
+      this.parseParallel(infos, filter);
+    } else {
+
+      NutmegPlot plot;
+
+      for (final NutmegPlotInfo info : infos) {
+
+        if (!this.accept(info)) {
+          continue;
+        }
+
+        plot = this.makePlot(info, this.makeBlock(info), filter);
+
+        if (plot != null) {
+          this.plots.add(plot);
+        }
+      }
+    }
+
+    if (this.metrics != null) {
+      this.metrics.fileParsed(this.file, this.plots.size(),
+          this.plots.stream().mapToLong(NutmegPlot::getNoOfPoints).sum(),
+          System.nanoTime() - start);
+    }
+
+    return this;
+  }
+
+  /**
+   * Parses a waveform file, each plot is decoded as a separate task.
+   * 
+   * @param infos  Metadata of all plots
+   * @param filter Filter for the names of the waves or <code>null</code>
+   */
+  private void parseParallel(final List<NutmegPlotInfo> infos,
+      final Predicate<String> filter) {
+
+    final List<ForkJoinTask<NutmegPlot>> tasks = new ArrayList<>();
+
+    for (final NutmegPlotInfo info : infos) {
+      if (this.accept(info)) {
+        tasks.add(this.pool
+            .submit(() -> this.makePlot(info, this.makeBlock(info), filter)));
+      }
+    }
+
+    NutmegPlot plot;
+
+    for (final ForkJoinTask<NutmegPlot> task : tasks) {
+
+      plot = task.join();
+
+      if (plot != null) {
+        this.plots.add(plot);
+      }
+    }
+  }
+
+  /**
+   * Check if a plot is accepted by the plot filter.
+   * 
+   * @param info Metadata of the plot
+   * @return <code>true</code> when the plot is decoded, <code>false</code>
+   *         otherwise
+   */
+  boolean accept(final NutmegPlotInfo info) {
+    return (this.plotFilter == null) || this.plotFilter.test(info);
+  }
+
+  /**
+   * Select the columns of a plot that are decoded. When a variable name
+   * occurs more than once, only the first occurrence is selected.
+   * 
+   * @param info   Metadata of the plot
+   * @param filter Filter for the names of the waves or <code>null</code>
+   * @return selection - one entry per variable in the header
+   */
+  boolean[] select(final NutmegPlotInfo info,
+      final Predicate<String> filter) {
+
+    final List<String> varNames = this.translate(info.getVariableNames());
+    final boolean[] selection = new boolean[varNames.size()];
+    final Set<String> names = new HashSet<>();
+
+    for (int i = 0; i < selection.length; i++) {
+      selection[i] = names.add(varNames.get(i)) && ((i == 0)
+          || (filter == null) || filter.test(varNames.get(i)));
+    }
+
+    return selection;
+  }
+
+  /**
+   * Translate the names of the variables of a plot.
+   * 
+   * @param varNames - names in the header of the plot
+   * @return translated names in the same order
+   */
+  List<String> translate(final List<String> varNames) {
+
+    final List<String> names = new ArrayList<>(varNames.size());
+
+    for (final String name : varNames) {
+      names.add(this.translator.translate(name));
+    }
+
+    return names;
+  }
+
+  /**
+   * Create the value block of a plot.
+   * 
+   * @param info Metadata of the plot
+   * @return block - value block of the plot
+   */
+  ValueBlock makeBlock(final NutmegPlotInfo info) {
+    return this.makeBlock(this.data, info);
+  }
+
+  /**
+   * Create the value block of a plot.
+   * 
+   * @param source Source of the waveform file
+   * @param info   Metadata of the plot
+   * @return block - value block of the plot
+   */
+  ValueBlock makeBlock(final ByteSource source, final NutmegPlotInfo info) {
+
+    if (info.isBinary()) {
+
+      final int rowLength = info.isComplex() ? 2 * info.getNoOfVariables()
+          : info.getNoOfVariables();
+
+      ByteOrder order = this.byteOrder;
+
+      if (order == null) {
+        order = BinaryValueBlock.detectByteOrder(source,
+            info.getValueOffset(), info.getNoOfPoints(), rowLength,
+            info.isSinglePrecision());
+      }
+
+      return new BinaryValueBlock(source, info.getValueOffset(),
+          info.getNoOfVariables(), info.getNoOfPoints(), info.isComplex(),
+          info.isSinglePrecision(), order);
+
+    } else {
+      return new AsciiValueBlock(source, info.getValueOffset(),
+          info.getValueOffset() + info.getValueLength(),
+          info.getNoOfVariables(), info.getNoOfPoints(), info.isComplex(),
+          info.getCheckpoints());
+    }
+  }
+
+  /**
+   * Create a plot from the header of a plot and its value block. When a
+   * variable name occurs more than once, only the first occurrence is kept.
+   * 
+   * @param info   Metadata of the plot
+   * @param block  Value block of the plot
+   * @param filter Filter for the names of the waves or <code>null</code>
+   * @return plot - plot or <code>null</code> when the plot is not valid
+   */
+  NutmegPlot makePlot(final NutmegPlotInfo info, final ValueBlock block,
+      final Predicate<String> filter) {
+
+    final String plotname = info.getPlotname();
+    final FLAG flag = info.isComplex() ? FLAG.COMPLEX : FLAG.REAL;
+    final List<String> varNames = this.translate(info.getVariableNames());
+    final List<String> varUnits = info.getVariableUnits();
+
+    final int noOfVars = varNames.size();
+    final int noOfPoints = block.getNoOfPoints();
+
+    final Map<String, String> units = new HashMap<>();
+    final boolean[] selection = this.select(info, filter);
+
+    int realNoOfVars = 0;
+
+    if (this.metrics != null) {
+      this.reportDuplicates(info);
+    }
+
+    long start = System.nanoTime();
+    final long allocated = (this.metrics == null) ? -1
+        : getAllocatedBytes();
+
+    if (this.lazy || this.offHeap || this.singlePrecision) {
+
+      final ValueBlock values;
+
+      if (this.offHeap && !(block instanceof ColumnValueBlock)) {
+        values = DirectValueBlock.copy(block, selection);
+      } else if (!this.offHeap && this.singlePrecision) {
+        values = FloatValueBlock.copy(block, selection);
+      } else {
+        // the columns of a cache file are already outside of the heap
+        values = block;
+      }
+
+      if ((values != block) && (values != null) && (this.metrics != null)) {
+        this.reportDecoded(info, selection, start, allocated);
+      }
+
+      if (values == null) {
+        return null;
+      }
+
+      final Map<String, Integer> columns = new HashMap<>();
+
+      for (int i = 0; i < noOfVars; i++) {
+        if (selection[i]) {
+          columns.put(varNames.get(i), i);
+          units.put(varNames.get(i), varUnits.get(i));
+          realNoOfVars++;
+        }
+      }
+
+      final NutmegPlot plot;
+
+      start = System.nanoTime();
+
+      if (flag == FLAG.REAL) {
+        plot = NutmegRealPlot.make(plotname, realNoOfVars, noOfPoints,
+            varNames.get(0), units, columns, values, this.offHeap);
+      } else {
+        plot = NutmegComplexPlot.make(plotname, realNoOfVars, noOfPoints,
+            varNames.get(0), units, columns, values, this.offHeap);
+      }
+
+      if (this.metrics != null) {
+        this.metrics.plotValidated(info, plot != null,
+            System.nanoTime() - start);
+      }
+
+      if ((plot == null) && (values != block)) {
+        values.close();
+      }
+
+      return plot;
+    }
+
+    final double[][] re = new double[noOfVars][];
+    final double[][] im = new double[noOfVars][];
+
+    for (int i = 0; i < noOfVars; i++) {
+      if (selection[i]) {
+
+        re[i] = new double[noOfPoints];
+
+        if (flag == FLAG.COMPLEX) {
+          im[i] = new double[noOfPoints];
+        }
+      }
+    }
+
+    if (block.decode(re, im, this.pool) < 0) {
+      return null;
+    }
+
+    if (this.metrics != null) {
+      this.reportDecoded(info, selection, start, allocated);
+    }
+
+    final NutmegPlot plot;
+
+    if (flag == FLAG.REAL) {
+
+      final Map<String, double[]> realWaves = new HashMap<>();
+
+      for (int i = 0; i < noOfVars; i++) {
+        if (re[i] != null) {
+          realWaves.put(varNames.get(i), re[i]);
+          units.put(varNames.get(i), varUnits.get(i));
+          realNoOfVars++;
+        }
+      }
+
+      start = System.nanoTime();
+      plot = NutmegRealPlot.make(plotname, realNoOfVars, noOfPoints,
+          varNames.get(0), units, realWaves);
+
+    } else {
+
+      final Map<String, double[]> realParts = new HashMap<>();
+      final Map<String, double[]> imagParts = new HashMap<>();
+
+      for (int i = 0; i < noOfVars; i++) {
+        if (re[i] != null) {
+
+          realParts.put(varNames.get(i), re[i]);
+          imagParts.put(varNames.get(i), im[i]);
+          units.put(varNames.get(i), varUnits.get(i));
+          realNoOfVars++;
+        }
+      }
+
+      start = System.nanoTime();
+      plot = NutmegComplexPlot.make(plotname, realNoOfVars, noOfPoints,
+          varNames.get(0), units, realParts, imagParts);
+    }
+
+    if (this.metrics != null) {
+      this.metrics.plotValidated(info, plot != null,
+          System.nanoTime() - start);
+    }
+
+    return plot;
+  }
+
+  /**
+   * Report the time for reading the waveform file to the metrics listener.
+   * 
+   * @param start Value of {@link System#nanoTime()} before the file was read
+   */
+  void reportRead(final long start) {
+    if ((this.metrics != null) && (this.data != null)) {
+      this.metrics.fileRead(this.file, this.data.size(),
+          System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Report the decoded values of a plot to the metrics listener.
+   * 
+   * @param info      Metadata of the plot
+   * @param selection Selected variables of the plot
+   * @param start     Value of {@link System#nanoTime()} before decoding
+   * @param allocated Bytes allocated by this thread before decoding
+   */
+  private void reportDecoded(final NutmegPlotInfo info,
+      final boolean[] selection, final long start, final long allocated) {
+
+    final long nanos = System.nanoTime() - start;
+    final long now = getAllocatedBytes();
+
+    int noOfWaves = 0;
+
+    for (final boolean selected : selection) {
+      if (selected) {
+        noOfWaves++;
+      }
+    }
+
+    this.metrics.plotDecoded(info, noOfWaves,
+        ((allocated < 0) || (now < 0)) ? -1 : (now - allocated), nanos);
+  }
+
+  /**
+   * Report the variables of a plot whose names occur more than once to the
+   * metrics listener.
+   * 
+   * @param info Metadata of the plot
+   */
+  private void reportDuplicates(final NutmegPlotInfo info) {
+
+    final Set<String> names = new HashSet<>();
+    int noOfDuplicates = 0;
+
+    for (final String name : info.getVariableNames()) {
+      if (!names.add(name)) {
+        noOfDuplicates++;
+      }
+    }
+
+    if (noOfDuplicates > 0) {
+      this.metrics.duplicatesDropped(info, noOfDuplicates);
+    }
+  }
+
+  /**
+   * Returns the bytes that were allocated on the heap by the current thread.
+   * 
+   * @return bytes, <code>-1</code> when the Java runtime cannot measure
+   *         allocations
+   */
+  private static long getAllocatedBytes() {
+
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+
+      final com.sun.management.ThreadMXBean threads;
+      threads = (com.sun.management.ThreadMXBean) THREADS;
+
+      if (threads.isThreadAllocatedMemorySupported()
+          && threads.isThreadAllocatedMemoryEnabled()) {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+
+    return -1;
+  }
+}
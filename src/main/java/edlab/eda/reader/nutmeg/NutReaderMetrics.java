@@ -0,0 +1,163 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.File;
+
+/**
+ * Listener for the phases of reading and parsing a waveform file, see
+ * {@link NutReader#setMetrics(NutReaderMetrics)}. The reader calls the
+ * listener at the end of each phase with the time that was spent in the
+ * phase. All methods do nothing by default. When the plots are decoded in
+ * parallel, the methods for a plot are called from the thread that decodes
+ * the plot and must be thread-safe.
+ */
+public interface NutReaderMetrics {
+
+  /**
+   * Called after a waveform file was read or mapped into memory.
+   *
+   * @param file  - waveform file
+   * @param bytes - size of the file in bytes
+   * @param nanos - time for reading the file in nanoseconds
+   */
+  default void fileRead(final File file, final long bytes,
+      final long nanos) {
+  }
+
+  /**
+   * Called after the headers of all plots were parsed.
+   *
+   * @param file      - waveform file
+   * @param noOfPlots - number of plots in the file
+   * @param nanos     - time for parsing the headers in nanoseconds
+   */
+  default void headersParsed(final File file, final int noOfPlots,
+      final long nanos) {
+  }
+
+  /**
+   * Called after the values of a plot were decoded. Waves that are decoded
+   * on first access are not reported.
+   *
+   * @param info      - metadata of the plot
+   * @param noOfWaves - number of waves that were decoded
+   * @param allocated - bytes that were allocated on the heap by the decoding
+   *                  thread, negative when the Java runtime cannot measure
+   *                  allocations
+   * @param nanos     - time for decoding the values in nanoseconds
+   */
+  default void plotDecoded(final NutmegPlotInfo info, final int noOfWaves,
+      final long allocated, final long nanos) {
+  }
+
+  /**
+   * Called after a plot was created from its decoded values.
+   *
+   * @param info  - metadata of the plot
+   * @param valid - <code>true</code> when the plot is valid,
+   *              <code>false</code> when it is dropped
+   * @param nanos - time for creating and validating the plot in nanoseconds
+   */
+  default void plotValidated(final NutmegPlotInfo info, final boolean valid,
+      final long nanos) {
+  }
+
+  /**
+   * Called when variables of a plot are dropped because their name occurs
+   * more than once.
+   *
+   * @param info           - metadata of the plot
+   * @param noOfDuplicates - number of dropped variables
+   */
+  default void duplicatesDropped(final NutmegPlotInfo info,
+      final int noOfDuplicates) {
+  }
+
+  /**
+   * Called after a waveform file was parsed.
+   *
+   * @param file       - waveform file
+   * @param noOfPlots  - number of valid plots
+   * @param noOfPoints - total number of points of the valid plots
+   * @param nanos      - time for parsing the file in nanoseconds, including
+   *                   the headers
+   */
+  default void fileParsed(final File file, final int noOfPlots,
+      final long noOfPoints, final long nanos) {
+  }
+
+  /**
+   * Returns a listener that calls this listener first and another listener
+   * afterwards.
+   *
+   * @param other - other listener
+   * @return listener
+   */
+  default NutReaderMetrics andThen(final NutReaderMetrics other) {
+
+    final NutReaderMetrics first = this;
+
+    return new NutReaderMetrics() {
+
+      @Override
+      public void fileRead(final File file, final long bytes,
+          final long nanos) {
+        first.fileRead(file, bytes, nanos);
+        other.fileRead(file, bytes, nanos);
+      }
+
+      @Override
+      public void headersParsed(final File file, final int noOfPlots,
+          final long nanos) {
+        first.headersParsed(file, noOfPlots, nanos);
+        other.headersParsed(file, noOfPlots, nanos);
+      }
+
+      @Override
+      public void plotDecoded(final NutmegPlotInfo info, final int noOfWaves,
+          final long allocated, final long nanos) {
+        first.plotDecoded(info, noOfWaves, allocated, nanos);
+        other.plotDecoded(info, noOfWaves, allocated, nanos);
+      }
+
+      @Override
+      public void plotValidated(final NutmegPlotInfo info,
+          final boolean valid, final long nanos) {
+        first.plotValidated(info, valid, nanos);
+        other.plotValidated(info, valid, nanos);
+      }
+
+      @Override
+      public void duplicatesDropped(final NutmegPlotInfo info,
+          final int noOfDuplicates) {
+        first.duplicatesDropped(info, noOfDuplicates);
+        other.duplicatesDropped(info, noOfDuplicates);
+      }
+
+      @Override
+      public void fileParsed(final File file, final int noOfPlots,
+          final long noOfPoints, final long nanos) {
+        first.fileParsed(file, noOfPlots, noOfPoints, nanos);
+        other.fileParsed(file, noOfPlots, noOfPoints, nanos);
+      }
+    };
+  }
+
+  /**
+   * Returns a listener that emits JDK Flight Recorder events for all phases,
+   * such that parsing can be correlated with garbage collections in a
+   * recording. The events are in the category <i>Nutmeg Reader</i> and are
+   * committed at the end of a phase, their duration is stored in the field
+   * <i>Phase Duration</i>.
+   *
+   * @return listener, <code>null</code> when the Java runtime does not
+   *         provide the Flight Recorder
+   */
+  static NutReaderMetrics getFlightRecorderMetrics() {
+    try {
+      Class.forName("jdk.jfr.Event");
+    } catch (final ClassNotFoundException e) {
+      return null;
+    }
+    return new FlightRecorderMetrics();
+  }
+}
@@ -0,0 +1,390 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.commons.text.translate.CharSequenceTranslator;
+
+/**
+ * Writer for Nutmeg waveform files in binary syntax. Plots are written
+ * either completely with {@link #write(NutmegPlot)} or streamed point by
+ * point, the writer is a {@link PlotHandler} for
+ * {@link NutReader#stream(PlotHandler)}. Only waves which are accepted by the
+ * wave filter are written, the reference wave is always written. Streamed
+ * variables are named by the translator of the writer, see
+ * {@link #setTranslator(CharSequenceTranslator)}. With a
+ * decimation of <code>n</code>, only every <code>n</code>-th point is
+ * written. The values are written in big-endian byte order like Spectre
+ * does.
+ */
+public final class NutbinWriter implements PlotHandler, Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final String UNKNOWN_UNIT = "unknown";
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  private Predicate<String> waveFilter = null;
+  private CharSequenceTranslator translator = new DefaultTranslator();
+  private int decimation = 1;
+
+  /**
+   * Metadata of the plot that is streamed, <code>null</code> when no plot is
+   * streamed
+   */
+  private NutmegPlotInfo info = null;
+
+  /**
+   * Columns of the streamed plot that are written, <code>null</code> until
+   * the first chunk of the plot was received
+   */
+  private int[] columns = null;
+
+  private NutbinWriter(final FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Creates a {@link NutbinWriter} for a new waveform file. An existing file
+   * is overwritten.
+   * 
+   * @param file  Path to the waveform file
+   * @param title Title of the waveform file
+   * @return nutbinWriter - writer, <code>null</code> when the file cannot be
+   *         written
+   */
+  public static NutbinWriter getNutbinWriter(final String file,
+      final String title) {
+
+    try {
+
+      final NutbinWriter writer = new NutbinWriter(FileChannel.open(
+          Paths.get(file), StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+
+      writer.writeLine("Title: " + title);
+      writer.writeLine("Date: " + new Date());
+
+      return writer;
+
+    } catch (final IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * Write only the waves whose names are accepted by a filter. The
+   * reference wave of a plot is always written.
+   * 
+   * @param waveFilter Filter for the names of the waves or <code>null</code>
+   *                   when all waves should be written
+   * @return nutbinWriter - this writer
+   */
+  public NutbinWriter setWaveFilter(final Predicate<String> waveFilter) {
+    this.waveFilter = waveFilter;
+    return this;
+  }
+
+  /**
+   * Set the translator for the names of streamed variables. The names are
+   * translated before they are passed to the wave filter and written. Set
+   * the translator of the reader that streams the plots, such that the wave
+   * filter sees the same names as for {@link #write(NutmegPlot)}.
+   * 
+   * @param translator Translator for wave names
+   * @return nutbinWriter - this writer
+   */
+  public NutbinWriter setTranslator(final CharSequenceTranslator translator) {
+    this.translator = translator;
+    return this;
+  }
+
+  /**
+   * Write only every n-th point of a plot, starting with the first point.
+   * 
+   * @param decimation Distance of two written points, <code>1</code> when all
+   *                   points should be written
+   * @return nutbinWriter - this writer
+   */
+  public NutbinWriter setDecimation(final int decimation) {
+    this.decimation = Math.max(1, decimation);
+    return this;
+  }
+
+  /**
+   * Write a plot.
+   * 
+   * @param plot Plot to be written
+   * @return nutbinWriter - this writer, <code>null</code> when the plot cannot
+   *         be written
+   */
+  public NutbinWriter write(final NutmegPlot plot) {
+
+    final List<String> waves = new ArrayList<>();
+    waves.add(plot.getRefWave());
+
+    for (final String wave : plot.getWaves()) {
+      if (!wave.equals(plot.getRefWave())
+          && ((this.waveFilter == null) || this.waveFilter.test(wave))) {
+        waves.add(wave);
+      }
+    }
+
+    final double[][] re = new double[waves.size()][];
+    final double[][] im = new double[waves.size()][];
+    final String[] units = new String[waves.size()];
+
+    for (int i = 0; i < re.length; i++) {
+
+      if (plot.isComplex()) {
+        re[i] = ((NutmegComplexPlot) plot).getReal(waves.get(i));
+        im[i] = ((NutmegComplexPlot) plot).getImag(waves.get(i));
+      } else {
+        re[i] = ((NutmegRealPlot) plot).getWave(waves.get(i));
+      }
+
+      units[i] = plot.getUnit(waves.get(i));
+    }
+
+    try {
+
+      this.writeHeader(plot.getPlotname(), plot.isComplex(),
+          waves.toArray(new String[0]), units, plot.getNoOfPoints());
+
+      for (int i = 0; i < plot.getNoOfPoints(); i += this.decimation) {
+        this.writePoint(re, im, i);
+      }
+
+      this.flush();
+
+    } catch (final IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+
+    return this;
+  }
+
+  @Override
+  public void startPlot(final NutmegPlotInfo info) {
+    this.info = info;
+    this.columns = null;
+  }
+
+  /**
+   * Write the points of a chunk. The header of the plot is written with the
+   * first chunk, variables without a buffer in the chunk are not written.
+   */
+  @Override
+  public void points(final PointChunk chunk) {
+
+    try {
+
+      if (this.columns == null) {
+        this.startColumns(chunk);
+      }
+
+      final int first = chunk.getFirstPoint();
+
+      // index of the first point in the chunk that is written
+      int i = ((this.decimation - (first % this.decimation))
+          % this.decimation);
+
+      for (; i < chunk.getNoOfPoints(); i += this.decimation) {
+        for (final int column : this.columns) {
+
+          this.ensure(2 * Double.BYTES);
+          this.buffer.putDouble(chunk.getReal(column)[i]);
+
+          if (this.info.isComplex()) {
+            this.buffer.putDouble(chunk.getImag(column)[i]);
+          }
+        }
+      }
+
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void endPlot() {
+
+    try {
+      this.flush();
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    this.info = null;
+    this.columns = null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      this.flush();
+    } finally {
+      this.channel.close();
+    }
+  }
+
+  /**
+   * Select the columns of the streamed plot and write its header.
+   * 
+   * @param chunk First chunk of the plot
+   * @throws IOException when the header cannot be written
+   */
+  private void startColumns(final PointChunk chunk) throws IOException {
+
+    final List<String> varNames = new ArrayList<>();
+    final List<String> varUnits = this.info.getVariableUnits();
+
+    for (final String name : this.info.getVariableNames()) {
+      varNames.add(this.translator.translate(name));
+    }
+
+    final List<Integer> selection = new ArrayList<>();
+    final Set<String> written = new HashSet<>();
+
+    for (int i = 0; i < chunk.getNoOfVariables(); i++) {
+      if ((chunk.getReal(i) != null) && written.add(varNames.get(i))
+          && ((i == 0) || (this.waveFilter == null)
+              || this.waveFilter.test(varNames.get(i)))) {
+        selection.add(i);
+      }
+    }
+
+    this.columns = new int[selection.size()];
+
+    final String[] names = new String[this.columns.length];
+    final String[] units = new String[this.columns.length];
+
+    for (int i = 0; i < this.columns.length; i++) {
+      this.columns[i] = selection.get(i);
+      names[i] = varNames.get(this.columns[i]);
+      units[i] = varUnits.get(this.columns[i]);
+    }
+
+    this.writeHeader(this.info.getPlotname(), this.info.isComplex(), names,
+        units, this.info.getNoOfPoints());
+  }
+
+  /**
+   * Write the header of a plot.
+   * 
+   * @param plotname   Name of the plot
+   * @param complex    <code>true</code> when the values are complex,
+   *                   <code>false</code> otherwise
+   * @param names      Names of the variables
+   * @param units      Units of the variables
+   * @param noOfPoints Number of points before decimation
+   * @throws IOException when the header cannot be written
+   */
+  private void writeHeader(final String plotname, final boolean complex,
+      final String[] names, final String[] units, final int noOfPoints)
+      throws IOException {
+
+    this.writeLine(HeaderParser.PLOT_ID + " " + plotname);
+    this.writeLine(HeaderParser.FLAGS_ID + " "
+        + (complex ? NutReader.COMPLEX_ID : NutReader.REAL_ID));
+    this.writeLine(HeaderParser.NO_OF_VAR_ID + " " + names.length);
+    this.writeLine(HeaderParser.NO_OF_POINTS_ID + " "
+        + (((noOfPoints + this.decimation) - 1) / this.decimation));
+
+    for (int i = 0; i < names.length; i++) {
+
+      // A variable without unit would be skipped by the reader
+      this.writeLine(((i == 0) ? HeaderParser.VARS_ID : "\t") + "\t" + i
+          + "\t" + names[i] + "\t"
+          + (((units[i] == null) || units[i].isEmpty()) ? UNKNOWN_UNIT
+              : units[i]));
+    }
+
+    this.writeLine(HeaderParser.VALS_BINARY_ID);
+  }
+
+  /**
+   * Write a point of a plot.
+   * 
+   * @param re    Real parts
+   * @param im    Imaginary parts
+   * @param point Index of the point
+   * @throws IOException when the point cannot be written
+   */
+  private void writePoint(final double[][] re, final double[][] im,
+      final int point) throws IOException {
+
+    for (int i = 0; i < re.length; i++) {
+
+      this.ensure(2 * Double.BYTES);
+      this.buffer.putDouble(re[i][point]);
+
+      if (im[i] != null) {
+        this.buffer.putDouble(im[i][point]);
+      }
+    }
+  }
+
+  /**
+   * Write a line of the header.
+   * 
+   * @param line Line without line break
+   * @throws IOException when the line cannot be written
+   */
+  private void writeLine(final String line) throws IOException {
+
+    final byte[] bytes = (line + "\n").getBytes(Charset.defaultCharset());
+
+    if (bytes.length > this.buffer.remaining()) {
+      this.flush();
+      this.channel.write(ByteBuffer.wrap(bytes));
+    } else {
+      this.buffer.put(bytes);
+    }
+  }
+
+  /**
+   * Make room for a number of bytes in the buffer.
+   * 
+   * @param bytes Number of bytes
+   * @throws IOException when the buffer cannot be written
+   */
+  private void ensure(final int bytes) throws IOException {
+    if (this.buffer.remaining() < bytes) {
+      this.flush();
+    }
+  }
+
+  /**
+   * Write the buffer to the file.
+   * 
+   * @throws IOException when the buffer cannot be written
+   */
+  private void flush() throws IOException {
+
+    // Cast to Buffer, the covariant overrides do not exist in Java 8
+    ((Buffer) this.buffer).flip();
+
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+
+    ((Buffer) this.buffer).clear();
+  }
+}
@@ -0,0 +1,217 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.text.translate.CharSequenceTranslator;
+
+/**
+ * Reader for a column-major cache file of a Nutmeg waveform file, see
+ * {@link NutReader#writeCache(String)}. The cache is always mapped into
+ * memory read-only and can be shared by multiple processes. Waves are
+ * decoded on first access by default, a wave is then read directly from its
+ * column in the mapped file.
+ */
+public final class NutcacheReader extends NutReader {
+
+  static final int MAGIC = 0x4E555443;
+  static final int VERSION = 1;
+
+  /**
+   * Alignment of the columns in the cache
+   */
+  static final int PAGE_SIZE = 4096;
+
+  /**
+   * Byte order of the values that are written to a cache
+   */
+  static final ByteOrder BYTE_ORDER = ByteOrder.nativeOrder();
+
+  /**
+   * Byte order of the values in the cache, <code>null</code> until the cache
+   * is read
+   */
+  private ByteOrder order = null;
+
+  private NutcacheReader(final String file) {
+    this(file, new DefaultTranslator());
+  }
+
+  private NutcacheReader(final String file,
+      final CharSequenceTranslator translator) {
+    super(file, translator);
+    this.lazy = true;
+  }
+
+  /**
+   * Creates a {@link edlab.eda.reader.nutmeg.NutReader NutReader} of a
+   * column-major cache file.
+   * 
+   * @param file Path to cache file
+   * @return nutReader Reader for the corresponding cache, <code>null</code>
+   *         when the file is not existing.
+   */
+  public static NutReader getNutReader(final String file) {
+
+    final NutReader nutReader = new NutcacheReader(file);
+
+    if (nutReader.getFile() == null) {
+      return null;
+    } else {
+      return nutReader;
+    }
+  }
+
+  /**
+   * Creates a {@link edlab.eda.reader.nutmeg.NutReader NutReader} of a
+   * column-major cache file.
+   * 
+   * @param file       Path to cache file
+   * @param translator Translator for wave names
+   * @return nutReader Reader for the corresponding cache, <code>null</code>
+   *         when the file is not existing.
+   */
+  public static NutReader getNutReader(final String file,
+      final CharSequenceTranslator translator) {
+
+    final NutReader nutReader = new NutcacheReader(file, translator);
+
+    if (nutReader.getFile() == null) {
+      return null;
+    } else {
+      return nutReader;
+    }
+  }
+
+  @Override
+  public NutReader read() {
+
+    final long start = System.nanoTime();
+
+    try {
+
+      final ByteSource source = ByteSource.map(this.getFile());
+
+      if ((source.size() < (4 * Integer.BYTES))
+          || (source.slice(0, Integer.BYTES).getInt() != MAGIC)
+          || (source.slice(Integer.BYTES, Integer.BYTES).getInt() != VERSION)) {
+        System.err.println(
+            "File " + this.getFile().getAbsolutePath() + " is not a cache");
+        return null;
+      }
+
+      this.data = source;
+      this.reportRead(start);
+
+      return this;
+
+    } catch (final IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  @Override
+  List<NutmegPlotInfo> catalog(final ByteSource source) {
+
+    final List<NutmegPlotInfo> infos = new ArrayList<>();
+
+    final int headerLength = source.slice(2 * Integer.BYTES, Integer.BYTES)
+        .getInt();
+    final ByteBuffer header = source.slice(0, headerLength);
+    final byte[] bytes = new byte[headerLength];
+    header.get(bytes);
+
+    try (DataInputStream stream = new DataInputStream(
+        new ByteArrayInputStream(bytes))) {
+
+      stream.readInt();
+      stream.readInt();
+      stream.readInt();
+
+      this.order = stream.readBoolean() ? ByteOrder.BIG_ENDIAN
+          : ByteOrder.LITTLE_ENDIAN;
+
+      final int noOfPlots = stream.readInt();
+
+      String plotname;
+      boolean complex;
+      int noOfPoints;
+      long offset;
+      int noOfVars;
+      String[] varNames;
+      String[] varUnits;
+
+      for (int i = 0; i < noOfPlots; i++) {
+
+        plotname = stream.readUTF();
+        complex = stream.readBoolean();
+        noOfPoints = stream.readInt();
+        offset = stream.readLong();
+        noOfVars = stream.readInt();
+
+        varNames = new String[noOfVars];
+        varUnits = new String[noOfVars];
+
+        for (int j = 0; j < noOfVars; j++) {
+          varNames[j] = stream.readUTF();
+          varUnits[j] = stream.readUTF();
+        }
+
+        infos.add(new NutmegPlotInfo(plotname, complex, true, varNames,
+            varUnits, noOfPoints, offset,
+            getNoOfColumns(complex, noOfVars) * getStride(noOfPoints)));
+      }
+
+    } catch (final IOException e) {
+      System.err.println("Header of cache "
+          + this.getFile().getAbsolutePath() + " is corrupt");
+    }
+
+    return infos;
+  }
+
+  @Override
+  ValueBlock makeBlock(final ByteSource source, final NutmegPlotInfo info) {
+    return new ColumnValueBlock(source, info.getValueOffset(),
+        info.getNoOfVariables(), info.getNoOfPoints(), info.isComplex(),
+        this.order);
+  }
+
+  /**
+   * Round a position up to the next page boundary.
+   *
+   * @param pos - position
+   * @return aligned position
+   */
+  static long align(final long pos) {
+    return ((pos + PAGE_SIZE) - 1) & -PAGE_SIZE;
+  }
+
+  /**
+   * Returns the distance between two columns of a plot.
+   *
+   * @param noOfPoints - number of points
+   * @return distance in bytes
+   */
+  static long getStride(final int noOfPoints) {
+    return align((long) noOfPoints * Double.BYTES);
+  }
+
+  /**
+   * Returns the number of columns of a plot.
+   *
+   * @param complex  - <code>true</code> when the values are complex,
+   *                 <code>false</code> otherwise
+   * @param noOfVars - number of variables
+   * @return number of columns
+   */
+  static long getNoOfColumns(final boolean complex, final int noOfVars) {
+    return complex ? 2L * noOfVars : noOfVars;
+  }
+}
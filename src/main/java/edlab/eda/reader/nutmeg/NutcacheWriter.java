@@ -0,0 +1,273 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writer for a column-major cache file. The writer receives the values of
+ * all plots as a {@link PlotHandler} and writes each chunk of points to the
+ * columns of the selected waves. The cache is written to a temporary file
+ * which replaces the cache file on {@link #commit()}, readers never see an
+ * incomplete cache.
+ */
+final class NutcacheWriter implements PlotHandler, Closeable {
+
+  private final File file;
+  private final File tmpFile;
+  private final FileChannel channel;
+  private final List<NutmegPlotInfo> infos;
+
+  /**
+   * Positions of the values of the plots in the cache
+   */
+  private final long[] offsets;
+  private final long size;
+
+  private ByteBuffer buffer = ByteBuffer.allocate(0);
+  private int plot = -1;
+  private long stride;
+  private boolean committed = false;
+
+  /**
+   * Create a new writer and write the header of the cache.
+   *
+   * @param file       - cache file
+   * @param infos      - metadata of the plots in the order of streaming
+   * @param selections - selected variables of each plot
+   * @throws IOException when the cache cannot be written
+   */
+  NutcacheWriter(final File file, final List<NutmegPlotInfo> infos,
+      final List<boolean[]> selections) throws IOException {
+
+    this.file = file;
+    this.tmpFile = new File(file.getPath() + ".tmp");
+    this.infos = infos;
+    this.offsets = new long[infos.size()];
+
+    // The size of the header does not depend on the offsets
+    byte[] header = this.header(selections);
+
+    long offset = NutcacheReader.align(header.length);
+
+    for (int i = 0; i < this.offsets.length; i++) {
+      this.offsets[i] = offset;
+      offset += NutcacheReader.getNoOfColumns(infos.get(i).isComplex(),
+          count(selections.get(i)))
+          * NutcacheReader.getStride(infos.get(i).getNoOfPoints());
+    }
+
+    this.size = offset;
+
+    header = this.header(selections);
+
+    this.channel = FileChannel.open(this.tmpFile.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE);
+
+    try {
+      this.write(ByteBuffer.wrap(header), 0);
+    } catch (final IOException e) {
+      this.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void startPlot(final NutmegPlotInfo info) {
+    this.plot++;
+    this.stride = NutcacheReader.getStride(info.getNoOfPoints());
+  }
+
+  @Override
+  public void points(final PointChunk chunk) {
+
+    final int bytes = chunk.getNoOfPoints() * Double.BYTES;
+    final long shift = (long) chunk.getFirstPoint() * Double.BYTES;
+
+    if (this.buffer.capacity() < bytes) {
+      this.buffer = ByteBuffer.allocate(bytes)
+          .order(NutcacheReader.BYTE_ORDER);
+    }
+
+    long column = this.offsets[this.plot];
+
+    try {
+
+      for (int i = 0; i < chunk.getNoOfVariables(); i++) {
+
+        if (chunk.getReal(i) == null) {
+          continue;
+        }
+
+        this.write(chunk.getReal(i), chunk.getNoOfPoints(), column + shift);
+        column += this.stride;
+
+        if (this.infos.get(this.plot).isComplex()) {
+          this.write(chunk.getImag(i), chunk.getNoOfPoints(),
+              column + shift);
+          column += this.stride;
+        }
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void endPlot() {
+  }
+
+  /**
+   * Complete the cache and replace the cache file.
+   *
+   * @throws IOException when the cache cannot be written
+   */
+  void commit() throws IOException {
+
+    // Extend the file to the end of the last column
+    if (this.size > this.channel.size()) {
+      this.write(ByteBuffer.allocate(1), this.size - 1);
+    }
+
+    this.channel.close();
+
+    try {
+      Files.move(this.tmpFile.toPath(), this.file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      Files.move(this.tmpFile.toPath(), this.file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    this.committed = true;
+  }
+
+  @Override
+  public void close() throws IOException {
+
+    this.channel.close();
+
+    if (!this.committed) {
+      Files.deleteIfExists(this.tmpFile.toPath());
+    }
+  }
+
+  /**
+   * Serialize the header of the cache.
+   *
+   * @param selections - selected variables of each plot
+   * @return header
+   * @throws IOException when the header cannot be serialized
+   */
+  private byte[] header(final List<boolean[]> selections) throws IOException {
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream stream = new DataOutputStream(bytes);
+
+    stream.writeInt(NutcacheReader.MAGIC);
+    stream.writeInt(NutcacheReader.VERSION);
+    stream.writeInt(0);
+    stream.writeBoolean(NutcacheReader.BYTE_ORDER == ByteOrder.BIG_ENDIAN);
+    stream.writeInt(this.infos.size());
+
+    NutmegPlotInfo info;
+    boolean[] selection;
+
+    for (int i = 0; i < this.infos.size(); i++) {
+
+      info = this.infos.get(i);
+      selection = selections.get(i);
+
+      stream.writeUTF(info.getPlotname());
+      stream.writeBoolean(info.isComplex());
+      stream.writeInt(info.getNoOfPoints());
+      stream.writeLong(this.offsets[i]);
+      stream.writeInt(count(selection));
+
+      for (int j = 0; j < selection.length; j++) {
+        if (selection[j]) {
+          stream.writeUTF(info.getVariableNames().get(j));
+          stream.writeUTF(info.getVariableUnits().get(j));
+        }
+      }
+    }
+
+    stream.close();
+
+    final byte[] header = bytes.toByteArray();
+
+    // The length of the header follows the magic and the version
+    ByteBuffer.wrap(header).putInt(2 * Integer.BYTES, header.length);
+
+    return header;
+  }
+
+  /**
+   * Write values to the cache.
+   *
+   * @param values - values
+   * @param n      - number of values
+   * @param pos    - position in the cache
+   * @throws IOException when the values cannot be written
+   */
+  private void write(final double[] values, final int n, final long pos)
+      throws IOException {
+
+    // Cast to Buffer, the covariant overrides do not exist in Java 8
+    ((Buffer) this.buffer).clear();
+    this.buffer.asDoubleBuffer().put(values, 0, n);
+    ((Buffer) this.buffer).limit(n * Double.BYTES);
+
+    this.write(this.buffer, pos);
+  }
+
+  /**
+   * Write a buffer completely to the cache.
+   *
+   * @param buffer - buffer
+   * @param pos    - position in the cache
+   * @throws IOException when the buffer cannot be written
+   */
+  private void write(final ByteBuffer buffer, final long pos)
+      throws IOException {
+
+    long position = pos;
+
+    while (buffer.hasRemaining()) {
+      position += this.channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * Count the selected variables.
+   *
+   * @param selection - selection
+   * @return number of selected variables
+   */
+  private static int count(final boolean[] selection) {
+
+    int count = 0;
+
+    for (final boolean selected : selection) {
+      if (selected) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+}
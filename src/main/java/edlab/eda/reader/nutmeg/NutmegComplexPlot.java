@@ -1,7 +1,13 @@
 package edlab.eda.reader.nutmeg;
 
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntToDoubleFunction;
 
 import org.apache.commons.math3.complex.Complex;
 
@@ -13,19 +19,57 @@ public final class NutmegComplexPlot extends NutmegPlot {
   public static final String VCVS_COMPLEX = "Re, ComplexRe, ComplexIm";
   public static final String VCVS_XYY = "X, Y, Y";
 
-  private final Map<String, Complex[]> waves;
+  /**
+   * Real and imaginary parts of the waves, the values are stored in two
+   * arrays per wave
+   */
+  private final Map<String, double[][]> values;
+
+  /**
+   * Waves as {@link Complex} objects, created on first access with
+   * {@link #getWave(String)}
+   */
+  private final Map<String, Complex[]> waves = new ConcurrentHashMap<>();
+
+  /**
+   * Columns of the waves in the value block, <code>null</code> when all waves
+   * are already decoded
+   */
+  private final Map<String, Integer> columns;
+  private final ValueBlock block;
+
+  /**
+   * <code>true</code> when the values are stored outside of the heap and the
+   * decoded waves are not kept
+   */
+  private final boolean offHeap;
 
   private NutmegComplexPlot(final String plotname, final int noOfVariables,
       final int noOfPoints, final String refWave,
-      final Map<String, String> units, final Map<String, Complex[]> waves) {
+      final Map<String, String> units, final Map<String, double[][]> values) {
+    super(plotname, noOfVariables, noOfPoints, refWave, units);
+    this.values = values;
+    this.columns = null;
+    this.block = null;
+    this.offHeap = false;
+  }
+
+  private NutmegComplexPlot(final String plotname, final int noOfVariables,
+      final int noOfPoints, final String refWave,
+      final Map<String, String> units, final Map<String, Integer> columns,
+      final ValueBlock block, final boolean offHeap) {
     super(plotname, noOfVariables, noOfPoints, refWave, units);
-    this.waves = waves;
+    this.values = new ConcurrentHashMap<>();
+    this.columns = columns;
+    this.block = block;
+    this.offHeap = offHeap;
   }
 
   /**
    * The method checks all parameters for consistency. When the parameters are
    * valid, a {@link edlab.eda.reader.nutmeg.NutmegComplexPlot
-   * NutmegComplexPlot} is returned.
+   * NutmegComplexPlot} is returned. The values are stored as primitive
+   * arrays, the {@link Complex} objects are not kept.
    * 
    * @param plotname      Name of the plot
    * @param noOfVariables Number of variables
@@ -39,10 +83,61 @@ public final class NutmegComplexPlot extends NutmegPlot {
       final int noOfVariables, final int noOfPoints, final String refWave,
       final Map<String, String> units, final Map<String, Complex[]> waves) {
 
-    final NutmegComplexPlot plot = new NutmegComplexPlot(plotname,
-        noOfVariables, noOfPoints, refWave, units, waves);
+    final Map<String, double[]> realParts = new HashMap<>();
+    final Map<String, double[]> imagParts = new HashMap<>();
+
+    Complex[] wave;
+    double[] re;
+    double[] im;
+
+    for (final String name : waves.keySet()) {
+
+      wave = waves.get(name);
+
+      if (wave == null) {
+        return null;
+      }
+
+      re = new double[wave.length];
+      im = new double[wave.length];
+
+      for (int i = 0; i < wave.length; i++) {
+        re[i] = wave[i].getReal();
+        im[i] = wave[i].getImaginary();
+      }
+
+      realParts.put(name, re);
+      imagParts.put(name, im);
+    }
+
+    // the Complex objects are created again by getWave when they are needed
+    return make(plotname, noOfVariables, noOfPoints, refWave, units,
+        realParts, imagParts);
+  }
+
+  /**
+   * The method checks all parameters for consistency. When the parameters are
+   * valid, a {@link edlab.eda.reader.nutmeg.NutmegComplexPlot
+   * NutmegComplexPlot} is returned. The values are stored as primitive
+   * arrays, {@link Complex} objects are only created by
+   * {@link #getWave(String)}.
+   * 
+   * @param plotname      Name of the plot
+   * @param noOfVariables Number of variables
+   * @param noOfPoints    Number of points
+   * @param refWave       Name of reference waveform
+   * @param units         Units
+   * @param realParts     Real parts of the waves
+   * @param imagParts     Imaginary parts of the waves
+   * @return nutmegComplexPlot
+   */
+  public static NutmegComplexPlot make(final String plotname,
+      final int noOfVariables, final int noOfPoints, final String refWave,
+      final Map<String, String> units, final Map<String, double[]> realParts,
+      final Map<String, double[]> imagParts) {
 
-    if ((noOfVariables != units.size()) || (noOfVariables != waves.size())) {
+    if ((noOfVariables != units.size()) || (noOfVariables != realParts.size())
+        || (noOfVariables != imagParts.size())) {
       return null;
     }
 
@@ -52,165 +147,624 @@ public final class NutmegComplexPlot extends NutmegPlot {
       }
     }
 
-    for (final String wave : waves.keySet()) {
-      if (waves.get(wave) == null) {
+    final Map<String, double[][]> values = new HashMap<>();
+
+    double[] re;
+    double[] im;
+
+    for (final String wave : realParts.keySet()) {
+
+      re = realParts.get(wave);
+      im = imagParts.get(wave);
+
+      if ((re == null) || (im == null) || !units.containsKey(wave)
+          || (re.length != noOfPoints) || (im.length != noOfPoints)) {
         return null;
       }
+
+      values.put(wave, new double[][] { re, im });
     }
 
-    for (final String wave : waves.keySet()) {
+    return new NutmegComplexPlot(plotname, noOfVariables, noOfPoints, refWave,
+        units, values);
+  }
+
+  /**
+   * Create a plot whose waves are decoded from a value block on first access.
+   * 
+   * @param plotname      Name of the plot
+   * @param noOfVariables Number of variables
+   * @param noOfPoints    Number of points
+   * @param refWave       Name of reference waveform
+   * @param units         Units
+   * @param columns       Columns of the waves in the value block
+   * @param block         Value block
+   * @param offHeap       <code>true</code> when the block is stored outside
+   *                      of the heap and decoded waves are not kept,
+   *                      <code>false</code> otherwise
+   * @return nutmegComplexPlot
+   */
+  static NutmegComplexPlot make(final String plotname,
+      final int noOfVariables, final int noOfPoints, final String refWave,
+      final Map<String, String> units, final Map<String, Integer> columns,
+      final ValueBlock block, final boolean offHeap) {
+
+    if ((noOfVariables != units.size()) || (noOfVariables != columns.size())
+        || (block.getNoOfPoints() != noOfPoints) || !block.isComplex()) {
+      return null;
+    }
+
+    for (final String wave : units.keySet()) {
+      if (units.get(wave) == null) {
+        return null;
+      }
+    }
+
+    for (final String wave : columns.keySet()) {
       if (!units.containsKey(wave)) {
         return null;
       }
     }
 
-    for (final String wave : waves.keySet()) {
-      if (waves.get(wave).length != noOfPoints) {
+    return new NutmegComplexPlot(plotname, noOfVariables, noOfPoints, refWave,
+        units, columns, block, offHeap);
+  }
+
+  /**
+   * Returns the real and imaginary parts of a wave. When the plot was parsed
+   * lazily, the wave is decoded on first access. When the plot is stored
+   * outside of the heap or with single precision, the wave is copied to new
+   * arrays on each call.
+   * 
+   * @param wave - name of the wave
+   * @return array with the real and imaginary parts, <code>null</code> when
+   *         the wave is not existing or the plot is closed
+   */
+  private double[][] getValues(final String wave) {
+
+    if (this.isClosed()) {
+      return null;
+    } else if (this.columns == null) {
+      return this.values.get(wave);
+    } else if (!this.columns.containsKey(wave)) {
+      return null;
+    } else if (this.offHeap || this.block.isSinglePrecision()) {
+      return this.block.decodeComplex(this.columns.get(wave));
+    }
+
+    return this.values.computeIfAbsent(wave,
+        name -> this.block.decodeComplex(this.columns.get(name)));
+  }
+
+  /**
+   * Returns the real and imaginary parts of a wave with single precision.
+   * When the plot is stored with single precision, the stored arrays are
+   * returned. Otherwise, and for the reference wave, the values are
+   * converted to new arrays.
+   * 
+   * @param wave - name of the wave
+   * @return array with the real and imaginary parts, <code>null</code> when
+   *         the wave is not existing or the plot is closed
+   */
+  private float[][] getFloatValues(final String wave) {
+
+    if (this.isClosed()) {
+      return null;
+    } else if ((this.columns != null) && this.block.isSinglePrecision()) {
+
+      final Integer column = this.columns.get(wave);
+
+      if (column == null) {
         return null;
       }
+
+      return this.block.decodeComplexFloat(column);
+    }
+
+    final double[][] parts = this.getValues(wave);
+
+    if (parts == null) {
+      return null;
+    }
+
+    return new float[][] { ValueBlock.toFloat(parts[0]),
+        ValueBlock.toFloat(parts[1]) };
+  }
+
+  /**
+   * Returns the real parts of a waveform with a given name.
+   * 
+   * @param wave - name of the wave
+   * @return real parts if existing, null otherwise
+   */
+  public double[] getReal(final String wave) {
+
+    final double[][] parts = this.getValues(wave);
+
+    if (parts == null) {
+      return null;
+    }
+
+    return parts[0];
+  }
+
+  /**
+   * Returns the imaginary parts of a waveform with a given name.
+   * 
+   * @param wave - name of the wave
+   * @return imaginary parts if existing, null otherwise
+   */
+  public double[] getImag(final String wave) {
+
+    final double[][] parts = this.getValues(wave);
+
+    if (parts == null) {
+      return null;
     }
 
-    return plot;
+    return parts[1];
   }
 
   /**
-   * Returns a waveform with a given name.
+   * Returns the real parts of a waveform with a given name with single
+   * precision. When the plot is stored with single precision, the stored
+   * array is returned and must not be modified.
    * 
    * @param wave - name of the wave
-   * @return wave - Wave as a double array if existing, null otherwise.
+   * @return real parts if existing, null otherwise
+   */
+  public float[] getRealFloat(final String wave) {
+
+    final float[][] parts = this.getFloatValues(wave);
+
+    if (parts == null) {
+      return null;
+    }
+
+    return parts[0];
+  }
+
+  /**
+   * Returns the imaginary parts of a waveform with a given name with single
+   * precision. When the plot is stored with single precision, the stored
+   * array is returned and must not be modified.
+   * 
+   * @param wave - name of the wave
+   * @return imaginary parts if existing, null otherwise
+   */
+  public float[] getImagFloat(final String wave) {
+
+    final float[][] parts = this.getFloatValues(wave);
+
+    if (parts == null) {
+      return null;
+    }
+
+    return parts[1];
+  }
+
+  /**
+   * Returns a waveform with a given name as an interleaved array. The real
+   * part of the i-th point is stored at index 2*i, the imaginary part at
+   * index 2*i+1. The array is created on each call.
+   * 
+   * @param wave - name of the wave
+   * @return interleaved wave if existing, null otherwise
+   */
+  public double[] getInterleaved(final String wave) {
+
+    final double[][] parts = this.getValues(wave);
+
+    if (parts == null) {
+      return null;
+    }
+
+    final double[] interleaved = new double[2 * parts[0].length];
+
+    for (int i = 0; i < parts[0].length; i++) {
+      interleaved[2 * i] = parts[0][i];
+      interleaved[(2 * i) + 1] = parts[1][i];
+    }
+
+    return interleaved;
+  }
+
+  /**
+   * Returns a waveform with a given name. The {@link Complex} objects are
+   * created on first access, use {@link #getReal(String)} and
+   * {@link #getImag(String)} to access the values without creating objects.
+   * 
+   * @param wave - name of the wave
+   * @return wave - Wave as a complex array if existing, null otherwise.
    */
   public Complex[] getWave(final String wave) {
-    return this.waves.get(wave);
+
+    if (this.isClosed() || !this.containsWave(wave)) {
+      return null;
+    } else if (this.offHeap || this.isSinglePrecision()) {
+      return this.toComplex(wave);
+    }
+
+    return this.waves.computeIfAbsent(wave, this::toComplex);
   }
 
-  @Override
-  public boolean containsWave(final String wave) {
-    return this.waves.containsKey(wave);
+  /**
+   * Create the {@link Complex} objects of a wave.
+   * 
+   * @param wave - name of the wave
+   * @return wave as a complex array, <code>null</code> when the wave is not
+   *         existing
+   */
+  private Complex[] toComplex(final String wave) {
+
+    final double[][] parts = this.getValues(wave);
+
+    if (parts == null) {
+      return null;
+    }
+
+    final Complex[] complexWave = new Complex[parts[0].length];
+
+    for (int i = 0; i < complexWave.length; i++) {
+      complexWave[i] = new Complex(parts[0][i], parts[1][i]);
+    }
+
+    return complexWave;
   }
 
-  @Override
-  public Set<String> getWaves() {
-    return this.waves.keySet();
+  /**
+   * Returns a read-only view on the real parts of a waveform with a given
+   * name. When the plot is stored outside of the heap, the view shares the
+   * memory of the plot and no values are copied. The view remains valid
+   * after the plot is closed.
+   * 
+   * @param wave - name of the wave
+   * @return real parts as a buffer if existing, null otherwise
+   */
+  public DoubleBuffer getRealBuffer(final String wave) {
+    return this.getBuffer(wave, false);
   }
 
-  @Override
-  public boolean isComplex() {
-    return true;
+  /**
+   * Returns a read-only view on the imaginary parts of a waveform with a
+   * given name. When the plot is stored outside of the heap, the view shares
+   * the memory of the plot and no values are copied. The view remains valid
+   * after the plot is closed.
+   * 
+   * @param wave - name of the wave
+   * @return imaginary parts as a buffer if existing, null otherwise
+   */
+  public DoubleBuffer getImagBuffer(final String wave) {
+    return this.getBuffer(wave, true);
   }
 
-  @Override
-  public boolean isReal() {
-    return false;
+  /**
+   * Returns a read-only view on the real or imaginary parts of a waveform.
+   * 
+   * @param wave - name of the wave
+   * @param imag - <code>true</code> for the imaginary parts,
+   *             <code>false</code> for the real parts
+   * @return buffer if existing, null otherwise
+   */
+  private DoubleBuffer getBuffer(final String wave, final boolean imag) {
+
+    if (this.isClosed()) {
+      return null;
+    } else if (this.offHeap && this.columns.containsKey(wave)) {
+
+      final DoubleBuffer buffer = this.block
+          .getColumn(this.columns.get(wave), imag);
+
+      if (buffer != null) {
+        return buffer;
+      }
+    }
+
+    final double[][] parts = this.getValues(wave);
+
+    if (parts == null) {
+      return null;
+    }
+
+    return DoubleBuffer.wrap(parts[imag ? 1 : 0]).asReadOnlyBuffer();
   }
 
-  @Override
-  public String toVirtuosoCommaSeperatedValues() {
+  /**
+   * Returns the values of a waveform whose values of the reference wave are
+   * within an interval, e.g. a frequency band of an AC analysis. The range of
+   * points is found with a binary search, see
+   * {@link #getRange(double, double)}, only the {@link Complex} objects of
+   * this range are created. Views without copying are returned by
+   * {@link #getRealBuffer(String, int, int)} and
+   * {@link #getImagBuffer(String, int, int)}.
+   * 
+   * @param wave - name of the wave
+   * @param from - first bound of the interval
+   * @param to   - second bound of the interval
+   * @return wave as a complex array if existing, null otherwise
+   */
+  public Complex[] getWave(final String wave, final double from,
+      final double to) {
+
+    final int[] range = this.getRange(from, to);
+
+    if (range == null) {
+      return null;
+    }
 
-    final StringBuilder builder = new StringBuilder(VCVS_VERSION)
-        .append(VCVS_NEWLINE);
+    final DoubleBuffer[] buffers = this.getBuffers(wave, range[0], range[1]);
 
-    boolean first = true;
+    if (buffers == null) {
+      return null;
+    }
 
-    for (final String waveName : this.getWaves()) {
+    final Complex[] complexWave = new Complex[range[1] - range[0]];
 
-      if (!waveName.equals(this.getRefWave())) {
+    for (int i = 0; i < complexWave.length; i++) {
+      complexWave[i] = new Complex(buffers[0].get(i), buffers[1].get(i));
+    }
 
-        if (first) {
-          first = false;
-        } else {
-          builder.append(VCVS_SEP);
+    return complexWave;
+  }
+
+  /**
+   * Returns a read-only view on a range of points of the real parts of a
+   * waveform, see {@link #getBuffers(String, int, int)}.
+   * 
+   * @param wave  - name of the wave
+   * @param first - index of the first point
+   * @param last  - index after the last point
+   * @return real parts as a buffer if existing, null otherwise
+   */
+  public DoubleBuffer getRealBuffer(final String wave, final int first,
+      final int last) {
+
+    final DoubleBuffer[] buffers = this.getBuffers(wave, first, last);
+
+    if (buffers == null) {
+      return null;
+    }
+
+    return buffers[0];
+  }
+
+  /**
+   * Returns a read-only view on a range of points of the imaginary parts of
+   * a waveform, see {@link #getBuffers(String, int, int)}.
+   * 
+   * @param wave  - name of the wave
+   * @param first - index of the first point
+   * @param last  - index after the last point
+   * @return imaginary parts as a buffer if existing, null otherwise
+   */
+  public DoubleBuffer getImagBuffer(final String wave, final int first,
+      final int last) {
+
+    final DoubleBuffer[] buffers = this.getBuffers(wave, first, last);
+
+    if (buffers == null) {
+      return null;
+    }
+
+    return buffers[1];
+  }
+
+  /**
+   * Returns read-only views on a range of points of a waveform. When the
+   * wave is already decoded or stored outside of the heap, the views share
+   * the memory of the plot and no values are copied. Otherwise only the
+   * range of points is decoded. The views remain valid after the plot is
+   * closed.
+   * 
+   * @param wave  - name of the wave
+   * @param first - index of the first point
+   * @param last  - index after the last point
+   * @return real and imaginary parts, null when the wave is not existing,
+   *         the range is not valid or the plot is closed
+   */
+  DoubleBuffer[] getBuffers(final String wave, final int first,
+      final int last) {
+
+    if (this.isClosed() || !this.containsWave(wave)
+        || !this.isValidRange(first, last)) {
+      return null;
+    }
+
+    double[][] parts;
+
+    if (this.columns == null) {
+      parts = this.values.get(wave);
+    } else {
+
+      final int column = this.columns.get(wave);
+
+      if (this.offHeap) {
+
+        final DoubleBuffer re = this.block.getColumn(column, false);
+        final DoubleBuffer im = this.block.getColumn(column, true);
+
+        if ((re != null) && (im != null)) {
+          return new DoubleBuffer[] { slice(re, first, last),
+              slice(im, first, last) };
         }
+      }
+
+      parts = this.values.get(wave);
+
+      if (parts == null) {
 
-        builder.append(VCVS_DELIM).append(waveName);
+        parts = this.block.decodeSlice(column, first, last);
+
+        if (parts == null) {
+          return null;
+        }
+
+        return new DoubleBuffer[] {
+            DoubleBuffer.wrap(parts[0]).asReadOnlyBuffer(),
+            DoubleBuffer.wrap(parts[1]).asReadOnlyBuffer() };
       }
     }
 
-    builder.append(VCVS_NEWLINE);
+    return new DoubleBuffer[] { slice(parts[0], first, last),
+        slice(parts[1], first, last) };
+  }
 
-    first = true;
+  @Override
+  DoubleBuffer getReference(final int first, final int last) {
+    return this.getRealBuffer(this.getRefWave(), first, last);
+  }
 
-    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
+  @Override
+  DoubleBuffer getValues(final String wave, final int first,
+      final int last) {
 
-      if (first) {
-        first = false;
-      } else {
-        builder.append(VCVS_SEP);
-      }
+    final DoubleBuffer[] buffers = this.getBuffers(wave, first, last);
 
-      builder.append(VCVS_DELIM).append(VCVS_XYY);
+    if (buffers == null) {
+      return null;
     }
 
-    builder.append(VCVS_NEWLINE);
+    final double[] magnitudes = new double[last - first];
+    double re;
+    double im;
 
-    first = true;
+    for (int i = 0; i < magnitudes.length; i++) {
+      re = buffers[0].get(i);
+      im = buffers[1].get(i);
+      magnitudes[i] = Math.sqrt((re * re) + (im * im));
+    }
 
-    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
+    return DoubleBuffer.wrap(magnitudes);
+  }
 
-      if (first) {
-        first = false;
-      } else {
-        builder.append(VCVS_SEP);
-      }
+  @Override
+  IntToDoubleFunction getReferenceValues() {
 
-      builder.append(VCVS_DELIM).append(VCVS_COMPLEX);
+    if (this.isClosed()) {
+      return null;
+    } else if ((this.columns != null) && this.block.isRandomAccess()
+        && !this.values.containsKey(this.getRefWave())) {
+      // the reference wave is read point by point from the block
+      return point -> this.block.getReal(0, point);
     }
 
-    builder.append(VCVS_NEWLINE);
-    first = true;
+    final double[] values = this.getReal(this.getRefWave());
 
-    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
+    if (values == null) {
+      return null;
+    }
 
-      if (first) {
-        first = false;
-      } else {
-        builder.append(VCVS_SEP);
-      }
+    return point -> values[point];
+  }
 
-      builder.append(VCVS_DELIM).append(this.getRefWave()).append(" ")
-          .append(VCVS_SEP).append("-");
+  @Override
+  public boolean containsWave(final String wave) {
+    if (this.columns == null) {
+      return this.values.containsKey(wave);
+    } else {
+      return this.columns.containsKey(wave);
     }
+  }
 
-    builder.append(VCVS_NEWLINE);
-    first = true;
+  @Override
+  public Set<String> getWaves() {
+    if (this.columns == null) {
+      return this.values.keySet();
+    } else {
+      return this.columns.keySet();
+    }
+  }
 
-    for (final String waveName : this.getWaves()) {
+  @Override
+  public boolean isOffHeap() {
+    return this.offHeap;
+  }
 
-      if (!waveName.equals(this.getRefWave())) {
+  @Override
+  public boolean isSinglePrecision() {
+    return (this.block != null) && this.block.isSinglePrecision();
+  }
 
-        if (first) {
-          first = false;
-        } else {
-          builder.append(VCVS_SEP);
-        }
+  @Override
+  public void close() {
+
+    super.close();
+    this.waves.clear();
+
+    if (this.columns != null) {
+      this.values.clear();
+      this.block.close();
+    }
+  }
+
+  @Override
+  public boolean isComplex() {
+    return true;
+  }
 
-        builder.append(VCVS_DELIM).append(this.getUnit(this.getRefWave()))
-            .append(" ").append(VCVS_SEP).append(this.getUnit(waveName));
+  @Override
+  public boolean isReal() {
+    return false;
+  }
+
+  @Override
+  void writeVcsvValues(final VcsvWriter vcsv, final List<String> waves)
+      throws IOException {
+
+    if (this.isClosed()) {
+      throw new IOException("Values of a closed plot cannot be read");
+    } else if ((this.columns != null) && !this.block.isRandomAccess()) {
+
+      // ranges would be decoded from the start of the block again and again
+      final int[] columns = new int[waves.size() + 1];
+      columns[0] = this.columns.get(this.getRefWave());
+
+      for (int i = 0; i < waves.size(); i++) {
+        columns[i + 1] = this.columns.get(waves.get(i));
       }
+
+      vcsv.writeValues(this.block, columns);
+      return;
     }
 
-    for (int i = 0; i < this.getNoOfPoints(); i++) {
+    final DoubleBuffer[][] parts = new DoubleBuffer[waves.size()][];
+    DoubleBuffer refWave;
+    int last;
 
-      builder.append(VCVS_NEWLINE);
-      first = true;
+    for (int first = 0; first < this.getNoOfPoints(); first = last) {
 
-      for (final String waveName : this.getWaves()) {
+      last = Math.min(first + VCSV_POINTS, this.getNoOfPoints());
+      refWave = this.getRealBuffer(this.getRefWave(), first, last);
 
-        if (!waveName.equals(this.getRefWave())) {
+      for (int i = 0; i < parts.length; i++) {
+        parts[i] = this.getBuffers(waves.get(i), first, last);
 
-          if (first) {
-            first = false;
-          } else {
-            builder.append(VCVS_SEP);
+        if (parts[i] == null) {
+          throw new IOException("Values of wave \"" + waves.get(i)
+              + "\" cannot be read");
+        }
+      }
+
+      if (refWave == null) {
+        throw new IOException("Values of wave \"" + this.getRefWave()
+            + "\" cannot be read");
+      }
+
+      for (int i = 0; i < (last - first); i++) {
+
+        vcsv.newline();
+
+        for (int j = 0; j < parts.length; j++) {
+
+          if (j > 0) {
+            vcsv.append(VCVS_SEP);
           }
 
-          builder.append(this.getWave(this.getRefWave())[i].getReal())
-              .append(VCVS_SEP).append(this.getWave(waveName)[i].getReal())
-              .append(VCVS_SEP)
-              .append(this.getWave(waveName)[i].getImaginary());
+          vcsv.append(refWave.get(i)).append(VCVS_SEP)
+              .append(parts[j][0].get(i)).append(VCVS_SEP)
+              .append(parts[j][1].get(i));
         }
       }
     }
-
-    return builder.toString();
   }
-}
\ No newline at end of file
+}
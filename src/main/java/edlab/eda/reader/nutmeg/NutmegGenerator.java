@@ -0,0 +1,395 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
+/**
+ * Generator for synthetic Nutmeg waveform files in ASCII and binary syntax.
+ * The values are written point by point through a small buffer, such that
+ * files much larger than the heap can be generated. The values of the
+ * variables are deterministic and can be recomputed with
+ * {@link #getReal(int, int, int)} and {@link #getImag(int, int, int)}.
+ */
+public final class NutmegGenerator {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  private int noOfPlots = 1;
+  private int noOfVariables = 2;
+  private int noOfPoints = 1;
+  private boolean complex = false;
+  private int duplicateInterval = 0;
+  private ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+  private boolean singlePrecision = false;
+
+  private NutmegGenerator() {
+  }
+
+  /**
+   * Creates a {@link NutmegGenerator} for a single real plot with two
+   * variables and a single point.
+   *
+   * @return nutmegGenerator - generator
+   */
+  public static NutmegGenerator getNutmegGenerator() {
+    return new NutmegGenerator();
+  }
+
+  /**
+   * Set the number of plots in the file.
+   *
+   * @param noOfPlots Number of plots
+   * @return nutmegGenerator - this generator
+   */
+  public NutmegGenerator setNoOfPlots(final int noOfPlots) {
+    this.noOfPlots = Math.max(1, noOfPlots);
+    return this;
+  }
+
+  /**
+   * Set the number of variables of each plot, including the reference wave.
+   *
+   * @param noOfVariables Number of variables
+   * @return nutmegGenerator - this generator
+   */
+  public NutmegGenerator setNoOfVariables(final int noOfVariables) {
+    this.noOfVariables = Math.max(1, noOfVariables);
+    return this;
+  }
+
+  /**
+   * Set the number of points of each plot.
+   *
+   * @param noOfPoints Number of points
+   * @return nutmegGenerator - this generator
+   */
+  public NutmegGenerator setNoOfPoints(final int noOfPoints) {
+    this.noOfPoints = Math.max(1, noOfPoints);
+    return this;
+  }
+
+  /**
+   * Generate complex or real plots.
+   *
+   * @param complex <code>true</code> for complex plots, <code>false</code>
+   *                for real plots
+   * @return nutmegGenerator - this generator
+   */
+  public NutmegGenerator setComplex(final boolean complex) {
+    this.complex = complex;
+    return this;
+  }
+
+  /**
+   * Repeat variable names. When the interval is <code>n</code>, every
+   * <code>n</code>-th variable has the name of the previous variable, as
+   * Spectre does for terminals that are saved twice.
+   *
+   * @param duplicateInterval Interval of duplicate names, <code>0</code>
+   *                          when all names are unique
+   * @return nutmegGenerator - this generator
+   */
+  public NutmegGenerator setDuplicateInterval(final int duplicateInterval) {
+    this.duplicateInterval = Math.max(0, duplicateInterval);
+    return this;
+  }
+
+  /**
+   * Set the byte order of binary values. Spectre writes big-endian values,
+   * ngspice writes values in the byte order of the machine.
+   *
+   * @param byteOrder Byte order
+   * @return nutmegGenerator - this generator
+   */
+  public NutmegGenerator setByteOrder(final ByteOrder byteOrder) {
+    this.byteOrder = byteOrder;
+    return this;
+  }
+
+  /**
+   * Write binary values as 4-byte floats instead of 8-byte doubles. The
+   * header of the file is the same as for doubles, such that the file must
+   * be read with {@link NutReader#setBinaryValueSize(int)}. Simulators do
+   * not write such files. ASCII files are not affected.
+   *
+   * @param singlePrecision <code>true</code> for floats, <code>false</code>
+   *                        for doubles
+   * @return nutmegGenerator - this generator
+   */
+  public NutmegGenerator setSinglePrecision(final boolean singlePrecision) {
+    this.singlePrecision = singlePrecision;
+    return this;
+  }
+
+  /**
+   * Returns the name of a variable in the generated files.
+   *
+   * @param variable Index of the variable
+   * @return name
+   */
+  public String getName(final int variable) {
+
+    if (variable == 0) {
+      return this.complex ? "freq" : "time";
+    } else if ((this.duplicateInterval > 0) && (variable > 1)
+        && ((variable % this.duplicateInterval) == 0)) {
+      return this.getName(variable - 1);
+    } else {
+      return "v" + variable;
+    }
+  }
+
+  /**
+   * Returns the real part of a value in the generated files.
+   *
+   * @param plot     Index of the plot
+   * @param point    Index of the point
+   * @param variable Index of the variable
+   * @return real part
+   */
+  public static double getReal(final int plot, final int point,
+      final int variable) {
+    if (variable == 0) {
+      return (point + 1) * 1e-3;
+    } else {
+      return Math.sin((point * 1e-3 * variable) + plot);
+    }
+  }
+
+  /**
+   * Returns the imaginary part of a value in the generated complex files.
+   *
+   * @param plot     Index of the plot
+   * @param point    Index of the point
+   * @param variable Index of the variable
+   * @return imaginary part
+   */
+  public static double getImag(final int plot, final int point,
+      final int variable) {
+    if (variable == 0) {
+      return 0.0;
+    } else {
+      return Math.cos((point * 1e-3 * variable) + plot);
+    }
+  }
+
+  /**
+   * Write a waveform file in ASCII syntax. An existing file is overwritten.
+   *
+   * @param file Path to the waveform file
+   * @return nutmegGenerator - this generator, <code>null</code> when the file
+   *         cannot be written
+   */
+  public NutmegGenerator writeNutascii(final String file) {
+    return this.write(file, false);
+  }
+
+  /**
+   * Write a waveform file in binary syntax. An existing file is overwritten.
+   *
+   * @param file Path to the waveform file
+   * @return nutmegGenerator - this generator, <code>null</code> when the file
+   *         cannot be written
+   */
+  public NutmegGenerator writeNutbin(final String file) {
+    return this.write(file, true);
+  }
+
+  /**
+   * Write a waveform file.
+   *
+   * @param file   Path to the waveform file
+   * @param binary <code>true</code> for binary syntax, <code>false</code> for
+   *               ASCII syntax
+   * @return nutmegGenerator - this generator, <code>null</code> when the file
+   *         cannot be written
+   */
+  private NutmegGenerator write(final String file, final boolean binary) {
+
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE)
+        .order(this.byteOrder);
+    final StringBuilder line = new StringBuilder();
+
+    try (FileChannel channel = FileChannel.open(Paths.get(file),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE)) {
+
+      line.append(NutReader.TITLE_ID).append(" synthetic\n");
+      line.append("Date: ").append(new Date()).append('\n');
+
+      for (int plot = 0; plot < this.noOfPlots; plot++) {
+
+        this.appendHeader(line, plot, binary);
+        write(channel, buffer, line);
+
+        for (int point = 0; point < this.noOfPoints; point++) {
+          if (binary) {
+            this.putPoint(channel, buffer, plot, point);
+          } else {
+            this.appendPoint(line, plot, point);
+            write(channel, buffer, line);
+          }
+        }
+      }
+
+      flush(channel, buffer);
+
+    } catch (final IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+
+    return this;
+  }
+
+  /**
+   * Append the header of a plot.
+   *
+   * @param line   Builder for the text
+   * @param plot   Index of the plot
+   * @param binary <code>true</code> for binary syntax, <code>false</code> for
+   *               ASCII syntax
+   */
+  private void appendHeader(final StringBuilder line, final int plot,
+      final boolean binary) {
+
+    line.append(HeaderParser.PLOT_ID).append(" Synthetic Analysis `p")
+        .append(plot).append("'\n");
+    line.append(HeaderParser.FLAGS_ID).append(' ')
+        .append(this.complex ? NutReader.COMPLEX_ID : NutReader.REAL_ID)
+        .append('\n');
+    line.append(HeaderParser.NO_OF_VAR_ID).append(' ')
+        .append(this.noOfVariables).append('\n');
+    line.append(HeaderParser.NO_OF_POINTS_ID).append(' ')
+        .append(this.noOfPoints).append('\n');
+
+    for (int i = 0; i < this.noOfVariables; i++) {
+      line.append((i == 0) ? HeaderParser.VARS_ID : "\t").append('\t')
+          .append(i).append('\t').append(this.getName(i)).append('\t')
+          .append((i == 0) ? (this.complex ? "Hz" : "s") : "V").append('\n');
+    }
+
+    line.append(binary ? HeaderParser.VALS_BINARY_ID
+        : HeaderParser.VALS_ASCII_ID).append('\n');
+  }
+
+  /**
+   * Append a point in ASCII syntax. The index of the point is followed by
+   * one line per variable.
+   *
+   * @param line  Builder for the text
+   * @param plot  Index of the plot
+   * @param point Index of the point
+   */
+  private void appendPoint(final StringBuilder line, final int plot,
+      final int point) {
+
+    line.append(' ').append(point);
+
+    for (int i = 0; i < this.noOfVariables; i++) {
+
+      line.append('\t').append(getReal(plot, point, i));
+
+      if (this.complex) {
+        line.append(',').append(getImag(plot, point, i));
+      }
+
+      line.append('\n');
+    }
+  }
+
+  /**
+   * Put a point in binary syntax into the buffer.
+   *
+   * @param channel Channel of the file
+   * @param buffer  Buffer
+   * @param plot    Index of the plot
+   * @param point   Index of the point
+   * @throws IOException when the buffer cannot be written
+   */
+  private void putPoint(final FileChannel channel, final ByteBuffer buffer,
+      final int plot, final int point) throws IOException {
+
+    for (int i = 0; i < this.noOfVariables; i++) {
+
+      if (buffer.remaining() < (2 * Double.BYTES)) {
+        flush(channel, buffer);
+      }
+
+      if (this.singlePrecision) {
+
+        buffer.putFloat((float) getReal(plot, point, i));
+
+        if (this.complex) {
+          buffer.putFloat((float) getImag(plot, point, i));
+        }
+
+      } else {
+
+        buffer.putDouble(getReal(plot, point, i));
+
+        if (this.complex) {
+          buffer.putDouble(getImag(plot, point, i));
+        }
+      }
+    }
+  }
+
+  /**
+   * Move the text of a builder to the buffer and clear the builder.
+   *
+   * @param channel Channel of the file
+   * @param buffer  Buffer
+   * @param line    Builder with text
+   * @throws IOException when the buffer cannot be written
+   */
+  private static void write(final FileChannel channel,
+      final ByteBuffer buffer, final StringBuilder line) throws IOException {
+
+    final byte[] bytes = line.toString().getBytes(StandardCharsets.US_ASCII);
+    line.setLength(0);
+
+    if (bytes.length > buffer.remaining()) {
+      flush(channel, buffer);
+    }
+
+    if (bytes.length > buffer.remaining()) {
+
+      final ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+
+      while (wrapped.hasRemaining()) {
+        channel.write(wrapped);
+      }
+
+    } else {
+      buffer.put(bytes);
+    }
+  }
+
+  /**
+   * Write the buffer to the file.
+   *
+   * @param channel Channel of the file
+   * @param buffer  Buffer
+   * @throws IOException when the buffer cannot be written
+   */
+  private static void flush(final FileChannel channel,
+      final ByteBuffer buffer) throws IOException {
+
+    // Cast to Buffer, the covariant overrides do not exist in Java 8
+    ((Buffer) buffer).flip();
+
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+
+    ((Buffer) buffer).clear();
+  }
+}
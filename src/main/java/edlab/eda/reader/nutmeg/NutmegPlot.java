@@ -1,29 +1,52 @@
 package edlab.eda.reader.nutmeg;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
 
 /**
- * Plot consisting of waveforms
+ * Plot consisting of waveforms. Plots whose values are stored outside of the
+ * heap should be closed when they are not needed anymore.
  */
-public abstract class NutmegPlot {
+public abstract class NutmegPlot implements AutoCloseable {
 
   public static final String VCVS_VERSION = ";Version, 1, 0";
   public static final String VCVS_DELIM = ";";
   public static final String VCVS_SEP = ",";
   public static final String VCVS_NEWLINE = "\n";
 
+  /**
+   * Number of points that are read at once when a plot is written as
+   * Virtuoso Comma Seperated Values
+   */
+  static final int VCSV_POINTS = 1 << 12;
+
   private final int noOfWaves;
   private final int noOfPoints;
   private final String plotname;
   private final String refWave;
   private final Map<String, String> units;
 
+  private volatile boolean closed = false;
+
   protected NutmegPlot(final String plotname, final int noOfVariables,
       final int noOfPoints, final String refWave,
       final Map<String, String> units) {
@@ -109,6 +132,365 @@ public abstract class NutmegPlot {
    */
   public abstract boolean isReal();
 
+  /**
+   * Returns if the waves of the plot are stored outside of the heap.
+   * 
+   * @return True if the waves are stored outside of the heap
+   */
+  public boolean isOffHeap() {
+    return false;
+  }
+
+  /**
+   * Returns if the waves of the plot, except the reference wave, are stored
+   * with single precision.
+   * 
+   * @return True if the waves are stored as floats
+   */
+  public boolean isSinglePrecision() {
+    return false;
+  }
+
+  /**
+   * Returns the range of points whose values of the reference wave are
+   * within an interval, e.g. a time window of a transient analysis. The
+   * reference wave must be monotonic, ascending or descending. The range is
+   * found with a binary search. When the plot is parsed lazily from a binary
+   * or cache file, only the values of the reference wave that are visited by
+   * the search are read.
+   * 
+   * @param from - first bound of the interval
+   * @param to   - second bound of the interval
+   * @return array with the index of the first point and the index after the
+   *         last point, both are equal when no point is within the interval,
+   *         <code>null</code> when the plot is closed or does not provide its
+   *         values
+   */
+  public int[] getRange(final double from, final double to) {
+
+    final IntToDoubleFunction ref = this.getReferenceValues();
+
+    if (ref == null) {
+      return null;
+    }
+
+    final double lower = Math.min(from, to);
+    final double upper = Math.max(from, to);
+    final int last = this.noOfPoints - 1;
+
+    final int first;
+    final int end;
+
+    if ((last > 0) && (ref.applyAsDouble(last) < ref.applyAsDouble(0))) {
+      first = search(i -> ref.applyAsDouble(i) <= upper, this.noOfPoints);
+      end = search(i -> ref.applyAsDouble(i) < lower, this.noOfPoints);
+    } else {
+      first = search(i -> ref.applyAsDouble(i) >= lower, this.noOfPoints);
+      end = search(i -> ref.applyAsDouble(i) > upper, this.noOfPoints);
+    }
+
+    return new int[] { first, Math.max(first, end) };
+  }
+
+  /**
+   * Returns the values of the reference wave by their index. Subclasses
+   * outside of this package do not provide their values.
+   * 
+   * @return function that returns the value of a point, <code>null</code>
+   *         when the plot is closed or does not provide its values
+   */
+  IntToDoubleFunction getReferenceValues() {
+    return null;
+  }
+
+  /**
+   * Check if a range of points is valid for this plot.
+   * 
+   * @param first - index of the first point
+   * @param last  - index after the last point
+   * @return <code>true</code> when the range is valid, <code>false</code>
+   *         otherwise
+   */
+  boolean isValidRange(final int first, final int last) {
+    return (first >= 0) && (first <= last) && (last <= this.noOfPoints);
+  }
+
+  /**
+   * Find the first index for which a condition holds. The condition must be
+   * <code>false</code> for all indices in front of this index and
+   * <code>true</code> afterwards.
+   * 
+   * @param condition - condition
+   * @param n         - number of indices
+   * @return index, <code>n</code> when the condition never holds
+   */
+  private static int search(final IntPredicate condition, final int n) {
+
+    int low = 0;
+    int high = n;
+    int mid;
+
+    while (low < high) {
+
+      mid = (low + high) >>> 1;
+
+      if (condition.test(mid)) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * Returns a read-only view on a range of values of an array.
+   * 
+   * @param values - values
+   * @param first  - index of the first value
+   * @param last   - index after the last value
+   * @return buffer that starts at the first value
+   */
+  static DoubleBuffer slice(final double[] values, final int first,
+      final int last) {
+    return DoubleBuffer.wrap(values, first, last - first).slice()
+        .asReadOnlyBuffer();
+  }
+
+  /**
+   * Returns a view on a range of values of a buffer.
+   * 
+   * @param buffer - buffer, starting at the first point of the plot
+   * @param first  - index of the first value
+   * @param last   - index after the last value
+   * @return buffer that starts at the first value
+   */
+  static DoubleBuffer slice(final DoubleBuffer buffer, final int first,
+      final int last) {
+
+    final DoubleBuffer view = buffer.duplicate();
+
+    // Cast to Buffer, the covariant overrides do not exist in Java 8
+    ((Buffer) view).limit(last);
+    ((Buffer) view).position(first);
+
+    return view.slice();
+  }
+
+  /**
+   * Reduce waveforms to a number of points for plotting by keeping the
+   * minimum and the maximum of each bucket of points. No peak is lost, a plot
+   * that is <code>noOfPoints / 2</code> pixels wide looks like a plot of all
+   * points. The waves are reduced in parallel. For complex plots, the
+   * magnitudes are reduced.
+   * 
+   * @param waves      - names of the waves
+   * @param noOfPoints - maximal number of points of each wave, at least 4
+   * @return map of the reduced waves in the order of the names,
+   *         <code>null</code> when a wave is not existing, the number of
+   *         points is too small, the plot is closed or does not provide
+   *         its values
+   */
+  public Map<String, DecimatedWave> getMinMax(final List<String> waves,
+      final int noOfPoints) {
+    return this.decimate(waves, 0, this.noOfPoints, noOfPoints, false);
+  }
+
+  /**
+   * Reduce waveforms within an interval of the reference wave, e.g. the
+   * visible time window of a transient analysis, see
+   * {@link #getMinMax(List, int)} and {@link #getRange(double, double)}.
+   * 
+   * @param waves      - names of the waves
+   * @param from       - first bound of the interval
+   * @param to         - second bound of the interval
+   * @param noOfPoints - maximal number of points of each wave, at least 4
+   * @return map of the reduced waves in the order of the names,
+   *         <code>null</code> when a wave is not existing, the number of
+   *         points is too small, the plot is closed or does not provide
+   *         its values
+   */
+  public Map<String, DecimatedWave> getMinMax(final List<String> waves,
+      final double from, final double to, final int noOfPoints) {
+
+    final int[] range = this.getRange(from, to);
+
+    if (range == null) {
+      return null;
+    }
+
+    return this.decimate(waves, range[0], range[1], noOfPoints, false);
+  }
+
+  /**
+   * Reduce waveforms to a number of points for plotting with the
+   * Largest-Triangle-Three-Buckets algorithm. The shape of the waves is kept
+   * with fewer points than with {@link #getMinMax(List, int)}, single peaks
+   * may be lost. The waves are reduced in parallel. For complex plots, the
+   * magnitudes are reduced.
+   * 
+   * @param waves      - names of the waves
+   * @param noOfPoints - maximal number of points of each wave, at least 3
+   * @return map of the reduced waves in the order of the names,
+   *         <code>null</code> when a wave is not existing, the number of
+   *         points is too small, the plot is closed or does not provide
+   *         its values
+   */
+  public Map<String, DecimatedWave> getLttb(final List<String> waves,
+      final int noOfPoints) {
+    return this.decimate(waves, 0, this.noOfPoints, noOfPoints, true);
+  }
+
+  /**
+   * Reduce waveforms within an interval of the reference wave, see
+   * {@link #getLttb(List, int)} and {@link #getRange(double, double)}.
+   * 
+   * @param waves      - names of the waves
+   * @param from       - first bound of the interval
+   * @param to         - second bound of the interval
+   * @param noOfPoints - maximal number of points of each wave, at least 3
+   * @return map of the reduced waves in the order of the names,
+   *         <code>null</code> when a wave is not existing, the number of
+   *         points is too small, the plot is closed or does not provide
+   *         its values
+   */
+  public Map<String, DecimatedWave> getLttb(final List<String> waves,
+      final double from, final double to, final int noOfPoints) {
+
+    final int[] range = this.getRange(from, to);
+
+    if (range == null) {
+      return null;
+    }
+
+    return this.decimate(waves, range[0], range[1], noOfPoints, true);
+  }
+
+  /**
+   * Reduce a range of points of waveforms, each wave is reduced as a
+   * separate task in the common pool.
+   * 
+   * @param waves      - names of the waves
+   * @param first      - index of the first point
+   * @param last       - index after the last point
+   * @param noOfPoints - maximal number of points of each wave
+   * @param lttb       - <code>true</code> for Largest-Triangle-Three-Buckets,
+   *                   <code>false</code> for min/max
+   * @return map of the reduced waves, <code>null</code> when not valid
+   */
+  private Map<String, DecimatedWave> decimate(final List<String> waves,
+      final int first, final int last, final int noOfPoints,
+      final boolean lttb) {
+
+    final int minPoints = lttb ? Decimator.LTTB_POINTS
+        : Decimator.MIN_MAX_POINTS;
+
+    if (noOfPoints < minPoints) {
+      System.err.println("At least " + minPoints
+          + " points are required for decimation");
+      return null;
+    }
+
+    for (final String wave : waves) {
+      if (!this.containsWave(wave)) {
+        return null;
+      }
+    }
+
+    final DoubleBuffer reference = this.getReference(first, last);
+
+    if (reference == null) {
+      return null;
+    }
+
+    final List<ForkJoinTask<DecimatedWave>> tasks = new ArrayList<>();
+
+    for (final String wave : waves) {
+      tasks.add(ForkJoinPool.commonPool().submit(() -> {
+
+        final DoubleBuffer values = this.getValues(wave, first, last);
+
+        if (values == null) {
+          return null;
+        } else if (lttb) {
+          return Decimator.lttb(wave, reference, values, noOfPoints);
+        } else {
+          return Decimator.minMax(wave, reference, values, noOfPoints);
+        }
+      }));
+    }
+
+    final Map<String, DecimatedWave> decimated = new LinkedHashMap<>();
+    DecimatedWave wave;
+
+    for (final ForkJoinTask<DecimatedWave> task : tasks) {
+
+      wave = task.join();
+
+      if (wave == null) {
+        return null;
+      }
+
+      decimated.put(wave.getName(), wave);
+    }
+
+    return decimated;
+  }
+
+  /**
+   * Returns a read-only view on a range of points of the reference wave. For
+   * complex plots, the view contains the real parts. Subclasses outside of
+   * this package do not provide their values.
+   * 
+   * @param first - index of the first point
+   * @param last  - index after the last point
+   * @return buffer that starts at the first point, <code>null</code> when
+   *         the plot is closed or does not provide its values
+   */
+  DoubleBuffer getReference(final int first, final int last) {
+    return null;
+  }
+
+  /**
+   * Returns a read-only view on a range of points of a wave that is used for
+   * decimation. For complex plots, the magnitudes are returned. Subclasses
+   * outside of this package do not provide their values.
+   * 
+   * @param wave  - name of the wave
+   * @param first - index of the first point
+   * @param last  - index after the last point
+   * @return buffer that starts at the first point, <code>null</code> when
+   *         the wave is not existing, the plot is closed or does not provide
+   *         its values
+   */
+  DoubleBuffer getValues(final String wave, final int first,
+      final int last) {
+    return null;
+  }
+
+  /**
+   * Returns if the plot is closed. The waves of a closed plot are not
+   * accessible anymore.
+   * 
+   * @return True if the plot is closed
+   */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Close the plot and release the memory of its waves. The waves cannot be
+   * accessed anymore, buffers that were returned by the plot remain valid.
+   * Memory outside of the heap and mappings of the waveform file are
+   * released by the garbage collector as soon as neither the plot nor a
+   * buffer refers to them.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+  }
+
   /**
    * Create a map from a list of {@link NutmegPlot}. The key corresponds to the
    * plotname and the value to the {@link NutmegPlot}
@@ -136,7 +518,19 @@ public abstract class NutmegPlot {
    * 
    * @return vcsv
    */
-  public abstract String toVirtuosoCommaSeperatedValues();
+  public String toVirtuosoCommaSeperatedValues() {
+
+    final StringWriter writer = new StringWriter();
+
+    try {
+      this.toVirtuosoCommaSeperatedValues(writer);
+    } catch (final IOException e) {
+      // a StringWriter does not throw
+      throw new UncheckedIOException(e);
+    }
+
+    return writer.toString();
+  }
 
   /**
    * Transform the {@link NutmegPlot} to a Virtuoso Comma Seperated Value
@@ -150,11 +544,159 @@ public abstract class NutmegPlot {
   public NutmegPlot toVirtuosoCommaSeperatedValues(final File file)
       throws IOException {
 
-    final FileWriter writer = new FileWriter(file);
+    try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+      this.toVirtuosoCommaSeperatedValues(writer);
+    }
+
+    return this;
+  }
+
+  /**
+   * Transform the {@link NutmegPlot} to a Virtuoso Comma Seperated Value
+   * representation and write it to a stream. The stream is flushed but not
+   * closed.
+   * 
+   * @param stream Stream where the csv is written
+   * 
+   * @return this
+   * @throws IOException when writing of the csv failed
+   */
+  public NutmegPlot toVirtuosoCommaSeperatedValues(final OutputStream stream)
+      throws IOException {
+
+    final Writer writer = new BufferedWriter(new OutputStreamWriter(stream));
+
+    this.toVirtuosoCommaSeperatedValues(writer);
+    writer.flush();
+
+    return this;
+  }
+
+  /**
+   * Transform the {@link NutmegPlot} to a Virtuoso Comma Seperated Value
+   * representation and write it to a writer. The csv is written point by
+   * point, the memory usage is independent of the number of points. The
+   * writer is neither flushed nor closed.
+   * 
+   * @param writer Writer where the csv is written
+   * 
+   * @return this
+   * @throws IOException when writing of the csv failed
+   */
+  public NutmegPlot toVirtuosoCommaSeperatedValues(final Writer writer)
+      throws IOException {
+
+    final VcsvWriter vcsv = new VcsvWriter(writer);
+    final List<String> waves = new ArrayList<>();
+
+    for (final String waveName : this.getWaves()) {
+      if (!waveName.equals(this.getRefWave())) {
+        waves.add(waveName);
+      }
+    }
+
+    vcsv.append(VCVS_VERSION).newline();
+
+    for (int i = 0; i < waves.size(); i++) {
+
+      if (i > 0) {
+        vcsv.append(VCVS_SEP);
+      }
+
+      vcsv.append(VCVS_DELIM).append(waves.get(i));
+    }
+
+    vcsv.newline();
+
+    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
+
+      if (i > 0) {
+        vcsv.append(VCVS_SEP);
+      }
+
+      vcsv.append(VCVS_DELIM).append(this.getVcsvType());
+    }
+
+    vcsv.newline();
+
+    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
+
+      if (i > 0) {
+        vcsv.append(VCVS_SEP);
+      }
+
+      vcsv.append(VCVS_DELIM).append(this.getVcsvFormat());
+    }
+
+    vcsv.newline();
+
+    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
 
-    writer.write(this.toVirtuosoCommaSeperatedValues());
-    writer.close();
+      if (i > 0) {
+        vcsv.append(VCVS_SEP);
+      }
+
+      vcsv.append(VCVS_DELIM).append(this.getRefWave()).append(" ")
+          .append(VCVS_SEP).append("-");
+    }
+
+    vcsv.newline();
+
+    for (int i = 0; i < waves.size(); i++) {
+
+      if (i > 0) {
+        vcsv.append(VCVS_SEP);
+      }
+
+      vcsv.append(VCVS_DELIM).append(this.getUnit(this.getRefWave()))
+          .append(" ").append(VCVS_SEP).append(this.getUnit(waves.get(i)));
+    }
+
+    this.writeVcsvValues(vcsv, waves);
+
+    vcsv.flush();
 
     return this;
   }
-}
\ No newline at end of file
+
+  /**
+   * Returns the type of the columns in a Virtuoso Comma Seperated Value
+   * representation, e.g. <code>X, Y</code>.
+   * 
+   * @return type
+   */
+  String getVcsvType() {
+    return this.isComplex() ? NutmegComplexPlot.VCVS_XYY
+        : NutmegRealPlot.VCVS_XY;
+  }
+
+  /**
+   * Returns the format of the columns in a Virtuoso Comma Seperated Value
+   * representation, e.g. <code>Re, Re</code>.
+   * 
+   * @return format
+   */
+  String getVcsvFormat() {
+    return this.isComplex() ? NutmegComplexPlot.VCVS_COMPLEX
+        : NutmegRealPlot.VCVS_REAL;
+  }
+
+  /**
+   * Write the values of all points in a Virtuoso Comma Seperated Value
+   * representation. Each point starts with a new line. The values are read
+   * in ranges of {@link #VCSV_POINTS} points, the waves are neither decoded
+   * completely nor kept in the plot. Value blocks without random access are
+   * decoded once in chunks of this size. Plots that do not provide their
+   * values to this package, i.e. subclasses outside of it, cannot be written
+   * and have to override {@link #toVirtuosoCommaSeperatedValues()}.
+   * 
+   * @param vcsv  Writer
+   * @param waves Names of the waves without the reference wave
+   * @throws IOException when writing of the values failed
+   */
+  void writeVcsvValues(final VcsvWriter vcsv, final List<String> waves)
+      throws IOException {
+    throw new IOException(
+        "Values of plot \"" + this.plotname + "\" cannot be written");
+  }
+}
@@ -0,0 +1,259 @@
+package edlab.eda.reader.nutmeg;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Metadata of a plot in a Nutmeg waveform file, obtained from the header of
+ * the plot without decoding any values.
+ */
+public final class NutmegPlotInfo {
+
+  /**
+   * Pattern for the name of the analysis in a plotname, e.g.
+   * <code>AC Analysis `ac': freq = (1 Hz -&gt; 1 GHz)</code>
+   */
+  private static final Pattern ANALYSIS_PATTERN = Pattern.compile("`(.*?)'");
+
+  private final String plotname;
+  private final boolean complex;
+  private final boolean binary;
+
+  /**
+   * <code>true</code> when the binary values are 4-byte floats
+   */
+  private final boolean singlePrecision;
+  private final List<String> varNames;
+  private final List<String> varUnits;
+  private final int noOfPoints;
+  private final long valueOffset;
+  private final long valueLength;
+
+  /**
+   * Positions of every {@link PlotIndex#CHECKPOINT_INTERVAL}-th point of an
+   * ASCII value block, <code>null</code> when the positions are not known
+   */
+  private final long[] checkpoints;
+
+  NutmegPlotInfo(final String plotname, final boolean complex,
+      final boolean binary, final String[] varNames, final String[] varUnits,
+      final int noOfPoints, final long valueOffset, final long valueLength) {
+    this(plotname, complex, binary, false, varNames, varUnits, noOfPoints,
+        valueOffset, valueLength, null);
+  }
+
+  NutmegPlotInfo(final String plotname, final boolean complex,
+      final boolean binary, final boolean singlePrecision,
+      final String[] varNames, final String[] varUnits, final int noOfPoints,
+      final long valueOffset, final long valueLength,
+      final long[] checkpoints) {
+    this.plotname = plotname;
+    this.complex = complex;
+    this.binary = binary;
+    this.singlePrecision = singlePrecision;
+    this.varNames = Collections.unmodifiableList(Arrays.asList(varNames));
+    this.varUnits = Collections.unmodifiableList(Arrays.asList(varUnits));
+    this.noOfPoints = noOfPoints;
+    this.valueOffset = valueOffset;
+    this.valueLength = valueLength;
+    this.checkpoints = checkpoints;
+  }
+
+  /**
+   * Create a copy of the metadata with the checkpoints of an ASCII value
+   * block.
+   *
+   * @param checkpoints - positions of every
+   *                    {@link PlotIndex#CHECKPOINT_INTERVAL}-th point
+   * @return metadata of the plot
+   */
+  NutmegPlotInfo withCheckpoints(final long[] checkpoints) {
+    return new NutmegPlotInfo(this.plotname, this.complex, this.binary,
+        this.singlePrecision, this.varNames.toArray(new String[0]),
+        this.varUnits.toArray(new String[0]), this.noOfPoints,
+        this.valueOffset, this.valueLength, checkpoints);
+  }
+
+  /**
+   * Getter for the plotname
+   *
+   * @return plotname
+   */
+  public String getPlotname() {
+    return this.plotname;
+  }
+
+  /**
+   * Returns the name of the analysis of the plot. Spectre writes the name of
+   * the analysis in backticks, e.g. <code>ac</code> for the plotname
+   * <code>AC Analysis `ac': freq = (1 Hz -&gt; 1 GHz)</code>. When the
+   * plotname contains no name in backticks, the plotname is returned.
+   *
+   * @return name of the analysis
+   */
+  public String getAnalysis() {
+
+    final Matcher matcher = ANALYSIS_PATTERN.matcher(this.plotname);
+
+    if (matcher.find()) {
+      return matcher.group(1);
+    } else {
+      return this.plotname;
+    }
+  }
+
+  /**
+   * Returns if the plot contains complex waves
+   *
+   * @return True if plot contains complex waves
+   */
+  public boolean isComplex() {
+    return this.complex;
+  }
+
+  /**
+   * Returns if the plot contains real waves
+   *
+   * @return True if plot contains real waves
+   */
+  public boolean isReal() {
+    return !this.complex;
+  }
+
+  /**
+   * Returns if the values of the plot are stored in binary syntax
+   *
+   * @return True if the values are binary, false if they are ASCII
+   */
+  public boolean isBinary() {
+    return this.binary;
+  }
+
+  /**
+   * Returns if the binary values of the plot are read as 4-byte floats
+   * instead of 8-byte doubles, see {@link NutReader#setBinaryValueSize(int)}.
+   *
+   * @return True if the values are 4-byte floats
+   */
+  public boolean isSinglePrecision() {
+    return this.singlePrecision;
+  }
+
+  /**
+   * Returns the number of variables in the header, including variables whose
+   * names occur more than once.
+   *
+   * @return number of variables
+   */
+  public int getNoOfVariables() {
+    return this.varNames.size();
+  }
+
+  /**
+   * Get number of points (length of wave).
+   *
+   * @return length of wave
+   */
+  public int getNoOfPoints() {
+    return this.noOfPoints;
+  }
+
+  /**
+   * Returns the names of all variables in the order of the header.
+   *
+   * @return list of names
+   */
+  public List<String> getVariableNames() {
+    return this.varNames;
+  }
+
+  /**
+   * Returns the units of all variables in the order of the header.
+   *
+   * @return list of units
+   */
+  public List<String> getVariableUnits() {
+    return this.varUnits;
+  }
+
+  /**
+   * Getter for the reference waveform
+   *
+   * @return refWave
+   */
+  public String getRefWave() {
+    return this.varNames.get(0);
+  }
+
+  /**
+   * Returns the position of the first value of the plot in the waveform file.
+   *
+   * @return offset in bytes
+   */
+  public long getValueOffset() {
+    return this.valueOffset;
+  }
+
+  /**
+   * Returns the length of the value block of the plot in the waveform file.
+   *
+   * @return length in bytes
+   */
+  public long getValueLength() {
+    return this.valueLength;
+  }
+
+  /**
+   * Returns the positions of every {@link PlotIndex#CHECKPOINT_INTERVAL}-th
+   * point of an ASCII value block.
+   *
+   * @return positions, <code>null</code> when the positions are not known
+   */
+  long[] getCheckpoints() {
+    return this.checkpoints;
+  }
+
+  /**
+   * Create a filter that accepts plots with a given plotname.
+   *
+   * @param plotname - plotname
+   * @return filter
+   */
+  public static Predicate<NutmegPlotInfo> byPlotname(final String plotname) {
+    return info -> info.plotname.equals(plotname);
+  }
+
+  /**
+   * Create a filter that accepts plots whose plotname matches a regular
+   * expression.
+   *
+   * @param pattern - regular expression for the complete plotname
+   * @return filter
+   */
+  public static Predicate<NutmegPlotInfo> byPlotname(final Pattern pattern) {
+    return info -> pattern.matcher(info.plotname).matches();
+  }
+
+  /**
+   * Create a filter that accepts plots of a given analysis, see
+   * {@link #getAnalysis()}.
+   *
+   * @param analysis - name of the analysis
+   * @return filter
+   */
+  public static Predicate<NutmegPlotInfo> byAnalysis(final String analysis) {
+    return info -> info.getAnalysis().equals(analysis);
+  }
+
+  @Override
+  public String toString() {
+    return this.plotname + " ("
+        + (this.complex ? NutReader.COMPLEX_ID : NutReader.REAL_ID) + ", "
+        + this.varNames.size() + " variables, " + this.noOfPoints
+        + " points)";
+  }
+}
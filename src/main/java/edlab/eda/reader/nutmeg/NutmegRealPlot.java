@@ -1,7 +1,12 @@
 package edlab.eda.reader.nutmeg;
 
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntToDoubleFunction;
 
 /**
  * Plot consisting of real waveforms
@@ -13,11 +18,38 @@ public final class NutmegRealPlot extends NutmegPlot {
 
   private final Map<String, double[]> waves;
 
+  /**
+   * Columns of the waves in the value block, <code>null</code> when all waves
+   * are already decoded
+   */
+  private final Map<String, Integer> columns;
+  private final ValueBlock block;
+
+  /**
+   * <code>true</code> when the values are stored outside of the heap and the
+   * decoded waves are not kept
+   */
+  private final boolean offHeap;
+
   private NutmegRealPlot(final String plotname, final int noOfVariables,
       final int noOfPoints, final String refWave,
       final Map<String, String> units, final Map<String, double[]> waves) {
     super(plotname, noOfVariables, noOfPoints, refWave, units);
     this.waves = waves;
+    this.columns = null;
+    this.block = null;
+    this.offHeap = false;
+  }
+
+  private NutmegRealPlot(final String plotname, final int noOfVariables,
+      final int noOfPoints, final String refWave,
+      final Map<String, String> units, final Map<String, Integer> columns,
+      final ValueBlock block, final boolean offHeap) {
+    super(plotname, noOfVariables, noOfPoints, refWave, units);
+    this.waves = new ConcurrentHashMap<>();
+    this.columns = columns;
+    this.block = block;
+    this.offHeap = offHeap;
   }
 
   /**
@@ -76,142 +108,346 @@ public final class NutmegRealPlot extends NutmegPlot {
     return plot;
   }
 
+  /**
+   * Create a plot whose waves are decoded from a value block on first access.
+   * 
+   * @param plotname      Name of the plot
+   * @param noOfVariables Number of variables
+   * @param noOfPoints    Number of points
+   * @param refWave       Name of reference waveform
+   * @param units         Units
+   * @param columns       Columns of the waves in the value block
+   * @param block         Value block
+   * @param offHeap       <code>true</code> when the block is stored outside
+   *                      of the heap and decoded waves are not kept,
+   *                      <code>false</code> otherwise
+   * @return nutmegRealPlot
+   */
+  static NutmegRealPlot make(final String plotname, final int noOfVariables,
+      final int noOfPoints, final String refWave,
+      final Map<String, String> units, final Map<String, Integer> columns,
+      final ValueBlock block, final boolean offHeap) {
+
+    if ((noOfVariables != units.size()) || (noOfVariables != columns.size())
+        || (block.getNoOfPoints() != noOfPoints) || block.isComplex()) {
+      return null;
+    }
+
+    for (final String wave : units.keySet()) {
+      if (units.get(wave) == null) {
+        return null;
+      }
+    }
+
+    for (final String wave : columns.keySet()) {
+      if (!units.containsKey(wave)) {
+        return null;
+      }
+    }
+
+    return new NutmegRealPlot(plotname, noOfVariables, noOfPoints, refWave,
+        units, columns, block, offHeap);
+  }
+
   @Override
   public boolean containsWave(final String wave) {
-    return this.waves.containsKey(wave);
+    if (this.columns == null) {
+      return this.waves.containsKey(wave);
+    } else {
+      return this.columns.containsKey(wave);
+    }
   }
 
   @Override
   public Set<String> getWaves() {
-    return this.waves.keySet();
+    if (this.columns == null) {
+      return this.waves.keySet();
+    } else {
+      return this.columns.keySet();
+    }
   }
 
   /**
-   * Returns a waveform with a given name.
+   * Returns a waveform with a given name. When the plot was parsed lazily,
+   * the wave is decoded on first access. When the plot is stored outside of
+   * the heap or with single precision, the wave is copied to a new array on
+   * each call.
    * 
    * @param wave name of the wave
-   * @return wave as a double array if existing, <code>null</code> otherwise.
+   * @return wave as a double array if existing, <code>null</code> otherwise
+   *         or when the plot is closed.
    */
   public double[] getWave(final String wave) {
-    return this.waves.get(wave);
+
+    if (this.isClosed()) {
+      return null;
+    } else if (this.columns == null) {
+      return this.waves.get(wave);
+    } else if (!this.columns.containsKey(wave)) {
+      return null;
+    } else if (this.offHeap || this.block.isSinglePrecision()) {
+      return this.block.decodeReal(this.columns.get(wave));
+    }
+
+    return this.waves.computeIfAbsent(wave,
+        name -> this.block.decodeReal(this.columns.get(name)));
   }
 
-  @Override
-  public boolean isComplex() {
-    return false;
+  /**
+   * Returns a waveform with a given name with single precision. When the
+   * plot is stored with single precision, the stored array is returned and
+   * must not be modified. Otherwise, and for the reference wave, the values
+   * are converted to a new array.
+   * 
+   * @param wave name of the wave
+   * @return wave as a float array if existing, <code>null</code> otherwise
+   *         or when the plot is closed.
+   */
+  public float[] getFloatWave(final String wave) {
+
+    if (this.isClosed()) {
+      return null;
+    } else if ((this.columns != null) && this.block.isSinglePrecision()) {
+
+      final Integer column = this.columns.get(wave);
+
+      if (column == null) {
+        return null;
+      }
+
+      return this.block.decodeRealFloat(column);
+    }
+
+    return ValueBlock.toFloat(this.getWave(wave));
   }
 
-  @Override
-  public boolean isReal() {
-    return true;
+  /**
+   * Returns a read-only view on a waveform with a given name. When the plot
+   * is stored outside of the heap, the view shares the memory of the plot
+   * and no values are copied. The view remains valid after the plot is
+   * closed.
+   * 
+   * @param wave name of the wave
+   * @return wave as a buffer if existing, <code>null</code> otherwise or when
+   *         the plot is closed.
+   */
+  public DoubleBuffer getBuffer(final String wave) {
+
+    if (this.isClosed()) {
+      return null;
+    } else if (this.offHeap && this.columns.containsKey(wave)) {
+
+      final DoubleBuffer buffer = this.block
+          .getColumn(this.columns.get(wave), false);
+
+      if (buffer != null) {
+        return buffer;
+      }
+    }
+
+    final double[] values = this.getWave(wave);
+
+    if (values == null) {
+      return null;
+    }
+
+    return DoubleBuffer.wrap(values).asReadOnlyBuffer();
   }
 
-  @Override
-  public String toVirtuosoCommaSeperatedValues() {
+  /**
+   * Returns a read-only view on the values of a waveform whose values of the
+   * reference wave are within an interval, e.g. a time window of a transient
+   * analysis. The range of points is found with a binary search, see
+   * {@link #getRange(double, double)}, and the view is created with
+   * {@link #getBuffer(String, int, int)}.
+   * 
+   * @param wave name of the wave
+   * @param from first bound of the interval
+   * @param to   second bound of the interval
+   * @return wave as a buffer if existing, <code>null</code> otherwise or when
+   *         the plot is closed.
+   */
+  public DoubleBuffer getWave(final String wave, final double from,
+      final double to) {
 
-    final StringBuilder builder = new StringBuilder(VCVS_VERSION)
-        .append(VCVS_NEWLINE);
+    final int[] range = this.getRange(from, to);
 
-    boolean first = true;
+    if (range == null) {
+      return null;
+    }
 
-    for (final String waveName : this.getWaves()) {
+    return this.getBuffer(wave, range[0], range[1]);
+  }
 
-      if (!waveName.equals(this.getRefWave())) {
+  /**
+   * Returns a read-only view on a range of points of a waveform. When the
+   * wave is already decoded or stored outside of the heap, the view shares
+   * the memory of the plot and no values are copied. Otherwise only the
+   * range of points is decoded, e.g. from the mapped waveform file of a plot
+   * that was parsed lazily. The view remains valid after the plot is
+   * closed.
+   * 
+   * @param wave  name of the wave
+   * @param first index of the first point
+   * @param last  index after the last point
+   * @return wave as a buffer if existing, <code>null</code> otherwise, when
+   *         the range is not valid or when the plot is closed.
+   */
+  public DoubleBuffer getBuffer(final String wave, final int first,
+      final int last) {
 
-        if (first) {
-          first = false;
-        } else {
-          builder.append(VCVS_SEP);
-        }
+    if (this.isClosed() || !this.containsWave(wave)
+        || !this.isValidRange(first, last)) {
+      return null;
+    } else if (this.columns == null) {
+      return slice(this.waves.get(wave), first, last);
+    }
+
+    final int column = this.columns.get(wave);
 
-        builder.append(VCVS_DELIM).append(waveName);
+    if (this.offHeap) {
+
+      final DoubleBuffer buffer = this.block.getColumn(column, false);
+
+      if (buffer != null) {
+        return slice(buffer, first, last);
       }
     }
 
-    builder.append(VCVS_NEWLINE);
+    final double[] values = this.waves.get(wave);
 
-    first = true;
+    if (values != null) {
+      return slice(values, first, last);
+    }
 
-    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
+    final double[][] parts = this.block.decodeSlice(column, first, last);
 
-      if (first) {
-        first = false;
-      } else {
-        builder.append(VCVS_SEP);
-      }
+    if (parts == null) {
+      return null;
+    }
+
+    return DoubleBuffer.wrap(parts[0]).asReadOnlyBuffer();
+  }
+
+  @Override
+  DoubleBuffer getReference(final int first, final int last) {
+    return this.getBuffer(this.getRefWave(), first, last);
+  }
+
+  @Override
+  DoubleBuffer getValues(final String wave, final int first,
+      final int last) {
+    return this.getBuffer(wave, first, last);
+  }
 
-      builder.append(VCVS_DELIM).append(VCVS_XY);
+  @Override
+  IntToDoubleFunction getReferenceValues() {
+
+    if (this.isClosed()) {
+      return null;
+    } else if ((this.columns != null) && this.block.isRandomAccess()
+        && !this.waves.containsKey(this.getRefWave())) {
+      // the reference wave is read point by point from the block
+      return point -> this.block.getReal(0, point);
     }
 
-    builder.append(VCVS_NEWLINE);
+    final double[] values = this.getWave(this.getRefWave());
 
-    first = true;
+    if (values == null) {
+      return null;
+    }
 
-    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
+    return point -> values[point];
+  }
 
-      if (first) {
-        first = false;
-      } else {
-        builder.append(VCVS_SEP);
-      }
+  @Override
+  public boolean isOffHeap() {
+    return this.offHeap;
+  }
+
+  @Override
+  public boolean isSinglePrecision() {
+    return (this.block != null) && this.block.isSinglePrecision();
+  }
 
-      builder.append(VCVS_DELIM).append(VCVS_REAL);
+  @Override
+  public void close() {
+
+    super.close();
+
+    if (this.columns != null) {
+      this.waves.clear();
+      this.block.close();
     }
+  }
 
-    builder.append(VCVS_NEWLINE);
-    first = true;
+  @Override
+  public boolean isComplex() {
+    return false;
+  }
 
-    for (int i = 0; i < (this.getNoOfWaves() - 1); i++) {
+  @Override
+  public boolean isReal() {
+    return true;
+  }
 
-      if (first) {
-        first = false;
-      } else {
-        builder.append(VCVS_SEP);
+  @Override
+  void writeVcsvValues(final VcsvWriter vcsv, final List<String> waves)
+      throws IOException {
+
+    if (this.isClosed()) {
+      throw new IOException("Values of a closed plot cannot be read");
+    } else if ((this.columns != null) && !this.block.isRandomAccess()) {
+
+      // ranges would be decoded from the start of the block again and again
+      final int[] columns = new int[waves.size() + 1];
+      columns[0] = this.columns.get(this.getRefWave());
+
+      for (int i = 0; i < waves.size(); i++) {
+        columns[i + 1] = this.columns.get(waves.get(i));
       }
 
-      builder.append(VCVS_DELIM).append(this.getRefWave()).append(" ")
-          .append(VCVS_SEP).append("-");
+      vcsv.writeValues(this.block, columns);
+      return;
     }
 
-    builder.append(VCVS_NEWLINE);
-    first = true;
+    final DoubleBuffer[] values = new DoubleBuffer[waves.size()];
+    DoubleBuffer refWave;
+    int last;
 
-    for (final String waveName : this.getWaves()) {
+    for (int first = 0; first < this.getNoOfPoints(); first = last) {
 
-      if (!waveName.equals(this.getRefWave())) {
+      last = Math.min(first + VCSV_POINTS, this.getNoOfPoints());
+      refWave = this.getBuffer(this.getRefWave(), first, last);
 
-        if (first) {
-          first = false;
-        } else {
-          builder.append(VCVS_SEP);
-        }
+      for (int i = 0; i < values.length; i++) {
+        values[i] = this.getBuffer(waves.get(i), first, last);
 
-        builder.append(VCVS_DELIM).append(this.getUnit(this.getRefWave()))
-            .append(" ").append(VCVS_SEP).append(this.getUnit(waveName));
+        if (values[i] == null) {
+          throw new IOException("Values of wave \"" + waves.get(i)
+              + "\" cannot be read");
+        }
       }
-    }
 
-    for (int i = 0; i < this.getNoOfPoints(); i++) {
+      if (refWave == null) {
+        throw new IOException("Values of wave \"" + this.getRefWave()
+            + "\" cannot be read");
+      }
 
-      builder.append(VCVS_NEWLINE);
-      first = true;
+      for (int i = 0; i < (last - first); i++) {
 
-      for (final String waveName : this.getWaves()) {
+        vcsv.newline();
 
-        if (!waveName.equals(this.getRefWave())) {
+        for (int j = 0; j < values.length; j++) {
 
-          if (first) {
-            first = false;
-          } else {
-            builder.append(VCVS_SEP);
+          if (j > 0) {
+            vcsv.append(VCVS_SEP);
           }
 
-          builder.append(this.getWave(this.getRefWave())[i]).append(VCVS_SEP)
-              .append(this.getWave(waveName)[i]);
+          vcsv.append(refWave.get(i)).append(VCVS_SEP)
+              .append(values[j].get(i));
         }
       }
     }
-
-    return builder.toString();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,463 @@
+package edlab.eda.reader.nutmeg;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Resampler for waveforms onto a common reference grid, e.g. for comparing
+ * transient analyses with adaptive time steps. The grid is either given
+ * explicitly or created with a uniform step over the interval that is
+ * covered by all plots. For each plot, the segments of the reference wave
+ * that contain the points of the grid are found in a single pass, the waves
+ * are then interpolated in parallel. The resampled plots are stored on the
+ * heap and share the array of the grid as reference wave.
+ */
+public final class NutmegResampler {
+
+  /**
+   * Grid, <code>null</code> when the grid is created with a uniform step
+   */
+  private final double[] grid;
+  private final double step;
+  private boolean cubic = false;
+
+  private NutmegResampler(final double[] grid, final double step) {
+    this.grid = grid;
+    this.step = step;
+  }
+
+  /**
+   * Creates a {@link NutmegResampler} for a grid.
+   *
+   * @param grid Values of the reference wave after resampling in ascending
+   *             order. The array is shared by all resampled plots and must
+   *             not be modified afterwards.
+   * @return nutmegResampler - resampler, <code>null</code> when the grid is
+   *         not ascending
+   */
+  public static NutmegResampler getNutmegResampler(final double[] grid) {
+
+    if ((grid.length == 0) || !isAscending(DoubleBuffer.wrap(grid))) {
+      System.err.println("Grid must not be empty and must be ascending");
+      return null;
+    }
+
+    return new NutmegResampler(grid, Double.NaN);
+  }
+
+  /**
+   * Creates a {@link NutmegResampler} for a uniform grid. The grid starts at
+   * the largest first value of the reference waves of the plots and ends at
+   * the smallest last value, such that it is covered by all plots.
+   *
+   * @param step Distance of the points of the grid
+   * @return nutmegResampler - resampler, <code>null</code> when the step is
+   *         not positive
+   */
+  public static NutmegResampler getNutmegResampler(final double step) {
+
+    if (!(step > 0.0) || Double.isInfinite(step)) {
+      System.err.println("Step " + step + " is not positive");
+      return null;
+    }
+
+    return new NutmegResampler(null, step);
+  }
+
+  /**
+   * Interpolate with cubic Hermite polynomials instead of straight lines.
+   * The slopes at the points of the reference wave are estimated from the
+   * neighbouring points, such that each value depends on four points.
+   *
+   * @param cubic <code>true</code> for cubic interpolation,
+   *              <code>false</code> for linear interpolation (default)
+   * @return nutmegResampler - this resampler
+   */
+  public NutmegResampler setCubic(final boolean cubic) {
+    this.cubic = cubic;
+    return this;
+  }
+
+  /**
+   * Resample a plot, see {@link #resample(List)}.
+   *
+   * @param plot Plot
+   * @return resampled plot, <code>null</code> when the plot cannot be
+   *         resampled
+   */
+  public NutmegPlot resample(final NutmegPlot plot) {
+
+    final List<NutmegPlot> plots = this.resample(
+        Collections.singletonList(plot));
+
+    if (plots == null) {
+      return null;
+    }
+
+    return plots.get(0);
+  }
+
+  /**
+   * Resample plots onto the grid. The reference wave of each plot must be
+   * ascending. The waves of all plots are interpolated in parallel. Values
+   * at points of the grid that are not covered by a plot are
+   * {@link Double#NaN}. Complex waves are interpolated by their real and
+   * imaginary parts.
+   *
+   * @param plots Plots
+   * @return resampled plots in the same order, <code>null</code> when a plot
+   *         cannot be resampled
+   */
+  public List<NutmegPlot> resample(final List<NutmegPlot> plots) {
+
+    final List<DoubleBuffer> references = new ArrayList<>(plots.size());
+    DoubleBuffer reference;
+
+    for (final NutmegPlot plot : plots) {
+
+      reference = plot.getReference(0, plot.getNoOfPoints());
+
+      if ((reference == null) || (plot.getNoOfPoints() == 0)) {
+        System.err.println("Plot " + plot.getPlotname() + " is not valid");
+        return null;
+      } else if (!isAscending(reference)) {
+        System.err.println("Reference wave of plot " + plot.getPlotname()
+            + " is not ascending");
+        return null;
+      }
+
+      references.add(reference);
+    }
+
+    final double[] grid = this.grid != null ? this.grid
+        : this.makeGrid(references);
+
+    if (grid == null) {
+      return null;
+    }
+
+    // imaginary parts of the reference waves of complex plots
+    final double[] zeros = new double[grid.length];
+
+    final List<List<ForkJoinTask<double[][]>>> tasks = new ArrayList<>();
+
+    for (int i = 0; i < plots.size(); i++) {
+
+      final NutmegPlot plot = plots.get(i);
+      final Segments segments = new Segments(references.get(i), grid);
+      final List<ForkJoinTask<double[][]>> plotTasks = new ArrayList<>();
+
+      for (final String wave : plot.getWaves()) {
+        if (!wave.equals(plot.getRefWave())) {
+          plotTasks.add(ForkJoinPool.commonPool()
+              .submit(() -> this.interpolate(plot, wave, segments)));
+        }
+      }
+
+      tasks.add(plotTasks);
+    }
+
+    final List<NutmegPlot> resampled = new ArrayList<>(plots.size());
+
+    for (int i = 0; i < plots.size(); i++) {
+
+      final NutmegPlot plot = plots.get(i);
+      final Map<String, String> units = new HashMap<>();
+      final Map<String, double[]> realParts = new HashMap<>();
+      final Map<String, double[]> imagParts = new HashMap<>();
+
+      int task = 0;
+      double[][] parts;
+
+      for (final String wave : plot.getWaves()) {
+
+        units.put(wave, plot.getUnit(wave));
+
+        if (wave.equals(plot.getRefWave())) {
+          parts = new double[][] { grid, zeros };
+        } else {
+          parts = tasks.get(i).get(task++).join();
+        }
+
+        if (parts == null) {
+          return null;
+        }
+
+        realParts.put(wave, parts[0]);
+        imagParts.put(wave, parts[1]);
+      }
+
+      if (plot.isComplex()) {
+        resampled.add(NutmegComplexPlot.make(plot.getPlotname(),
+            plot.getNoOfWaves(), grid.length, plot.getRefWave(), units,
+            realParts, imagParts));
+      } else {
+        resampled.add(NutmegRealPlot.make(plot.getPlotname(),
+            plot.getNoOfWaves(), grid.length, plot.getRefWave(), units,
+            realParts));
+      }
+    }
+
+    return resampled;
+  }
+
+  /**
+   * Interpolate a wave of a plot.
+   *
+   * @param plot     - plot
+   * @param wave     - name of the wave
+   * @param segments - segments of the reference wave
+   * @return real and imaginary parts, the imaginary parts are
+   *         <code>null</code> for real plots, <code>null</code> when the wave
+   *         cannot be accessed
+   */
+  private double[][] interpolate(final NutmegPlot plot, final String wave,
+      final Segments segments) {
+
+    final DoubleBuffer[] buffers;
+
+    if (plot.isComplex()) {
+      buffers = ((NutmegComplexPlot) plot).getBuffers(wave, 0,
+          plot.getNoOfPoints());
+    } else {
+      buffers = new DoubleBuffer[] {
+          ((NutmegRealPlot) plot).getBuffer(wave, 0, plot.getNoOfPoints()) };
+    }
+
+    if ((buffers == null) || (buffers[0] == null)) {
+      return null;
+    }
+
+    final double[][] parts = new double[2][];
+
+    for (int i = 0; i < buffers.length; i++) {
+      parts[i] = this.cubic ? segments.cubic(buffers[i])
+          : segments.linear(buffers[i]);
+    }
+
+    return parts;
+  }
+
+  /**
+   * Create a uniform grid over the interval that is covered by all
+   * reference waves.
+   *
+   * @param references - reference waves
+   * @return grid, <code>null</code> when the reference waves do not overlap
+   */
+  private double[] makeGrid(final List<DoubleBuffer> references) {
+
+    double start = Double.NEGATIVE_INFINITY;
+    double stop = Double.POSITIVE_INFINITY;
+
+    for (final DoubleBuffer reference : references) {
+      start = Math.max(start, reference.get(0));
+      stop = Math.min(stop, reference.get(reference.remaining() - 1));
+    }
+
+    // tolerance for the rounding of the last point
+    final double noOfSteps = Math.floor(((stop - start) / this.step) + 1e-9);
+
+    if (!(noOfSteps >= 0.0)) {
+      System.err.println("Reference waves do not overlap");
+      return null;
+    } else if (noOfSteps >= Integer.MAX_VALUE) {
+      System.err.println("Grid with step " + this.step + " is too large");
+      return null;
+    }
+
+    final double[] grid = new double[(int) noOfSteps + 1];
+
+    // the rounding of the last points must not leave the interval
+    for (int i = 0; i < grid.length; i++) {
+      grid[i] = Math.min(start + (i * this.step), stop);
+    }
+
+    return grid;
+  }
+
+  /**
+   * Check if values are in ascending order, equal values are allowed.
+   *
+   * @param values - values
+   * @return <code>true</code> when ascending, <code>false</code> otherwise
+   */
+  private static boolean isAscending(final DoubleBuffer values) {
+
+    for (int i = 1; i < values.remaining(); i++) {
+      if (!(values.get(i) >= values.get(i - 1))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Segments of a reference wave that contain the points of a grid. They
+   * are computed once per plot and used for all waves of the plot.
+   */
+  private static final class Segments {
+
+    private final DoubleBuffer reference;
+
+    /**
+     * Index of the first point of the segment per point of the grid, -1 when
+     * the point is not covered by the reference wave
+     */
+    private final int[] index;
+
+    /**
+     * Relative position of the point of the grid in the segment
+     */
+    private final double[] position;
+
+    /**
+     * Find the segments in a single pass over the reference wave and the
+     * grid, both are ascending.
+     *
+     * @param reference - reference wave
+     * @param grid      - grid
+     */
+    private Segments(final DoubleBuffer reference, final double[] grid) {
+
+      this.reference = reference;
+      this.index = new int[grid.length];
+      this.position = new double[grid.length];
+
+      final int last = reference.remaining() - 1;
+
+      int k = 0;
+      double width;
+
+      for (int i = 0; i < grid.length; i++) {
+
+        if ((grid[i] < reference.get(0)) || (grid[i] > reference.get(last))) {
+          this.index[i] = -1;
+          continue;
+        }
+
+        while ((k < (last - 1)) && (reference.get(k + 1) < grid[i])) {
+          k++;
+        }
+
+        this.index[i] = k;
+
+        width = (k < last) ? reference.get(k + 1) - reference.get(k) : 0.0;
+
+        // the point is at the start of an empty segment
+        this.position[i] = width > 0.0
+            ? (grid[i] - reference.get(k)) / width
+            : 0.0;
+      }
+    }
+
+    /**
+     * Interpolate a wave linearly.
+     *
+     * @param values - values of the wave
+     * @return values at the points of the grid
+     */
+    private double[] linear(final DoubleBuffer values) {
+
+      final double[] result = new double[this.index.length];
+
+      int k;
+      double t;
+
+      for (int i = 0; i < result.length; i++) {
+
+        k = this.index[i];
+        t = this.position[i];
+
+        if (k < 0) {
+          result[i] = Double.NaN;
+        } else if (t == 0.0) {
+          result[i] = values.get(k);
+        } else {
+          result[i] = values.get(k)
+              + (t * (values.get(k + 1) - values.get(k)));
+        }
+      }
+
+      return result;
+    }
+
+    /**
+     * Interpolate a wave with cubic Hermite polynomials.
+     *
+     * @param values - values of the wave
+     * @return values at the points of the grid
+     */
+    private double[] cubic(final DoubleBuffer values) {
+
+      final double[] result = new double[this.index.length];
+
+      int k;
+      double t;
+      double h;
+
+      for (int i = 0; i < result.length; i++) {
+
+        k = this.index[i];
+        t = this.position[i];
+
+        if (k < 0) {
+          result[i] = Double.NaN;
+        } else if (t == 0.0) {
+          result[i] = values.get(k);
+        } else {
+
+          h = this.reference.get(k + 1) - this.reference.get(k);
+
+          result[i] = (((((2.0 * t) - 3.0) * t * t) + 1.0) * values.get(k))
+              + ((((t - 2.0) * t) + 1.0) * t * h * this.slope(values, k))
+              + (((3.0 - (2.0 * t)) * t * t) * values.get(k + 1))
+              + ((t - 1.0) * t * t * h * this.slope(values, k + 1));
+        }
+      }
+
+      return result;
+    }
+
+    /**
+     * Estimate the slope of a wave at a point of the reference wave. The
+     * slopes of the neighbouring segments are weighted with the width of the
+     * other segment, which is exact for parabolas also with varying steps.
+     *
+     * @param values - values of the wave
+     * @param k      - index of the point
+     * @return slope
+     */
+    private double slope(final DoubleBuffer values, final int k) {
+
+      final int last = values.remaining() - 1;
+
+      final double before = k > 0
+          ? this.reference.get(k) - this.reference.get(k - 1)
+          : 0.0;
+      final double after = k < last
+          ? this.reference.get(k + 1) - this.reference.get(k)
+          : 0.0;
+
+      if (!(before > 0.0) && !(after > 0.0)) {
+        return 0.0;
+      } else if (!(before > 0.0)) {
+        return (values.get(k + 1) - values.get(k)) / after;
+      } else if (!(after > 0.0)) {
+        return (values.get(k) - values.get(k - 1)) / before;
+      }
+
+      return (((after / (before + after))
+          * ((values.get(k) - values.get(k - 1)) / before))
+          + ((before / (before + after))
+              * ((values.get(k + 1) - values.get(k)) / after)));
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package edlab.eda.reader.nutmeg;
+
+/**
+ * Handler for the plots of a Nutmeg waveform file that is streamed with
+ * {@link NutReader#stream(PlotHandler)}. For each plot,
+ * {@link #startPlot(NutmegPlotInfo)} is called first, followed by
+ * {@link #points(PointChunk)} for consecutive chunks of points and
+ * {@link #endPlot()}.
+ */
+public interface PlotHandler {
+
+  /**
+   * Called before the first chunk of points of a plot.
+   *
+   * @param info - metadata of the plot
+   */
+  void startPlot(NutmegPlotInfo info);
+
+  /**
+   * Called for each chunk of points of a plot. The chunk and its buffers are
+   * reused for the next chunk, the values must be copied when they are needed
+   * after this method returns.
+   *
+   * @param chunk - chunk of points
+   */
+  void points(PointChunk chunk);
+
+  /**
+   * Called after the last chunk of points of a plot. The method is also
+   * called when the values of the plot cannot be decoded, streaming is
+   * stopped afterwards.
+   */
+  void endPlot();
+}
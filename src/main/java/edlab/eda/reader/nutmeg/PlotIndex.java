@@ -0,0 +1,255 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sidecar index of a Nutmeg waveform file. The index contains the headers of
+ * all plots and the positions of their value blocks. For ASCII value blocks,
+ * the position of every {@link #CHECKPOINT_INTERVAL}-th point is stored as
+ * well. The index is invalidated when the size or the modification time of
+ * the waveform file changes.
+ */
+final class PlotIndex {
+
+  /**
+   * File extension of an index
+   */
+  static final String EXTENSION = ".nutidx";
+
+  /**
+   * Number of points between two checkpoints of an ASCII value block
+   */
+  static final int CHECKPOINT_INTERVAL = 1024;
+
+  private static final int MAGIC = 0x4E555449;
+  private static final int VERSION = 2;
+
+  private PlotIndex() {
+  }
+
+  /**
+   * Returns the index file of a waveform file.
+   *
+   * @param file - waveform file
+   * @return index file
+   */
+  static File getIndexFile(final File file) {
+    return new File(file.getPath() + EXTENSION);
+  }
+
+  /**
+   * Read the index of a waveform file.
+   *
+   * @param file - waveform file
+   * @return metadata of all plots, <code>null</code> when no valid index
+   *         exists
+   */
+  static List<NutmegPlotInfo> read(final File file) {
+
+    final File indexFile = getIndexFile(file);
+
+    if (!indexFile.isFile()) {
+      return null;
+    }
+
+    try (DataInputStream stream = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(indexFile)))) {
+
+      if ((stream.readInt() != MAGIC) || (stream.readInt() != VERSION)
+          || (stream.readLong() != file.length())
+          || (stream.readLong() != file.lastModified())) {
+        return null;
+      }
+
+      final int noOfPlots = stream.readInt();
+      final List<NutmegPlotInfo> infos = new ArrayList<>(noOfPlots);
+
+      for (int i = 0; i < noOfPlots; i++) {
+        infos.add(readInfo(stream));
+      }
+
+      return infos;
+
+    } catch (final IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Write the index of a waveform file. The index is written to a temporary
+   * file which then replaces the index, concurrent readers never see a
+   * partially written index.
+   *
+   * @param file  - waveform file
+   * @param infos - metadata of all plots
+   * @return <code>true</code> when the index was written, <code>false</code>
+   *         otherwise
+   */
+  static boolean write(final File file, final List<NutmegPlotInfo> infos) {
+
+    final File indexFile = getIndexFile(file);
+    final File tmpFile = new File(indexFile.getPath() + ".tmp");
+
+    try (DataOutputStream stream = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+
+      stream.writeInt(MAGIC);
+      stream.writeInt(VERSION);
+      stream.writeLong(file.length());
+      stream.writeLong(file.lastModified());
+      stream.writeInt(infos.size());
+
+      for (final NutmegPlotInfo info : infos) {
+        writeInfo(stream, info);
+      }
+
+    } catch (final IOException e) {
+      System.err.println("Unable to write index " + indexFile);
+      tmpFile.delete();
+      return false;
+    }
+
+    try {
+      try {
+        Files.move(tmpFile.toPath(), indexFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile.toPath(), indexFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (final IOException e) {
+      System.err.println("Unable to write index " + indexFile);
+      tmpFile.delete();
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Find the checkpoints of an ASCII value block. A point starts with a line
+   * that does not start with a tab, see {@link AsciiValueBlock}.
+   *
+   * @param source - source of the waveform file
+   * @param info   - metadata of the plot
+   * @return positions of every {@link #CHECKPOINT_INTERVAL}-th point,
+   *         <code>null</code> when the points cannot be located
+   */
+  static long[] findCheckpoints(final ByteSource source,
+      final NutmegPlotInfo info) {
+
+    final long end = info.getValueOffset() + info.getValueLength();
+    final long[] checkpoints = new long[((info.getNoOfPoints() - 1)
+        / CHECKPOINT_INTERVAL) + 1];
+
+    long pos = info.getValueOffset();
+    int point = 0;
+    byte b;
+
+    while (pos < end) {
+
+      b = source.get(pos);
+
+      if ((b != '\t') && (b != '\n') && (b != '\r')) {
+
+        if ((point % CHECKPOINT_INTERVAL) == 0) {
+          checkpoints[point / CHECKPOINT_INTERVAL] = pos;
+        }
+
+        // The block can end with the title of the next plot
+        if (++point == info.getNoOfPoints()) {
+          return checkpoints;
+        }
+      }
+
+      while ((pos < end) && (source.get(pos) != '\n')) {
+        pos++;
+      }
+
+      pos++;
+    }
+
+    return null;
+  }
+
+  private static NutmegPlotInfo readInfo(final DataInputStream stream)
+      throws IOException {
+
+    final String plotname = stream.readUTF();
+    final boolean complex = stream.readBoolean();
+    final boolean binary = stream.readBoolean();
+    final boolean singlePrecision = stream.readBoolean();
+    final int noOfPoints = stream.readInt();
+    final long valueOffset = stream.readLong();
+    final long valueLength = stream.readLong();
+
+    final int noOfVars = stream.readInt();
+    final String[] varNames = new String[noOfVars];
+    final String[] varUnits = new String[noOfVars];
+
+    for (int i = 0; i < noOfVars; i++) {
+      varNames[i] = stream.readUTF();
+      varUnits[i] = stream.readUTF();
+    }
+
+    final int noOfCheckpoints = stream.readInt();
+    long[] checkpoints = null;
+
+    if (noOfCheckpoints >= 0) {
+
+      checkpoints = new long[noOfCheckpoints];
+
+      for (int i = 0; i < noOfCheckpoints; i++) {
+        checkpoints[i] = stream.readLong();
+      }
+    }
+
+    return new NutmegPlotInfo(plotname, complex, binary, singlePrecision,
+        varNames, varUnits, noOfPoints, valueOffset, valueLength,
+        checkpoints);
+  }
+
+  private static void writeInfo(final DataOutputStream stream,
+      final NutmegPlotInfo info) throws IOException {
+
+    stream.writeUTF(info.getPlotname());
+    stream.writeBoolean(info.isComplex());
+    stream.writeBoolean(info.isBinary());
+    stream.writeBoolean(info.isSinglePrecision());
+    stream.writeInt(info.getNoOfPoints());
+    stream.writeLong(info.getValueOffset());
+    stream.writeLong(info.getValueLength());
+    stream.writeInt(info.getNoOfVariables());
+
+    for (int i = 0; i < info.getNoOfVariables(); i++) {
+      stream.writeUTF(info.getVariableNames().get(i));
+      stream.writeUTF(info.getVariableUnits().get(i));
+    }
+
+    final long[] checkpoints = info.getCheckpoints();
+
+    if (checkpoints == null) {
+      stream.writeInt(-1);
+    } else {
+
+      stream.writeInt(checkpoints.length);
+
+      for (final long checkpoint : checkpoints) {
+        stream.writeLong(checkpoint);
+      }
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package edlab.eda.reader.nutmeg;
+
+/**
+ * Chunk of consecutive points of a plot that is passed to a
+ * {@link PlotHandler}. The values are stored in one buffer per variable, the
+ * variables are indexed in the order of the header of the plot, see
+ * {@link NutmegPlotInfo#getVariableNames()}. The buffers are reused for all
+ * chunks of a plot.
+ */
+public final class PointChunk {
+
+  final double[][] re;
+  final double[][] im;
+
+  private final int capacity;
+  private int firstPoint = 0;
+  private int noOfPoints = 0;
+
+  /**
+   * Create a new chunk.
+   *
+   * @param selection - one entry per variable, <code>true</code> when the
+   *                  variable is decoded
+   * @param complex   - <code>true</code> when the values are complex,
+   *                  <code>false</code> otherwise
+   * @param capacity  - maximal number of points in a chunk
+   */
+  PointChunk(final boolean[] selection, final boolean complex,
+      final int capacity) {
+
+    this.capacity = capacity;
+    this.re = new double[selection.length][];
+    this.im = new double[selection.length][];
+
+    for (int i = 0; i < selection.length; i++) {
+
+      if (!selection[i]) {
+        continue;
+      }
+
+      this.re[i] = new double[capacity];
+
+      if (complex) {
+        this.im[i] = new double[capacity];
+      }
+    }
+  }
+
+  /**
+   * Set the range of points in the chunk.
+   *
+   * @param firstPoint - index of the first point in the plot
+   * @param noOfPoints - number of points in the chunk
+   */
+  void set(final int firstPoint, final int noOfPoints) {
+    this.firstPoint = firstPoint;
+    this.noOfPoints = noOfPoints;
+  }
+
+  /**
+   * Returns the maximal number of points in a chunk.
+   *
+   * @return capacity
+   */
+  int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Returns the index of the first point of the chunk in the plot.
+   *
+   * @return index of first point
+   */
+  public int getFirstPoint() {
+    return this.firstPoint;
+  }
+
+  /**
+   * Returns the number of points in the chunk. Only the first elements of the
+   * buffers are valid.
+   *
+   * @return number of points
+   */
+  public int getNoOfPoints() {
+    return this.noOfPoints;
+  }
+
+  /**
+   * Returns the number of variables in the chunk.
+   *
+   * @return number of variables
+   */
+  public int getNoOfVariables() {
+    return this.re.length;
+  }
+
+  /**
+   * Returns the buffer with the real parts of a variable.
+   *
+   * @param variable - index of the variable in the header
+   * @return buffer, <code>null</code> when the variable is not decoded
+   */
+  public double[] getReal(final int variable) {
+    return this.re[variable];
+  }
+
+  /**
+   * Returns the buffer with the imaginary parts of a variable.
+   *
+   * @param variable - index of the variable in the header
+   * @return buffer, <code>null</code> when the variable is not decoded or the
+   *         plot is real
+   */
+  public double[] getImag(final int variable) {
+    return this.im[variable];
+  }
+}
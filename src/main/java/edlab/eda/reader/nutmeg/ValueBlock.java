@@ -0,0 +1,426 @@
+package edlab.eda.reader.nutmeg;
+
+import java.nio.DoubleBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Block with the values of a plot in a Nutmeg waveform file. A block can be
+ * decoded completely or column by column.
+ */
+abstract class ValueBlock {
+
+  /**
+   * Minimal number of bytes in a range of points that is decoded as a
+   * separate task
+   */
+  static final long MIN_CHUNK_BYTES = 1L << 20;
+
+  /**
+   * Number of ranges per thread of a pool. Ranges that are decoded faster are
+   * compensated by the remaining ranges.
+   */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  protected final ByteSource source;
+  protected final long offset;
+  protected final int noOfVars;
+  protected final int noOfPoints;
+  protected final boolean complex;
+
+  private volatile boolean closed = false;
+
+  /**
+   * Create a new value block.
+   *
+   * @param source     - source of the waveform file
+   * @param offset     - position of the first value in the source
+   * @param noOfVars   - number of variables
+   * @param noOfPoints - number of points
+   * @param complex    - <code>true</code> when the values are complex,
+   *                   <code>false</code> otherwise
+   */
+  protected ValueBlock(final ByteSource source, final long offset,
+      final int noOfVars, final int noOfPoints, final boolean complex) {
+    this.source = source;
+    this.offset = offset;
+    this.noOfVars = noOfVars;
+    this.noOfPoints = noOfPoints;
+    this.complex = complex;
+  }
+
+  /**
+   * Returns the number of variables in the block.
+   *
+   * @return number of variables
+   */
+  int getNoOfVars() {
+    return this.noOfVars;
+  }
+
+  /**
+   * Returns the number of points in the block.
+   *
+   * @return number of points
+   */
+  int getNoOfPoints() {
+    return this.noOfPoints;
+  }
+
+  /**
+   * Returns whether the values are complex.
+   *
+   * @return <code>true</code> when the values are complex, <code>false</code>
+   *         otherwise
+   */
+  boolean isComplex() {
+    return this.complex;
+  }
+
+  /**
+   * Decode all points of the block into per-variable arrays. Variables
+   * without an array (<code>null</code>) are skipped.
+   *
+   * @param re - real parts, one array of length noOfPoints per variable
+   * @param im - imaginary parts, one array of length noOfPoints per variable,
+   *           ignored for real values
+   * @return position after the last value in the source, <code>-1</code>
+   *         when the block is not valid
+   */
+  abstract long decode(double[][] re, double[][] im);
+
+  /**
+   * Decode the block in chunks of consecutive points. Each chunk is passed to
+   * the handler before the next chunk is decoded into the same buffers.
+   *
+   * @param handler - handler for the chunks
+   * @param chunk   - reusable chunk, variables without a buffer are skipped
+   * @return position after the last value in the source, <code>-1</code>
+   *         when the block is not valid
+   */
+  abstract long stream(PlotHandler handler, PointChunk chunk);
+
+  /**
+   * Decode all points of the block into per-variable arrays. The points are
+   * split into ranges which are decoded in parallel. Blocks which are too
+   * small to be split are decoded sequentially.
+   *
+   * @param re   - real parts, one array of length noOfPoints per variable
+   * @param im   - imaginary parts, one array of length noOfPoints per
+   *             variable, ignored for real values
+   * @param pool - pool for decoding, <code>null</code> for a sequential
+   *             decoding
+   * @return position after the last value in the source, <code>-1</code>
+   *         when the block is not valid
+   */
+  long decode(final double[][] re, final double[][] im,
+      final ForkJoinPool pool) {
+    return this.decode(re, im);
+  }
+
+  /**
+   * Decode a range of points of the block into per-variable arrays. Variables
+   * without an array (<code>null</code>) are skipped. Blocks that cannot
+   * decode a range directly decode all points and copy the range.
+   *
+   * @param re   - real parts, one array of length to-from per variable
+   * @param im   - imaginary parts, one array of length to-from per variable,
+   *             ignored for real values
+   * @param from - index of the first point
+   * @param to   - index after the last point
+   * @return <code>0</code> or a positive value when the range was decoded,
+   *         <code>-1</code> when the block is not valid
+   */
+  long decodeSlice(final double[][] re, final double[][] im, final int from,
+      final int to) {
+
+    final double[][] allRe = new double[this.noOfVars][];
+    final double[][] allIm = new double[this.noOfVars][];
+
+    for (int i = 0; i < this.noOfVars; i++) {
+
+      if (re[i] != null) {
+        allRe[i] = new double[this.noOfPoints];
+      }
+
+      if (this.complex && (im[i] != null)) {
+        allIm[i] = new double[this.noOfPoints];
+      }
+    }
+
+    if (this.decode(allRe, allIm) < 0) {
+      return -1;
+    }
+
+    for (int i = 0; i < this.noOfVars; i++) {
+
+      if (re[i] != null) {
+        System.arraycopy(allRe[i], from, re[i], 0, to - from);
+      }
+
+      if (this.complex && (im[i] != null)) {
+        System.arraycopy(allIm[i], from, im[i], 0, to - from);
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Returns whether single values can be read with
+   * {@link #getReal(int, int)} without decoding a complete column.
+   *
+   * @return <code>true</code> when single values are read directly,
+   *         <code>false</code> otherwise
+   */
+  boolean isRandomAccess() {
+    return false;
+  }
+
+  /**
+   * Returns the real part of a single value. Blocks without random access
+   * decode the complete column.
+   *
+   * @param column - index of the variable
+   * @param point  - index of the point
+   * @return value, NaN when the block is not valid
+   */
+  double getReal(final int column, final int point) {
+
+    final double[] values = this.decodeReal(column);
+
+    if (values == null) {
+      return Double.NaN;
+    }
+
+    return values[point];
+  }
+
+  /**
+   * Returns a view on the values of a single variable without copying them.
+   *
+   * @param column - index of the variable
+   * @param imag   - <code>true</code> for the imaginary parts,
+   *               <code>false</code> for the real parts
+   * @return read-only buffer with noOfPoints values, <code>null</code> when
+   *         the values are not stored contiguously outside of the heap
+   */
+  DoubleBuffer getColumn(final int column, final boolean imag) {
+    return null;
+  }
+
+  /**
+   * Returns whether the block stores the values of all variables except the
+   * reference wave with single precision. Decoded waves of such blocks are
+   * not kept by the plots.
+   *
+   * @return <code>true</code> when the values are stored as floats,
+   *         <code>false</code> otherwise
+   */
+  boolean isSinglePrecision() {
+    return false;
+  }
+
+  /**
+   * Close the block. Decoding a closed block throws an
+   * {@link IllegalStateException}. Views that were returned by
+   * {@link #getColumn(int, boolean)} remain valid, the memory is released
+   * by the garbage collector when it is not referenced anymore.
+   */
+  void close() {
+    this.closed = true;
+  }
+
+  /**
+   * Check that the block is not closed.
+   *
+   * @throws IllegalStateException when the block is closed
+   */
+  void checkOpen() {
+    if (this.closed) {
+      throw new IllegalStateException("Values of a closed plot are accessed");
+    }
+  }
+
+  /**
+   * Returns the number of ranges a block is split into.
+   *
+   * @param pool   - pool for decoding, can be <code>null</code>
+   * @param length - length of the block in bytes
+   * @return number of ranges, <code>1</code> when the block is decoded
+   *         sequentially
+   */
+  int getNoOfChunks(final ForkJoinPool pool, final long length) {
+
+    if ((pool == null) || (pool.getParallelism() <= 1)) {
+      return 1;
+    }
+
+    return (int) Math.max(1,
+        Math.min(Math.min(
+            (long) pool.getParallelism() * CHUNKS_PER_THREAD,
+            length / MIN_CHUNK_BYTES), this.noOfPoints));
+  }
+
+  /**
+   * Run tasks in a pool and wait until all tasks are completed. The tasks
+   * are forked directly when the caller is already running in the pool.
+   *
+   * @param pool  - pool
+   * @param tasks - tasks
+   */
+  static void invokeAll(final ForkJoinPool pool,
+      final List<? extends ForkJoinTask<?>> tasks) {
+
+    if (ForkJoinTask.getPool() == pool) {
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      pool.invoke(ForkJoinTask.adapt(() -> {
+        ForkJoinTask.invokeAll(tasks);
+      }));
+    }
+  }
+
+  /**
+   * Decode the real parts of a single variable.
+   *
+   * @param column - index of the variable
+   * @return array of length noOfPoints, <code>null</code> when the block is
+   *         not valid
+   */
+  double[] decodeReal(final int column) {
+
+    final double[][] re = new double[this.noOfVars][];
+    re[column] = new double[this.noOfPoints];
+
+    if (this.decode(re, new double[this.noOfVars][]) < 0) {
+      return null;
+    }
+
+    return re[column];
+  }
+
+  /**
+   * Decode the real and imaginary parts of a single variable.
+   *
+   * @param column - index of the variable
+   * @return array with real and imaginary parts, <code>null</code> when the
+   *         block is not valid
+   */
+  double[][] decodeComplex(final int column) {
+
+    final double[][] re = new double[this.noOfVars][];
+    final double[][] im = new double[this.noOfVars][];
+
+    re[column] = new double[this.noOfPoints];
+    im[column] = new double[this.noOfPoints];
+
+    if (this.decode(re, im) < 0) {
+      return null;
+    }
+
+    return new double[][] { re[column], im[column] };
+  }
+
+  /**
+   * Decode the real parts of a single variable with single precision.
+   *
+   * @param column - index of the variable
+   * @return array of length noOfPoints, <code>null</code> when the block is
+   *         not valid
+   */
+  float[] decodeRealFloat(final int column) {
+    return toFloat(this.decodeReal(column));
+  }
+
+  /**
+   * Decode a range of points of a single variable.
+   *
+   * @param column - index of the variable
+   * @param from   - index of the first point
+   * @param to     - index after the last point
+   * @return array with the real parts and, for complex values, the imaginary
+   *         parts, <code>null</code> when the block is not valid
+   */
+  double[][] decodeSlice(final int column, final int from, final int to) {
+
+    final double[][] re = new double[this.noOfVars][];
+    final double[][] im = new double[this.noOfVars][];
+
+    re[column] = new double[to - from];
+
+    if (this.complex) {
+      im[column] = new double[to - from];
+    }
+
+    if (this.decodeSlice(re, im, from, to) < 0) {
+      return null;
+    }
+
+    return new double[][] { re[column], im[column] };
+  }
+
+  /**
+   * Decode the real and imaginary parts of a single variable with single
+   * precision.
+   *
+   * @param column - index of the variable
+   * @return array with real and imaginary parts, <code>null</code> when the
+   *         block is not valid
+   */
+  float[][] decodeComplexFloat(final int column) {
+
+    final double[][] values = this.decodeComplex(column);
+
+    if (values == null) {
+      return null;
+    }
+
+    return new float[][] { toFloat(values[0]), toFloat(values[1]) };
+  }
+
+  /**
+   * Convert values to single precision.
+   *
+   * @param values - values, can be <code>null</code>
+   * @return new array, <code>null</code> when the values are
+   *         <code>null</code>
+   */
+  static float[] toFloat(final double[] values) {
+
+    if (values == null) {
+      return null;
+    }
+
+    final float[] floats = new float[values.length];
+
+    for (int i = 0; i < values.length; i++) {
+      floats[i] = (float) values[i];
+    }
+
+    return floats;
+  }
+
+  /**
+   * Convert values to double precision.
+   *
+   * @param values - values, can be <code>null</code>
+   * @return new array, <code>null</code> when the values are
+   *         <code>null</code>
+   */
+  static double[] toDouble(final float[] values) {
+
+    if (values == null) {
+      return null;
+    }
+
+    final double[] doubles = new double[values.length];
+
+    for (int i = 0; i < values.length; i++) {
+      doubles[i] = values[i];
+    }
+
+    return doubles;
+  }
+}
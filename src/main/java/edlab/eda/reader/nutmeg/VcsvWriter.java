@@ -0,0 +1,163 @@
+package edlab.eda.reader.nutmeg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Buffered writer for Virtuoso Comma Seperated Values. Text and values are
+ * appended to a reusable line buffer, which is appended to the underlying
+ * writer when it exceeds a fixed size. The memory usage is independent of the
+ * number of points of a plot.
+ */
+final class VcsvWriter {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final Writer writer;
+  private final StringBuilder builder = new StringBuilder(2 * BUFFER_SIZE);
+
+  /**
+   * Create a new writer.
+   *
+   * @param writer - underlying writer
+   */
+  VcsvWriter(final Writer writer) {
+    this.writer = writer;
+  }
+
+  /**
+   * Append text.
+   *
+   * @param text - text
+   * @return this
+   */
+  VcsvWriter append(final String text) {
+    this.builder.append(text);
+    return this;
+  }
+
+  /**
+   * Append a value. The value is formatted like {@link Double#toString()}.
+   *
+   * @param value - value
+   * @return this
+   */
+  VcsvWriter append(final double value) {
+    this.builder.append(value);
+    return this;
+  }
+
+  /**
+   * Start a new line. The buffer is written when it exceeds its size.
+   *
+   * @return this
+   * @throws IOException when the buffer cannot be written
+   */
+  VcsvWriter newline() throws IOException {
+
+    if (this.builder.length() >= BUFFER_SIZE) {
+      this.flush();
+    }
+
+    this.builder.append(NutmegPlot.VCVS_NEWLINE);
+    return this;
+  }
+
+  /**
+   * Write the buffer to the underlying writer.
+   *
+   * @throws IOException when the buffer cannot be written
+   */
+  void flush() throws IOException {
+
+    this.writer.append(this.builder);
+    this.builder.setLength(0);
+  }
+
+  /**
+   * Write the values of a plot whose value block cannot read ranges of points
+   * directly, e.g. an ASCII block. The block is decoded once in chunks of
+   * {@link NutmegPlot#VCSV_POINTS} points and each chunk is written when it
+   * is decoded. Each point starts with a new line.
+   *
+   * @param block   - value block of the plot
+   * @param columns - column of the reference wave, followed by the columns of
+   *                the written waves
+   * @throws IOException when the values cannot be decoded or written
+   */
+  void writeValues(final ValueBlock block, final int[] columns)
+      throws IOException {
+
+    final boolean[] selection = new boolean[block.getNoOfVars()];
+
+    for (final int column : columns) {
+      selection[column] = true;
+    }
+
+    final PointChunk chunk = new PointChunk(selection, block.isComplex(),
+        Math.max(1, Math.min(block.getNoOfPoints(), NutmegPlot.VCSV_POINTS)));
+
+    final PlotHandler handler = new PlotHandler() {
+
+      @Override
+      public void startPlot(final NutmegPlotInfo info) {
+      }
+
+      @Override
+      public void points(final PointChunk chunk) {
+        try {
+          VcsvWriter.this.writeChunk(chunk, columns);
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public void endPlot() {
+      }
+    };
+
+    try {
+      if (block.stream(handler, chunk) < 0) {
+        throw new IOException("Values of the plot cannot be decoded");
+      }
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Write the points of a chunk.
+   *
+   * @param chunk   - chunk of points
+   * @param columns - column of the reference wave, followed by the columns of
+   *                the written waves
+   * @throws IOException when the buffer cannot be written
+   */
+  private void writeChunk(final PointChunk chunk, final int[] columns)
+      throws IOException {
+
+    final double[] refWave = chunk.getReal(columns[0]);
+
+    for (int i = 0; i < chunk.getNoOfPoints(); i++) {
+
+      this.newline();
+
+      for (int j = 1; j < columns.length; j++) {
+
+        if (j > 1) {
+          this.builder.append(NutmegPlot.VCVS_SEP);
+        }
+
+        this.builder.append(refWave[i]).append(NutmegPlot.VCVS_SEP)
+            .append(chunk.getReal(columns[j])[i]);
+
+        if (chunk.getImag(columns[j]) != null) {
+          this.builder.append(NutmegPlot.VCVS_SEP)
+              .append(chunk.getImag(columns[j])[i]);
+        }
+      }
+    }
+  }
+}
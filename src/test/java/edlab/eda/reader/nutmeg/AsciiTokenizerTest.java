@@ -0,0 +1,78 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class AsciiTokenizerTest {
+
+  private static final String[] NUMBERS = { "0", "-0", "1", "-1", "+1",
+      "0.0005", "-0.0005", "1e-12", "4.07793850494492", "-4410.64806664517",
+      "1.000000000000000e+00", "3.384349674012539e-321",
+      "1.122018454301963e+00", "123456789012345678901234", "1E5", ".5",
+      "5.", "9007199254740993", "1.7976931348623157e308", "4.9e-324",
+      "0.1", "2.2250738585072014E-308" };
+
+  @Test
+  void testNumbers() {
+
+    for (final String number : NUMBERS) {
+      assertEquals(Double.parseDouble(number), parse(number), number);
+    }
+
+    final Random random = new Random(42);
+    double value;
+    String str;
+
+    for (int i = 0; i < 100000; i++) {
+
+      value = Double.longBitsToDouble(random.nextLong());
+
+      if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+        assertEquals(value, parse(Double.toString(value)));
+        assertEquals(value,
+            parse(String.format(Locale.ROOT, "%.16e", value)));
+      }
+
+      value = random.nextDouble() * Math.pow(10, random.nextInt(30) - 15);
+
+      assertEquals(Double.parseDouble(Double.toString(value)),
+          parse(Double.toString(value)));
+      str = String.format(Locale.ROOT, "%.15g", value);
+      assertEquals(Double.parseDouble(str), parse(str));
+    }
+  }
+
+  @Test
+  void testTokens() {
+
+    final AsciiTokenizer tokenizer = tokenizer(
+        "Values:\r\n 0\t1,0\n\t-4410.6,4.07e-3\n");
+
+    assertEquals("Values:", tokenizer.nextLine());
+    assertTrue(tokenizer.skipToken());
+    assertEquals(1.0, tokenizer.nextDouble());
+    assertTrue(tokenizer.skipComma());
+    assertEquals(0.0, tokenizer.nextDouble());
+    assertEquals(-4410.6, tokenizer.nextDouble());
+    assertTrue(tokenizer.skipComma());
+    assertEquals(4.07e-3, tokenizer.nextDouble());
+    assertFalse(tokenizer.skipComma());
+    assertFalse(tokenizer.skipWhitespace());
+  }
+
+  private static double parse(final String number) {
+    return tokenizer(number).nextDouble();
+  }
+
+  private static AsciiTokenizer tokenizer(final String str) {
+    return new AsciiTokenizer(
+        ByteSource.wrap(str.getBytes(StandardCharsets.US_ASCII)));
+  }
+}
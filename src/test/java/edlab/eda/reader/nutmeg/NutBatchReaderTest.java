@@ -0,0 +1,120 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NutBatchReaderTest {
+
+  @Test
+  void testDirectory() {
+
+    final List<NutBatchResult> results = NutBatchReader
+        .getNutBatchReader("./src/test/resources/rc1/spectre").read();
+
+    // the netlist is skipped
+    assertEquals(2, results.size());
+    assertTrue(results.get(0).getReader() instanceof NutasciiReader);
+    assertTrue(results.get(1).getReader() instanceof NutbinReader);
+
+    for (final NutBatchResult result : results) {
+      assertTrue(result.isValid());
+      assertEquals(4, result.getPlots().size());
+      assertTrue(result.getTotalTime() >= result.getParseTime());
+    }
+  }
+
+  @Test
+  void testGlob() {
+
+    final String[] dirs = { "op", "rc1/ngspice", "rc1/spectre", "rc2" };
+
+    final NutBatchReader batch = NutBatchReader
+        .getNutBatchReader("./src/test/resources/**/nutbin.raw");
+
+    assertEquals(dirs.length, batch.getFiles().size());
+
+    for (final boolean ordered : new boolean[] { true, false }) {
+
+      final List<File> files = new ArrayList<>();
+
+      batch.setOrdered(ordered).setParallelism(2)
+          .setConfigurator(reader -> reader.setLazy(true)).read(result -> {
+
+            files.add(result.getFile());
+
+            final List<NutmegPlot> plots = NutReader
+                .getNutbinReader(result.getFile().getPath()).read().parse()
+                .getPlots();
+
+            assertEquals(plots.size(), result.getPlots().size());
+
+            for (int i = 0; i < plots.size(); i++) {
+              assertEquals(plots.get(i).getWaves(),
+                  result.getPlots().get(i).getWaves());
+            }
+          });
+
+      if (ordered) {
+        assertEquals(batch.getFiles(), files);
+      } else {
+        assertEquals(new HashSet<>(batch.getFiles()), new HashSet<>(files));
+      }
+    }
+  }
+
+  @Test
+  void testFiles() {
+
+    final List<NutBatchResult> results = NutBatchReader
+        .getNutBatchReader(Arrays.asList("./src/test/resources/rc2/input.scs",
+            "./src/test/resources/rc2/nutascii.raw"))
+        .read();
+
+    assertEquals(2, results.size());
+    assertFalse(results.get(0).isValid());
+    assertNull(results.get(0).getReader());
+    assertTrue(results.get(1).isValid());
+
+    assertNull(NutBatchReader.getNutBatchReader("./no/such/dir"));
+    assertNull(NutReader.getReader("./src/test/resources/rc2/input.scs"));
+    assertTrue(NutReader.getReader(
+        "./src/test/resources/rc2/nutbin.raw") instanceof NutbinReader);
+  }
+
+  @Test
+  void testClose() {
+
+    final List<NutReader> readers = new ArrayList<>();
+
+    // reading fails after the file is mapped
+    final NutReaderMetrics metrics = new NutReaderMetrics() {
+      @Override
+      public void fileRead(final File file, final long size,
+          final long nanos) {
+        throw new IllegalStateException("File " + file + " is rejected");
+      }
+    };
+
+    final List<NutBatchResult> results = NutBatchReader
+        .getNutBatchReader(
+            Arrays.asList("./src/test/resources/rc2/nutascii.raw"))
+        .setConfigurator(reader -> readers
+            .add(reader.setMemoryMapped(true).setMetrics(metrics)))
+        .read();
+
+    assertEquals(1, results.size());
+    assertFalse(results.get(0).isValid());
+    assertEquals(readers.get(0), results.get(0).getReader());
+    assertNull(readers.get(0).data);
+  }
+}
@@ -0,0 +1,173 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+class NutReaderMetricsTest {
+
+  @Test
+  void test() throws IOException {
+
+    // 9 variables, variables 4 and 8 repeat the names of 3 and 7
+    final NutmegGenerator generator = NutmegGenerator.getNutmegGenerator()
+        .setNoOfPlots(3).setNoOfVariables(9).setNoOfPoints(1000)
+        .setDuplicateInterval(4);
+
+    final Path ascii = Files.createTempFile("nutascii", ".raw");
+    ascii.toFile().deleteOnExit();
+    final Path binary = Files.createTempFile("nutbin", ".raw");
+    binary.toFile().deleteOnExit();
+
+    generator.writeNutascii(ascii.toString()).writeNutbin(binary.toString());
+
+    final ForkJoinPool pool = new ForkJoinPool(2);
+
+    for (final Path path : new Path[] { ascii, binary }) {
+
+      check(NutReader.getReader(path.toString()), path, true);
+      check(NutReader.getReader(path.toString()).setPool(pool), path, true);
+      check(NutReader.getReader(path.toString()).setOffHeap(true), path,
+          true);
+      check(NutReader.getReader(path.toString()).setLazy(true), path, false);
+    }
+
+    pool.shutdown();
+  }
+
+  @Test
+  void testFlightRecorder() throws IOException {
+
+    final NutReaderMetrics metrics = NutReaderMetrics
+        .getFlightRecorderMetrics();
+
+    assumeTrue(metrics != null);
+
+    final Path dump = Files.createTempFile("nutmeg", ".jfr");
+    dump.toFile().deleteOnExit();
+
+    try (Recording recording = new Recording()) {
+
+      recording.enable("edlab.eda.reader.nutmeg.Read");
+      recording.enable("edlab.eda.reader.nutmeg.Headers");
+      recording.enable("edlab.eda.reader.nutmeg.Decode");
+      recording.enable("edlab.eda.reader.nutmeg.Validate");
+      recording.enable("edlab.eda.reader.nutmeg.Parse");
+      recording.start();
+
+      assertNotNull(NutReader
+          .getNutbinReader("./src/test/resources/rc2/nutbin.raw")
+          .setMetrics(metrics).read().parse());
+
+      recording.stop();
+      recording.dump(dump);
+    }
+
+    final Set<String> names = RecordingFile.readAllEvents(dump).stream()
+        .map(e -> e.getEventType().getName()).collect(Collectors.toSet());
+
+    assertTrue(names.contains("edlab.eda.reader.nutmeg.Read"));
+    assertTrue(names.contains("edlab.eda.reader.nutmeg.Headers"));
+    assertTrue(names.contains("edlab.eda.reader.nutmeg.Decode"));
+    assertTrue(names.contains("edlab.eda.reader.nutmeg.Validate"));
+    assertTrue(names.contains("edlab.eda.reader.nutmeg.Parse"));
+  }
+
+  private static void check(final NutReader reader, final Path path,
+      final boolean decoded) {
+
+    final AtomicLong bytes = new AtomicLong();
+    final AtomicInteger headers = new AtomicInteger();
+    final AtomicInteger waves = new AtomicInteger();
+    final AtomicInteger validated = new AtomicInteger();
+    final AtomicInteger duplicates = new AtomicInteger();
+    final AtomicLong points = new AtomicLong();
+    final Set<String> plotnames = ConcurrentHashMap.newKeySet();
+
+    final NutReaderMetrics metrics = new NutReaderMetrics() {
+
+      @Override
+      public void fileRead(final File file, final long size,
+          final long nanos) {
+        bytes.set(size);
+      }
+
+      @Override
+      public void headersParsed(final File file, final int noOfPlots,
+          final long nanos) {
+        headers.set(noOfPlots);
+      }
+
+      @Override
+      public void plotDecoded(final NutmegPlotInfo info, final int noOfWaves,
+          final long allocated, final long nanos) {
+        plotnames.add(info.getPlotname());
+        waves.addAndGet(noOfWaves);
+        assertTrue(nanos >= 0);
+      }
+
+      @Override
+      public void plotValidated(final NutmegPlotInfo info,
+          final boolean valid, final long nanos) {
+        assertTrue(valid);
+        validated.incrementAndGet();
+      }
+
+      @Override
+      public void duplicatesDropped(final NutmegPlotInfo info,
+          final int noOfDuplicates) {
+        duplicates.addAndGet(noOfDuplicates);
+      }
+
+      @Override
+      public void fileParsed(final File file, final int noOfPlots,
+          final long noOfPoints, final long nanos) {
+        points.set(noOfPoints);
+      }
+    };
+
+    final AtomicInteger parsed = new AtomicInteger();
+
+    assertNotNull(reader
+        .setMetrics(metrics.andThen(new NutReaderMetrics() {
+          @Override
+          public void fileParsed(final File file, final int noOfPlots,
+              final long noOfPoints, final long nanos) {
+            parsed.set(noOfPlots);
+          }
+        })).read().parse());
+
+    assertEquals(path.toFile().length(), bytes.get());
+    assertEquals(3, headers.get());
+    assertEquals(3, validated.get());
+    assertEquals(6, duplicates.get());
+    assertEquals(3000, points.get());
+    assertEquals(3, parsed.get());
+
+    if (decoded) {
+      assertEquals(3, plotnames.size());
+      assertEquals(3 * 7, waves.get());
+    } else {
+      assertEquals(0, waves.get());
+    }
+
+    reader.close();
+  }
+}
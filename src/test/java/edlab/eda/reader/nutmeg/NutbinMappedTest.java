@@ -0,0 +1,89 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NutbinMappedTest {
+
+  private static final String[] FILES = {
+      "./src/test/resources/rc1/spectre/nutbin.raw",
+      "./src/test/resources/rc2/nutbin.raw",
+      "./src/test/resources/op/nutbin.raw" };
+
+  @Test
+  void testWindows() throws IOException {
+
+    final File file = new File(FILES[0]);
+    final byte[] bytes = Files.readAllBytes(file.toPath());
+
+    // Windows of 256 bytes, such that many reads cross a window boundary
+    final ByteSource mapped = ByteSource.map(file, 8);
+    final ByteSource heap = ByteSource.wrap(bytes);
+
+    assertEquals(heap.size(), mapped.size());
+
+    for (long i = 0; i < (bytes.length - Double.BYTES); i += 3) {
+      assertEquals(heap.get(i), mapped.get(i));
+      assertEquals(Double.doubleToRawLongBits(heap.getDouble(i)),
+          Double.doubleToRawLongBits(mapped.getDouble(i)));
+    }
+
+    final ByteBuffer a = heap.slice(250, 20);
+    final ByteBuffer b = mapped.slice(250, 20);
+
+    final byte[] x = new byte[20];
+    final byte[] y = new byte[20];
+    a.get(x);
+    b.get(y);
+
+    assertArrayEquals(x, y);
+  }
+
+  @Test
+  void testMappedReader() {
+
+    for (final String path : FILES) {
+
+      final NutReader heapReader = NutReader.getNutbinReader(path);
+      final NutReader mappedReader = NutReader.getNutbinReader(path)
+          .setMemoryMapped(true);
+
+      if ((heapReader.read() == null) || (mappedReader.read() == null)) {
+        fail("Unable to read " + path);
+      }
+
+      final List<NutmegPlot> heapPlots = heapReader.parse().getPlots();
+      final List<NutmegPlot> mappedPlots = mappedReader.parse().getPlots();
+
+      assertEquals(heapPlots.size(), mappedPlots.size());
+
+      for (int i = 0; i < heapPlots.size(); i++) {
+
+        final NutmegPlot heapPlot = heapPlots.get(i);
+        final NutmegPlot mappedPlot = mappedPlots.get(i);
+
+        assertEquals(heapPlot.getPlotname(), mappedPlot.getPlotname());
+        assertEquals(heapPlot.getWaves(), mappedPlot.getWaves());
+
+        for (final String wave : heapPlot.getWaves()) {
+          if (heapPlot.isReal()) {
+            assertArrayEquals(((NutmegRealPlot) heapPlot).getWave(wave),
+                ((NutmegRealPlot) mappedPlot).getWave(wave));
+          } else {
+            assertArrayEquals(((NutmegComplexPlot) heapPlot).getWave(wave),
+                ((NutmegComplexPlot) mappedPlot).getWave(wave));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.assertSamePlots;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.commons.text.translate.CharSequenceTranslator;
+import org.junit.jupiter.api.Test;
+
+class NutbinWriterTest {
+
+  @Test
+  void testWrite() throws IOException {
+
+    for (final String dir : DIRS) {
+
+      final List<NutmegPlot> plots = parse(binary(dir));
+
+      for (final int decimation : new int[] { 1, 3 }) {
+
+        final Path path = Files.createTempFile("nutbin", ".raw");
+        path.toFile().deleteOnExit();
+
+        try (NutbinWriter writer = NutbinWriter
+            .getNutbinWriter(path.toString(), "test")
+            .setDecimation(decimation)) {
+          for (final NutmegPlot plot : plots) {
+            assertEquals(writer, writer.write(plot));
+          }
+        }
+
+        compare(plots, parse(NutReader.getNutbinReader(path.toString())
+            .setByteOrder(ByteOrder.BIG_ENDIAN)), decimation, false);
+      }
+    }
+  }
+
+  @Test
+  void testStream() throws IOException {
+
+    for (final String dir : DIRS) {
+
+      final List<NutmegPlot> plots = parse(ascii(dir));
+
+      final Path path = Files.createTempFile("nutbin", ".raw");
+      path.toFile().deleteOnExit();
+
+      // the reference wave is written although it is rejected by the filter
+      try (NutbinWriter writer = NutbinWriter
+          .getNutbinWriter(path.toString(), "test")
+          .setWaveFilter(wave -> wave.startsWith("I"))
+          .setDecimation(2)) {
+        ascii(dir).read().stream(writer, 7);
+      }
+
+      compare(plots, parse(NutReader.getNutbinReader(path.toString())
+          .setByteOrder(ByteOrder.BIG_ENDIAN)), 2, true);
+    }
+  }
+
+  @Test
+  void testTranslator() throws IOException {
+
+    // names are written in lower case, the filter only accepts those
+    final CharSequenceTranslator translator = new CharSequenceTranslator() {
+      @Override
+      public int translate(final CharSequence input, final int index,
+          final Writer out) throws IOException {
+        out.write(Character.toLowerCase(input.charAt(index)));
+        return 1;
+      }
+    };
+
+    for (final String dir : DIRS) {
+
+      final Path plotPath = Files.createTempFile("nutbin", ".raw");
+      plotPath.toFile().deleteOnExit();
+      final Path streamPath = Files.createTempFile("nutbin", ".raw");
+      streamPath.toFile().deleteOnExit();
+
+      try (NutbinWriter writer = NutbinWriter
+          .getNutbinWriter(plotPath.toString(), "test")
+          .setWaveFilter(wave -> wave.startsWith("r"))) {
+        for (final NutmegPlot plot : parse(
+            NutReader.getNutasciiReader(dir + "nutascii.raw", translator))) {
+          assertEquals(writer, writer.write(plot));
+        }
+      }
+
+      try (NutbinWriter writer = NutbinWriter
+          .getNutbinWriter(streamPath.toString(), "test")
+          .setWaveFilter(wave -> wave.startsWith("r"))
+          .setTranslator(translator)) {
+        NutReader.getNutasciiReader(dir + "nutascii.raw", translator).read()
+            .stream(writer, 7);
+      }
+
+      final List<NutmegPlot> written = parse(NutReader
+          .getNutbinReader(streamPath.toString())
+          .setByteOrder(ByteOrder.BIG_ENDIAN));
+
+      assertSamePlots(parse(NutReader.getNutbinReader(plotPath.toString())
+          .setByteOrder(ByteOrder.BIG_ENDIAN)), written);
+
+      for (final NutmegPlot plot : written) {
+        for (final String wave : plot.getWaves()) {
+          assertEquals(wave.toLowerCase(), wave);
+        }
+      }
+    }
+  }
+
+  private static void compare(final List<NutmegPlot> plots,
+      final List<NutmegPlot> written, final int decimation,
+      final boolean filtered) {
+
+    assertEquals(plots.size(), written.size());
+
+    for (int i = 0; i < plots.size(); i++) {
+
+      final NutmegPlot plot = plots.get(i);
+      final NutmegPlot copy = written.get(i);
+
+      assertEquals(plot.getPlotname(), copy.getPlotname());
+      assertEquals(plot.isComplex(), copy.isComplex());
+      assertEquals(plot.getRefWave(), copy.getRefWave());
+      assertEquals(((plot.getNoOfPoints() + decimation) - 1) / decimation,
+          copy.getNoOfPoints());
+
+      for (final String wave : plot.getWaves()) {
+
+        if (filtered && !wave.equals(plot.getRefWave())
+            && !wave.startsWith("I")) {
+          assertFalse(copy.containsWave(wave));
+          continue;
+        }
+
+        assertTrue(copy.containsWave(wave));
+
+        if (!plot.getUnit(wave).isEmpty()) {
+          assertEquals(plot.getUnit(wave), copy.getUnit(wave));
+        }
+
+        if (plot.isComplex()) {
+          assertArrayEquals(
+              decimate(((NutmegComplexPlot) plot).getReal(wave), decimation),
+              ((NutmegComplexPlot) copy).getReal(wave));
+          assertArrayEquals(
+              decimate(((NutmegComplexPlot) plot).getImag(wave), decimation),
+              ((NutmegComplexPlot) copy).getImag(wave));
+        } else {
+          assertArrayEquals(
+              decimate(((NutmegRealPlot) plot).getWave(wave), decimation),
+              ((NutmegRealPlot) copy).getWave(wave));
+        }
+      }
+    }
+  }
+
+  private static double[] decimate(final double[] wave, final int n) {
+
+    final double[] retval = new double[((wave.length + n) - 1) / n];
+
+    for (int i = 0; i < retval.length; i++) {
+      retval[i] = wave[i * n];
+    }
+
+    return retval;
+  }
+}
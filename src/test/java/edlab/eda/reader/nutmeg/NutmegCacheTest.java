@@ -0,0 +1,71 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.assertSamePlots;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegCacheTest {
+
+  @Test
+  void test() throws IOException {
+
+    for (final String dir : DIRS) {
+
+      final Path cache = Files.createTempFile("nutcache", ".cache");
+      cache.toFile().deleteOnExit();
+
+      assertNotNull(binary(dir).writeCache(cache.toString()));
+
+      final List<NutmegPlot> plots = parse(binary(dir));
+
+      assertSamePlots(plots,
+          parse(NutReader.getNutcacheReader(cache.toString())));
+      assertSamePlots(plots,
+          parse(NutReader.getNutcacheReader(cache.toString()).setLazy(false)));
+
+      assertEquals(0, Files.size(cache) % NutcacheReader.PAGE_SIZE);
+    }
+  }
+
+  @Test
+  void testFilter() throws IOException {
+
+    final String file = "./src/test/resources/op/nutbin.raw";
+
+    final Path cache = Files.createTempFile("nutcache", ".cache");
+    cache.toFile().deleteOnExit();
+
+    assertNotNull(NutReader.getNutbinReader(file)
+        .setPlotFilter(NutmegPlotInfo.byAnalysis("ac"))
+        .setWaveFilter(wave -> false).writeCache(cache.toString()));
+
+    final List<NutmegPlot> plots = NutReader.getNutbinReader(file)
+        .setPlotFilter(NutmegPlotInfo.byAnalysis("ac")).read()
+        .parse(Collections.emptySet()).getPlots();
+
+    final NutReader reader = NutReader.getNutcacheReader(cache.toString())
+        .read().parse();
+
+    assertEquals(1, reader.getPlots().size());
+    assertEquals(1, reader.getPlots().get(0).getNoOfWaves());
+    assertSamePlots(plots, reader.getPlots());
+  }
+
+  @Test
+  void testInvalid() {
+    assertNull(NutReader
+        .getNutcacheReader("./src/test/resources/op/nutbin.raw").read());
+  }
+}
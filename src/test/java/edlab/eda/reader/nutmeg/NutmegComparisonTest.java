@@ -14,6 +14,8 @@ class NutmegComparisonTest {
 
     compareWaves("./src/test/resources/rc1/spectre/nutascii.raw",
         "./src/test/resources/rc1/spectre/nutbin.raw");
+    compareWaves("./src/test/resources/rc1/ngspice/nutascii.raw",
+        "./src/test/resources/rc1/ngspice/nutbin.raw");
     compareWaves("./src/test/resources/rc2/nutascii.raw",
         "./src/test/resources/rc2/nutbin.raw");
     
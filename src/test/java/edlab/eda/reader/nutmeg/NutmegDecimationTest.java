@@ -0,0 +1,213 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegDecimationTest {
+
+  private static final int NO_OF_POINTS = 100000;
+  private static final int NO_OF_VARIABLES = 5;
+
+  @Test
+  void test() throws IOException {
+
+    final Path file = Files.createTempFile("nutbin", ".raw");
+    file.toFile().deleteOnExit();
+
+    final NutmegGenerator generator = NutmegGenerator.getNutmegGenerator()
+        .setNoOfVariables(NO_OF_VARIABLES).setNoOfPoints(NO_OF_POINTS);
+    generator.writeNutbin(file.toString());
+
+    final List<String> waves = new ArrayList<>();
+
+    for (int i = 1; i < NO_OF_VARIABLES; i++) {
+      waves.add(generator.getName(i));
+    }
+
+    final NutmegRealPlot plot = (NutmegRealPlot) NutReader
+        .getNutbinReader(file.toString()).read().parse().getPlots().get(0);
+
+    final Map<String, DecimatedWave> minMax = plot.getMinMax(waves, 1000);
+    final Map<String, DecimatedWave> lttb = plot.getLttb(waves, 1000);
+
+    assertEquals(waves, new ArrayList<>(minMax.keySet()));
+    assertEquals(waves, new ArrayList<>(lttb.keySet()));
+
+    for (int i = 1; i < NO_OF_VARIABLES; i++) {
+
+      final double[] values = plot.getWave(generator.getName(i));
+
+      check(minMax.get(generator.getName(i)), i, 1000);
+      check(lttb.get(generator.getName(i)), i, 1000);
+
+      assertEquals(1000, lttb.get(generator.getName(i)).getNoOfPoints());
+      assertEquals(Arrays.stream(values).min().getAsDouble(), Arrays
+          .stream(minMax.get(generator.getName(i)).getValues()).min()
+          .getAsDouble());
+      assertEquals(Arrays.stream(values).max().getAsDouble(), Arrays
+          .stream(minMax.get(generator.getName(i)).getValues()).max()
+          .getAsDouble());
+    }
+
+    for (final NutReader reader : new NutReader[] {
+        NutReader.getNutbinReader(file.toString()).setLazy(true)
+            .setMemoryMapped(true),
+        NutReader.getNutbinReader(file.toString()).setOffHeap(true) }) {
+
+      final NutmegPlot other = reader.read().parse().getPlots().get(0);
+
+      compare(minMax, other.getMinMax(waves, 1000));
+      compare(lttb, other.getLttb(waves, 1000));
+
+      reader.close();
+    }
+
+    final Map<String, DecimatedWave> window = plot.getLttb(waves, 10.0,
+        20.0, 100);
+
+    for (final DecimatedWave wave : window.values()) {
+
+      assertEquals(100, wave.getNoOfPoints());
+      assertEquals(10.0, wave.getReference()[0], 1e-9);
+      assertEquals(20.0, wave.getReference()[99], 1e-9);
+    }
+
+    final Map<String, DecimatedWave> small = plot.getMinMax(waves, 10.0,
+        10.01, 100);
+
+    assertEquals(11, small.get(waves.get(0)).getNoOfPoints());
+    assertFalse(small.get(waves.get(0)).isDecimated());
+
+    assertNull(plot.getMinMax(waves, 3));
+    assertNull(plot.getLttb(waves, 2));
+    assertNull(plot.getLttb(Collections.singletonList("x"), 100));
+
+    plot.close();
+
+    assertNull(plot.getMinMax(waves, 1000));
+  }
+
+  @Test
+  void testComplex() throws IOException {
+
+    final Path file = Files.createTempFile("nutbin", ".raw");
+    file.toFile().deleteOnExit();
+
+    final NutmegGenerator generator = NutmegGenerator.getNutmegGenerator()
+        .setNoOfVariables(3).setNoOfPoints(NO_OF_POINTS).setComplex(true);
+    generator.writeNutbin(file.toString());
+
+    final NutmegComplexPlot plot = (NutmegComplexPlot) NutReader
+        .getNutbinReader(file.toString()).setLazy(true).read().parse()
+        .getPlots().get(0);
+
+    final Map<String, DecimatedWave> minMax = plot
+        .getMinMax(Arrays.asList(generator.getName(1), generator.getName(2)),
+            500);
+
+    for (final DecimatedWave wave : minMax.values()) {
+
+      assertTrue(wave.isDecimated());
+      assertTrue(wave.getNoOfPoints() <= 500);
+
+      for (final double value : wave.getValues()) {
+        assertEquals(1.0, value, 1e-12);
+      }
+    }
+  }
+
+  @Test
+  void testPeak() {
+
+    final double[] x = new double[100];
+    final double[] y = new double[100];
+
+    for (int i = 0; i < x.length; i++) {
+      x[i] = i;
+    }
+
+    y[37] = 5.0;
+    y[62] = -3.0;
+
+    final Map<String, String> units = new HashMap<>();
+    units.put("time", "s");
+    units.put("v", "V");
+
+    final Map<String, double[]> waves = new HashMap<>();
+    waves.put("time", x);
+    waves.put("v", y);
+
+    final NutmegRealPlot plot = NutmegRealPlot.make("Transient Analysis", 2,
+        100, "time", units, waves);
+
+    final DecimatedWave lttb = plot.getLttb(Collections.singletonList("v"), 4)
+        .get("v");
+
+    assertArrayEquals(new double[] { 0.0, 37.0, 62.0, 99.0 },
+        lttb.getReference());
+    assertArrayEquals(new double[] { 0.0, 5.0, -3.0, 0.0 }, lttb.getValues());
+
+    final DecimatedWave minMax = plot
+        .getMinMax(Collections.singletonList("v"), 4).get("v");
+
+    assertArrayEquals(new double[] { 0.0, 37.0, 62.0, 99.0 },
+        minMax.getReference());
+  }
+
+  /**
+   * Check that the points of a decimated wave are points of the generated
+   * wave in ascending order and that the first and the last point are kept.
+   */
+  private static void check(final DecimatedWave wave, final int variable,
+      final int noOfPoints) {
+
+    assertTrue(wave.isDecimated());
+    assertTrue(wave.getNoOfPoints() <= noOfPoints);
+    assertEquals(NO_OF_POINTS, wave.getNoOfSourcePoints());
+
+    final double[] reference = wave.getReference();
+    final double[] values = wave.getValues();
+
+    assertEquals(NutmegGenerator.getReal(0, 0, 0), reference[0]);
+    assertEquals(NutmegGenerator.getReal(0, NO_OF_POINTS - 1, 0),
+        reference[reference.length - 1]);
+
+    int point;
+
+    for (int i = 0; i < reference.length; i++) {
+
+      point = (int) Math.round(reference[i] * 1e3) - 1;
+
+      assertTrue((i == 0) || (reference[i] > reference[i - 1]));
+      assertEquals(NutmegGenerator.getReal(0, point, variable), values[i]);
+    }
+  }
+
+  private static void compare(final Map<String, DecimatedWave> expected,
+      final Map<String, DecimatedWave> actual) {
+
+    assertEquals(expected.keySet(), actual.keySet());
+
+    for (final String wave : expected.keySet()) {
+      assertArrayEquals(expected.get(wave).getReference(),
+          actual.get(wave).getReference());
+      assertArrayEquals(expected.get(wave).getValues(),
+          actual.get(wave).getValues());
+    }
+  }
+}
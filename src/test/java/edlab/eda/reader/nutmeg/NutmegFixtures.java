@@ -0,0 +1,110 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.DoubleBuffer;
+import java.util.List;
+
+/**
+ * Waveform files and assertions that are shared by the tests of the reader
+ * options
+ */
+final class NutmegFixtures {
+
+  /**
+   * Directories that contain the same simulation results as
+   * <code>nutascii.raw</code> and <code>nutbin.raw</code>
+   */
+  static final String[] DIRS = { "./src/test/resources/rc1/spectre/",
+      "./src/test/resources/rc1/ngspice/", "./src/test/resources/rc2/",
+      "./src/test/resources/op/" };
+
+  private NutmegFixtures() {
+  }
+
+  /**
+   * Create a reader for the ASCII file of a directory.
+   *
+   * @param dir - one of {@link #DIRS}
+   * @return reader
+   */
+  static NutReader ascii(final String dir) {
+    return NutReader.getNutasciiReader(dir + "nutascii.raw");
+  }
+
+  /**
+   * Create a reader for the binary file of a directory.
+   *
+   * @param dir - one of {@link #DIRS}
+   * @return reader
+   */
+  static NutReader binary(final String dir) {
+    return NutReader.getNutbinReader(dir + "nutbin.raw");
+  }
+
+  /**
+   * Read and parse all plots of a file.
+   *
+   * @param reader - reader
+   * @return plots
+   */
+  static List<NutmegPlot> parse(final NutReader reader) {
+    return reader.read().parse().getPlots();
+  }
+
+  /**
+   * Assert that two lists of plots have the same names, waves, units and
+   * values.
+   *
+   * @param expected - expected plots
+   * @param actual   - actual plots
+   */
+  static void assertSamePlots(final List<NutmegPlot> expected,
+      final List<NutmegPlot> actual) {
+
+    assertEquals(expected.size(), actual.size());
+
+    for (int i = 0; i < expected.size(); i++) {
+
+      final NutmegPlot plot = expected.get(i);
+      final NutmegPlot other = actual.get(i);
+
+      assertEquals(plot.getPlotname(), other.getPlotname());
+      assertEquals(plot.isComplex(), other.isComplex());
+      assertEquals(plot.getRefWave(), other.getRefWave());
+      assertEquals(plot.getNoOfPoints(), other.getNoOfPoints());
+      assertEquals(plot.getNoOfWaves(), other.getNoOfWaves());
+      assertEquals(plot.getWaves(), other.getWaves());
+
+      for (final String wave : plot.getWaves()) {
+
+        assertEquals(plot.getUnit(wave), other.getUnit(wave));
+
+        if (plot.isReal()) {
+          assertArrayEquals(((NutmegRealPlot) plot).getWave(wave),
+              ((NutmegRealPlot) other).getWave(wave));
+        } else {
+          assertArrayEquals(((NutmegComplexPlot) plot).getReal(wave),
+              ((NutmegComplexPlot) other).getReal(wave));
+          assertArrayEquals(((NutmegComplexPlot) plot).getImag(wave),
+              ((NutmegComplexPlot) other).getImag(wave));
+        }
+      }
+    }
+  }
+
+  /**
+   * Copy the remaining values of a buffer.
+   *
+   * @param buffer - buffer, its position is not changed
+   * @return values
+   */
+  static double[] toArray(final DoubleBuffer buffer) {
+
+    final double[] values = new double[buffer.remaining()];
+    buffer.duplicate().get(values);
+
+    return values;
+  }
+}
@@ -0,0 +1,90 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegGeneratorTest {
+
+  @Test
+  void test() throws IOException {
+
+    for (final boolean complex : new boolean[] { false, true }) {
+      for (final ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN,
+          ByteOrder.LITTLE_ENDIAN }) {
+
+        final NutmegGenerator generator = NutmegGenerator.getNutmegGenerator()
+            .setNoOfPlots(3).setNoOfVariables(7).setNoOfPoints(50)
+            .setComplex(complex).setDuplicateInterval(3).setByteOrder(order);
+
+        final Path ascii = Files.createTempFile("nutascii", ".raw");
+        ascii.toFile().deleteOnExit();
+        final Path binary = Files.createTempFile("nutbin", ".raw");
+        binary.toFile().deleteOnExit();
+
+        assertNotNull(generator.writeNutascii(ascii.toString()));
+        assertNotNull(generator.writeNutbin(binary.toString()));
+
+        compare(generator, NutReader.getNutasciiReader(ascii.toString())
+            .read().parse().getPlots(), complex);
+        compare(generator, NutReader.getNutbinReader(binary.toString())
+            .read().parse().getPlots(), complex);
+      }
+    }
+  }
+
+  private static void compare(final NutmegGenerator generator,
+      final List<NutmegPlot> plots, final boolean complex) {
+
+    assertEquals(3, plots.size());
+
+    // variables 3 and 6 repeat the names of variables 2 and 5
+    assertEquals("v2", generator.getName(3));
+    assertEquals("v5", generator.getName(6));
+
+    for (int plot = 0; plot < plots.size(); plot++) {
+
+      final NutmegPlot nutmegPlot = plots.get(plot);
+
+      assertEquals(complex, nutmegPlot.isComplex());
+      assertEquals(50, nutmegPlot.getNoOfPoints());
+      assertEquals(5, nutmegPlot.getWaves().size());
+      assertFalse(nutmegPlot.containsWave("v3"));
+
+      for (int variable = 0; variable < 7; variable++) {
+
+        final String name = generator.getName(variable);
+
+        // only the first occurrence of a name is kept
+        if (!name.equals("v" + variable) && (variable > 0)) {
+          continue;
+        }
+
+        assertTrue(nutmegPlot.containsWave(name));
+
+        for (int point = 0; point < 50; point++) {
+          if (complex) {
+            assertEquals(NutmegGenerator.getReal(plot, point, variable),
+                ((NutmegComplexPlot) nutmegPlot).getReal(name)[point],
+                1e-12);
+            assertEquals(NutmegGenerator.getImag(plot, point, variable),
+                ((NutmegComplexPlot) nutmegPlot).getImag(name)[point],
+                1e-12);
+          } else {
+            assertEquals(NutmegGenerator.getReal(plot, point, variable),
+                ((NutmegRealPlot) nutmegPlot).getWave(name)[point], 1e-12);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegIndexTest {
+
+  private static final String DIR = "./src/test/resources/rc1/ngspice/";
+
+  @Test
+  void test() throws IOException {
+
+    final File ascii = copy(DIR + "nutascii.raw");
+    final File binary = copy(DIR + "nutbin.raw");
+
+    compare(NutReader.getNutasciiReader(ascii.getPath()));
+    compare(NutReader.getNutbinReader(binary.getPath()));
+
+    final List<NutmegPlotInfo> infos = NutReader
+        .getNutasciiReader(ascii.getPath()).setIndexed(true).read().scan();
+
+    for (final NutmegPlotInfo info : infos) {
+
+      final long[] checkpoints = info.getCheckpoints();
+
+      assertNotNull(checkpoints);
+      assertEquals(((info.getNoOfPoints() - 1) / 1024) + 1,
+          checkpoints.length);
+
+      for (int i = 0; i < checkpoints.length; i++) {
+
+        final AsciiTokenizer tokenizer = new AsciiTokenizer(
+            ByteSource.map(ascii), checkpoints[i], ascii.length());
+
+        assertEquals(i * 1024, tokenizer.nextDouble());
+      }
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+
+    final List<NutmegPlot> plots = NutReader
+        .getNutasciiReader(ascii.getPath()).read().parse().getPlots();
+    final List<NutmegPlot> indexedPlots = NutReader
+        .getNutasciiReader(ascii.getPath()).setIndexed(true).setPool(pool)
+        .read().parse().getPlots();
+
+    for (int i = 0; i < plots.size(); i++) {
+      for (final String wave : plots.get(i).getWaves()) {
+        if (plots.get(i).isReal()) {
+          assertArrayEquals(((NutmegRealPlot) plots.get(i)).getWave(wave),
+              ((NutmegRealPlot) indexedPlots.get(i)).getWave(wave));
+        } else {
+          assertArrayEquals(((NutmegComplexPlot) plots.get(i)).getReal(wave),
+              ((NutmegComplexPlot) indexedPlots.get(i)).getReal(wave));
+        }
+      }
+    }
+
+    pool.shutdown();
+  }
+
+  @Test
+  void testInvalidation() throws IOException {
+
+    final File binary = copy(DIR + "nutbin.raw");
+    final File index = PlotIndex.getIndexFile(binary);
+
+    NutReader.getNutbinReader(binary.getPath()).setIndexed(true).read()
+        .scan();
+
+    assertNotNull(PlotIndex.read(binary));
+
+    assertTrue(binary.setLastModified(binary.lastModified() - 10000));
+    assertNull(PlotIndex.read(binary));
+
+    NutReader.getNutbinReader(binary.getPath()).setIndexed(true).read()
+        .scan();
+
+    assertNotNull(PlotIndex.read(binary));
+    assertTrue(index.delete());
+  }
+
+  private static void compare(final NutReader reader) {
+
+    final List<NutmegPlotInfo> infos = reader.read().scan();
+
+    assertNull(PlotIndex.read(reader.getFile()));
+
+    // The first indexed scan writes the index, the second one reads it
+    final List<NutmegPlotInfo> written = reader.setIndexed(true).scan();
+    assertTrue(PlotIndex.getIndexFile(reader.getFile()).isFile());
+    assertFalse(new File(PlotIndex.getIndexFile(reader.getFile()).getPath()
+        + ".tmp").exists());
+    final List<NutmegPlotInfo> indexed = reader.scan();
+
+    assertEquals(infos.size(), written.size());
+    assertEquals(infos.size(), indexed.size());
+
+    for (int i = 0; i < infos.size(); i++) {
+
+      final NutmegPlotInfo info = infos.get(i);
+      final NutmegPlotInfo indexedInfo = indexed.get(i);
+
+      assertEquals(info.getPlotname(), indexedInfo.getPlotname());
+      assertEquals(info.isComplex(), indexedInfo.isComplex());
+      assertEquals(info.isBinary(), indexedInfo.isBinary());
+      assertEquals(info.getNoOfPoints(), indexedInfo.getNoOfPoints());
+      assertEquals(info.getVariableNames(), indexedInfo.getVariableNames());
+      assertEquals(info.getVariableUnits(), indexedInfo.getVariableUnits());
+      assertEquals(info.getValueOffset(), indexedInfo.getValueOffset());
+      assertEquals(info.getValueLength(), indexedInfo.getValueLength());
+      assertArrayEquals(written.get(i).getCheckpoints(),
+          indexedInfo.getCheckpoints());
+    }
+  }
+
+  private static File copy(final String file) throws IOException {
+
+    final Path path = Files.createTempFile("nutmeg", ".raw");
+    Files.copy(Paths.get(file), path, StandardCopyOption.REPLACE_EXISTING);
+
+    path.toFile().deleteOnExit();
+    PlotIndex.getIndexFile(path.toFile()).deleteOnExit();
+
+    return path.toFile();
+  }
+}
@@ -0,0 +1,102 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.assertSamePlots;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.complex.Complex;
+import org.junit.jupiter.api.Test;
+
+class NutmegLazyTest {
+
+  @Test
+  void test() {
+
+    for (final String dir : DIRS) {
+
+      compare(parse(ascii(dir)), parse(ascii(dir).setLazy(true)));
+      compare(parse(binary(dir)),
+          parse(binary(dir).setLazy(true).setMemoryMapped(true)));
+    }
+  }
+
+  @Test
+  void testComplexMake() {
+
+    final Map<String, String> units = new HashMap<>();
+    units.put("freq", "Hz");
+    units.put("v", "V");
+
+    final Complex[] freq = { new Complex(1.0), new Complex(2.0) };
+    final Complex[] v = { new Complex(0.5, -0.5), new Complex(0.25, 0.75) };
+
+    final Map<String, Complex[]> waves = new HashMap<>();
+    waves.put("freq", freq);
+    waves.put("v", v);
+
+    final NutmegComplexPlot plot = NutmegComplexPlot.make("AC Analysis", 2, 2,
+        "freq", units, waves);
+
+    assertArrayEquals(new double[] { 0.5, 0.25 }, plot.getReal("v"));
+    assertArrayEquals(new double[] { -0.5, 0.75 }, plot.getImag("v"));
+
+    // the Complex objects of the caller are not kept
+    assertNotSame(v, plot.getWave("v"));
+    assertArrayEquals(v, plot.getWave("v"));
+    assertSame(plot.getWave("v"), plot.getWave("v"));
+  }
+
+  private static void compare(final List<NutmegPlot> eagerPlots,
+      final List<NutmegPlot> lazyPlots) {
+
+    assertSamePlots(eagerPlots, lazyPlots);
+
+    for (final NutmegPlot lazyPlot : lazyPlots) {
+
+      assertNull(lazyPlot.getUnit("no such wave"));
+
+      for (final String wave : lazyPlot.getWaves()) {
+
+        assertTrue(lazyPlot.containsWave(wave));
+
+        if (lazyPlot.isReal()) {
+
+          final NutmegRealPlot lazyRealPlot = (NutmegRealPlot) lazyPlot;
+
+          assertSame(lazyRealPlot.getWave(wave), lazyRealPlot.getWave(wave));
+          assertNull(lazyRealPlot.getWave("no such wave"));
+
+        } else {
+
+          final NutmegComplexPlot lazyComplex = (NutmegComplexPlot) lazyPlot;
+
+          assertSame(lazyComplex.getWave(wave),
+              lazyComplex.getWave(wave));
+
+          final Complex[] complexWave = lazyComplex.getWave(wave);
+          final double[] interleaved = lazyComplex.getInterleaved(wave);
+          final double[] re = lazyComplex.getReal(wave);
+          final double[] im = lazyComplex.getImag(wave);
+
+          for (int j = 0; j < complexWave.length; j++) {
+            assertEquals(re[j], interleaved[2 * j]);
+            assertEquals(im[j], interleaved[(2 * j) + 1]);
+            assertEquals(new Complex(re[j], im[j]), complexWave[j]);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.assertSamePlots;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.toArray;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegOffHeapTest {
+
+  @Test
+  void test() throws IOException {
+
+    for (final String dir : DIRS) {
+
+      final List<NutmegPlot> binPlots = parse(binary(dir));
+
+      compare(parse(ascii(dir)), ascii(dir).setOffHeap(true));
+      compare(binPlots, binary(dir).setOffHeap(true).setMemoryMapped(true));
+
+      final Path cache = Files.createTempFile("nutcache", ".cache");
+      cache.toFile().deleteOnExit();
+
+      assertNotNull(binary(dir).writeCache(cache.toString()));
+
+      compare(binPlots,
+          NutReader.getNutcacheReader(cache.toString()).setOffHeap(true));
+    }
+  }
+
+  @Test
+  void testOnHeapBuffers() {
+
+    final NutmegRealPlot plot = (NutmegRealPlot) NutReader
+        .getNutbinReader("./src/test/resources/rc2/nutbin.raw").read().parse()
+        .getPlots().get(0);
+
+    assertFalse(plot.isOffHeap());
+
+    final DoubleBuffer buffer = plot.getBuffer(plot.getRefWave());
+
+    assertTrue(buffer.isReadOnly());
+    assertEquals(plot.getWave(plot.getRefWave())[0], buffer.get(0));
+
+    plot.close();
+
+    assertTrue(plot.isClosed());
+    assertNull(plot.getWave(plot.getRefWave()));
+    assertNull(plot.getBuffer(plot.getRefWave()));
+  }
+
+  @Test
+  void testClose() {
+
+    final String file = "./src/test/resources/rc1/spectre/nutbin.raw";
+
+    final NutmegRealPlot plot = (NutmegRealPlot) NutReader
+        .getNutbinReader(file).read().parse().getPlots().get(1);
+
+    for (final NutReader reader : new NutReader[] {
+        NutReader.getNutbinReader(file).setOffHeap(true),
+        NutReader.getNutbinReader(file).setLazy(true).setMemoryMapped(true) }) {
+
+      final NutmegRealPlot closed = (NutmegRealPlot) reader.read().parse()
+          .getPlots().get(1);
+      final DoubleBuffer buffer = closed.getBuffer(plot.getRefWave());
+      final DoubleBuffer range = closed.getBuffer(plot.getRefWave(), 1, 2);
+
+      reader.close();
+      System.gc();
+
+      // views that were obtained before remain valid
+      assertArrayEquals(plot.getWave(plot.getRefWave()), toArray(buffer));
+      assertEquals(plot.getWave(plot.getRefWave())[1], range.get(0));
+      assertNull(closed.getBuffer(plot.getRefWave()));
+    }
+
+    final NutReader reader = NutReader.getNutbinReader(file).read();
+    final ValueBlock block = reader.makeBlock(reader.data,
+        reader.scan().get(0));
+
+    block.close();
+
+    assertThrows(IllegalStateException.class, () -> block.decodeReal(0));
+    assertThrows(IllegalStateException.class, () -> block.getReal(0, 0));
+  }
+
+  private static void compare(final List<NutmegPlot> plots,
+      final NutReader reader) {
+
+    final List<NutmegPlot> offHeapPlots = parse(reader);
+
+    assertSamePlots(plots, offHeapPlots);
+
+    for (final NutmegPlot offHeapPlot : offHeapPlots) {
+
+      assertTrue(offHeapPlot.isOffHeap());
+
+      for (final String wave : offHeapPlot.getWaves()) {
+
+        if (offHeapPlot.isReal()) {
+
+          final NutmegRealPlot realPlot = (NutmegRealPlot) offHeapPlot;
+
+          assertNotSame(realPlot.getWave(wave), realPlot.getWave(wave));
+          assertArrayEquals(realPlot.getWave(wave),
+              toArray(realPlot.getBuffer(wave)));
+          assertTrue(realPlot.getBuffer(wave).isDirect());
+
+        } else {
+
+          final NutmegComplexPlot complex = (NutmegComplexPlot) offHeapPlot;
+
+          assertArrayEquals(complex.getReal(wave),
+              toArray(complex.getRealBuffer(wave)));
+          assertArrayEquals(complex.getImag(wave),
+              toArray(complex.getImagBuffer(wave)));
+          assertTrue(complex.getRealBuffer(wave).isReadOnly());
+        }
+      }
+    }
+
+    offHeapPlots.get(0).close();
+
+    assertTrue(offHeapPlots.get(0).isClosed());
+    assertFalse(offHeapPlots.get(offHeapPlots.size() - 1).isClosed());
+
+    reader.close();
+
+    assertTrue(offHeapPlots.isEmpty());
+    assertNull(reader.parse());
+  }
+}
@@ -0,0 +1,59 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.assertSamePlots;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegParallelTest {
+
+  @Test
+  void testPlots() {
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+
+    for (final String dir : DIRS) {
+
+      assertSamePlots(parse(ascii(dir)), parse(ascii(dir).setPool(pool)));
+      assertSamePlots(parse(binary(dir)), parse(binary(dir).setPool(pool)));
+    }
+
+    pool.shutdown();
+  }
+
+  @Test
+  void testLargePlot() throws IOException {
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+
+    final NutmegGenerator generator = NutmegGenerator.getNutmegGenerator()
+        .setNoOfVariables(3).setNoOfPoints(100000);
+
+    final Path ascii = Files.createTempFile("nutascii", ".raw");
+    ascii.toFile().deleteOnExit();
+    final Path binary = Files.createTempFile("nutbin", ".raw");
+    binary.toFile().deleteOnExit();
+
+    generator.writeNutascii(ascii.toString()).writeNutbin(binary.toString());
+
+    assertSamePlots(parse(NutReader.getNutasciiReader(ascii.toString())),
+        parse(NutReader.getNutasciiReader(ascii.toString()).setPool(pool)));
+
+    assertSamePlots(parse(NutReader.getNutbinReader(binary.toString())),
+        parse(NutReader.getNutbinReader(binary.toString()).setPool(pool)));
+
+    assertSamePlots(parse(NutReader.getNutbinReader(binary.toString())),
+        parse(NutReader.getNutbinReader(binary.toString())
+            .setMemoryMapped(true).setPool(pool)));
+
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,78 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegPlotSubclassTest {
+
+  /**
+   * Subclass that implements only the abstract methods of the first
+   * release, like subclasses outside of this package
+   */
+  private static class CustomPlot extends NutmegPlot {
+
+    private final Set<String> waves = new LinkedHashSet<>(
+        Arrays.asList("time", "out"));
+
+    CustomPlot(final Map<String, String> units) {
+      super("custom", 2, 8, "time", units);
+    }
+
+    @Override
+    public boolean containsWave(final String wave) {
+      return this.waves.contains(wave);
+    }
+
+    @Override
+    public Set<String> getWaves() {
+      return this.waves;
+    }
+
+    @Override
+    public boolean isComplex() {
+      return false;
+    }
+
+    @Override
+    public boolean isReal() {
+      return true;
+    }
+
+    @Override
+    public String toVirtuosoCommaSeperatedValues() {
+      return "custom";
+    }
+  }
+
+  @Test
+  void test() {
+
+    final Map<String, String> units = new HashMap<>();
+    units.put("time", "s");
+    units.put("out", "V");
+
+    final NutmegPlot plot = new CustomPlot(units);
+
+    assertFalse(plot.isOffHeap());
+    assertFalse(plot.isSinglePrecision());
+    assertEquals("custom", plot.toVirtuosoCommaSeperatedValues());
+    assertThrows(IOException.class,
+        () -> plot.toVirtuosoCommaSeperatedValues(new StringWriter()));
+
+    // the values are not provided to the package
+    assertNull(plot.getRange(0.0, 1.0));
+    assertNull(plot.getMinMax(Arrays.asList("out"), 4));
+    assertNull(plot.getLttb(Arrays.asList("out"), 4));
+    assertNull(NutmegResampler.getNutmegResampler(new double[] { 0.0, 1.0 })
+        .resample(Arrays.asList(plot)));
+  }
+}
@@ -0,0 +1,123 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegProjectionTest {
+
+  @Test
+  void test() {
+
+    for (final String dir : DIRS) {
+
+      final List<NutmegPlot> asciiPlots = parse(ascii(dir));
+      final List<NutmegPlot> binPlots = parse(binary(dir));
+
+      // select the last wave of each plot
+      final Set<String> selection = new HashSet<>();
+
+      for (final NutmegPlot plot : binPlots) {
+
+        final Iterator<String> iterator = plot.getWaves().iterator();
+        String wave = null;
+
+        while (iterator.hasNext()) {
+          wave = iterator.next();
+        }
+
+        selection.add(wave);
+      }
+
+      compare(asciiPlots, selection, ascii(dir).read().parse(selection));
+      compare(binPlots, selection, binary(dir).read().parse(selection));
+      compare(binPlots, selection, binary(dir).setLazy(true)
+          .setWaveFilter(selection::contains).read().parse());
+    }
+  }
+
+  @Test
+  void testStream() {
+
+    final NutReader reader = NutReader
+        .getNutbinReader("./src/test/resources/rc1/spectre/nutbin.raw")
+        .setWaveFilter(wave -> wave.equals("O"));
+
+    assertNotNull(reader.stream(new PlotHandler() {
+
+      private NutmegPlotInfo info;
+
+      @Override
+      public void startPlot(final NutmegPlotInfo info) {
+        this.info = info;
+      }
+
+      @Override
+      public void points(final PointChunk chunk) {
+
+        final List<String> names = this.info.getVariableNames();
+
+        for (int i = 0; i < chunk.getNoOfVariables(); i++) {
+          if ((i == 0) || names.get(i).equals("O")) {
+            assertNotNull(chunk.getReal(i));
+          } else {
+            assertNull(chunk.getReal(i));
+            assertNull(chunk.getImag(i));
+          }
+        }
+      }
+
+      @Override
+      public void endPlot() {
+      }
+    }));
+  }
+
+  private static void compare(final List<NutmegPlot> plots,
+      final Set<String> selection, final NutReader reader) {
+
+    assertEquals(plots.size(), reader.getPlots().size());
+
+    for (int i = 0; i < plots.size(); i++) {
+
+      final NutmegPlot plot = plots.get(i);
+      final NutmegPlot projection = reader.getPlots().get(i);
+
+      final Set<String> waves = new HashSet<>();
+      waves.add(plot.getRefWave());
+
+      for (final String wave : plot.getWaves()) {
+        if (selection.contains(wave)) {
+          waves.add(wave);
+        }
+      }
+
+      assertEquals(waves, projection.getWaves());
+      assertEquals(waves.size(), projection.getNoOfWaves());
+
+      for (final String wave : waves) {
+        if (plot.isReal()) {
+          assertArrayEquals(((NutmegRealPlot) plot).getWave(wave),
+              ((NutmegRealPlot) projection).getWave(wave));
+        } else {
+          assertArrayEquals(((NutmegComplexPlot) plot).getReal(wave),
+              ((NutmegComplexPlot) projection).getReal(wave));
+          assertArrayEquals(((NutmegComplexPlot) plot).getImag(wave),
+              ((NutmegComplexPlot) projection).getImag(wave));
+        }
+      }
+    }
+  }
+}
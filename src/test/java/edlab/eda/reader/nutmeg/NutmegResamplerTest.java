@@ -0,0 +1,216 @@
+package edlab.eda.reader.nutmeg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegResamplerTest {
+
+  @Test
+  void test() {
+
+    final NutmegRealPlot a = makePlot(new double[] { 0.0, 1.0, 2.0, 3.0 },
+        new double[] { 0.0, 2.0, 4.0, 6.0 });
+    final NutmegRealPlot b = makePlot(new double[] { 0.5, 1.5, 2.5, 3.5 },
+        new double[] { 0.25, 2.25, 6.25, 12.25 });
+
+    final List<NutmegPlot> plots = NutmegResampler.getNutmegResampler(0.5)
+        .resample(Arrays.asList(a, b));
+
+    final NutmegRealPlot resampledA = (NutmegRealPlot) plots.get(0);
+    final NutmegRealPlot resampledB = (NutmegRealPlot) plots.get(1);
+
+    assertArrayEquals(new double[] { 0.5, 1.0, 1.5, 2.0, 2.5, 3.0 },
+        resampledA.getWave("time"));
+    assertSame(resampledA.getWave("time"), resampledB.getWave("time"));
+    assertEquals(a.getUnit("v"), resampledA.getUnit("v"));
+
+    assertArrayEquals(new double[] { 1.0, 2.0, 3.0, 4.0, 5.0, 6.0 },
+        resampledA.getWave("v"));
+    assertArrayEquals(new double[] { 0.25, 1.25, 2.25, 4.25, 6.25, 9.25 },
+        resampledB.getWave("v"));
+
+    final NutmegRealPlot outside = (NutmegRealPlot) NutmegResampler
+        .getNutmegResampler(new double[] { -1.0, 0.0, 2.5, 4.0 })
+        .resample(a);
+
+    assertArrayEquals(new double[] { Double.NaN, 0.0, 5.0, Double.NaN },
+        outside.getWave("v"));
+  }
+
+  @Test
+  void testStep() {
+
+    final NutmegRealPlot plot = makePlot(new double[] { 0.1, 0.4, 0.7 },
+        new double[] { 1.0, 4.0, 7.0 });
+
+    final NutmegRealPlot resampled = (NutmegRealPlot) NutmegResampler
+        .getNutmegResampler(0.1).resample(plot);
+
+    final double[] time = resampled.getWave("time");
+    final double[] values = resampled.getWave("v");
+
+    assertEquals(7, resampled.getNoOfPoints());
+    assertEquals(0.7, time[time.length - 1]);
+
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(time[i] * 10.0, values[i], 1e-12);
+    }
+  }
+
+  @Test
+  void testCubic() {
+
+    final double[] time = new double[200];
+    final double[] values = new double[time.length];
+
+    for (int i = 0; i < time.length; i++) {
+      // adaptive time steps
+      time[i] = (i * 0.05) + (0.02 * Math.sin(i));
+      values[i] = Math.sin(time[i]);
+    }
+
+    final NutmegRealPlot plot = makePlot(time, values);
+
+    final NutmegRealPlot linear = (NutmegRealPlot) NutmegResampler
+        .getNutmegResampler(0.01).resample(plot);
+    final NutmegRealPlot cubic = (NutmegRealPlot) NutmegResampler
+        .getNutmegResampler(0.01).setCubic(true).resample(plot);
+
+    double linearError = 0.0;
+    double cubicError = 0.0;
+
+    for (int i = 0; i < linear.getNoOfPoints(); i++) {
+
+      linearError = Math.max(linearError, Math.abs(
+          linear.getWave("v")[i] - Math.sin(linear.getWave("time")[i])));
+      cubicError = Math.max(cubicError, Math
+          .abs(cubic.getWave("v")[i] - Math.sin(cubic.getWave("time")[i])));
+    }
+
+    assertTrue(cubicError < (linearError / 10.0));
+
+    final NutmegRealPlot line = makePlot(new double[] { 0.0, 0.1, 0.4, 1.0 },
+        new double[] { 1.0, 1.2, 1.8, 3.0 });
+    final NutmegRealPlot cubicLine = (NutmegRealPlot) NutmegResampler
+        .getNutmegResampler(0.25).setCubic(true).resample(line);
+
+    assertArrayEquals(new double[] { 1.0, 1.5, 2.0, 2.5, 3.0 },
+        cubicLine.getWave("v"), 1e-12);
+  }
+
+  @Test
+  void testFiles() throws IOException {
+
+    final Path file = Files.createTempFile("nutbin", ".raw");
+    file.toFile().deleteOnExit();
+
+    for (final boolean complex : new boolean[] { false, true }) {
+
+      final NutmegGenerator generator = NutmegGenerator.getNutmegGenerator()
+          .setNoOfPlots(2).setNoOfVariables(4).setNoOfPoints(1000)
+          .setComplex(complex);
+      generator.writeNutbin(file.toString());
+
+      final List<NutmegPlot> plots = NutReader
+          .getNutbinReader(file.toString()).read().parse().getPlots();
+      final List<NutmegPlot> lazyPlots = NutReader
+          .getNutbinReader(file.toString()).setLazy(true)
+          .setMemoryMapped(true).read().parse().getPlots();
+
+      final NutmegResampler resampler = NutmegResampler
+          .getNutmegResampler(0.5e-3);
+
+      final List<NutmegPlot> resampled = resampler.resample(plots);
+      final List<NutmegPlot> lazyResampled = resampler.resample(lazyPlots);
+
+      for (int i = 0; i < plots.size(); i++) {
+
+        final NutmegPlot plot = resampled.get(i);
+
+        assertEquals(complex, plot.isComplex());
+        assertEquals(1999, plot.getNoOfPoints());
+
+        for (int j = 1; j < 4; j++) {
+
+          final String wave = generator.getName(j);
+          final double[] re = getReal(plot, wave);
+
+          assertArrayEquals(re, getReal(lazyResampled.get(i), wave));
+
+          // even points of the grid are points of the plot
+          for (int k = 0; k < 1000; k++) {
+            assertEquals(NutmegGenerator.getReal(i, k, j), re[2 * k], 1e-12);
+          }
+
+          for (int k = 0; k < 999; k++) {
+            assertEquals((NutmegGenerator.getReal(i, k, j)
+                + NutmegGenerator.getReal(i, k + 1, j)) / 2.0, re[(2 * k) + 1],
+                1e-12);
+          }
+
+          if (complex) {
+            assertEquals(NutmegGenerator.getImag(i, 10, j),
+                ((NutmegComplexPlot) plot).getImag(wave)[20], 1e-12);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testInvalid() {
+
+    final NutmegRealPlot plot = makePlot(new double[] { 0.0, 1.0, 2.0 },
+        new double[] { 0.0, 1.0, 2.0 });
+    final NutmegRealPlot descending = makePlot(new double[] { 2.0, 1.0, 0.0 },
+        new double[] { 0.0, 1.0, 2.0 });
+    final NutmegRealPlot later = makePlot(new double[] { 5.0, 6.0, 7.0 },
+        new double[] { 0.0, 1.0, 2.0 });
+
+    assertNull(NutmegResampler.getNutmegResampler(0.0));
+    assertNull(NutmegResampler.getNutmegResampler(new double[] { 1.0, 0.0 }));
+    assertNull(NutmegResampler.getNutmegResampler(0.5).resample(descending));
+    assertNull(NutmegResampler.getNutmegResampler(0.5)
+        .resample(Arrays.asList(plot, later)));
+
+    plot.close();
+
+    assertNull(NutmegResampler.getNutmegResampler(0.5).resample(plot));
+  }
+
+  private static NutmegRealPlot makePlot(final double[] time,
+      final double[] values) {
+
+    final Map<String, String> units = new HashMap<>();
+    units.put("time", "s");
+    units.put("v", "V");
+
+    final Map<String, double[]> waves = new HashMap<>();
+    waves.put("time", time);
+    waves.put("v", values);
+
+    return NutmegRealPlot.make("Transient Analysis `tran'", 2, time.length,
+        "time", units, waves);
+  }
+
+  private static double[] getReal(final NutmegPlot plot, final String wave) {
+    if (plot.isComplex()) {
+      return ((NutmegComplexPlot) plot).getReal(wave);
+    } else {
+      return ((NutmegRealPlot) plot).getWave(wave);
+    }
+  }
+}
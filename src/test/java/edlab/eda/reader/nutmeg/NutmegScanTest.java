@@ -0,0 +1,150 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegScanTest {
+
+  @Test
+  void test() {
+
+    for (final String dir : DIRS) {
+
+      final List<NutmegPlotInfo> asciiInfos = ascii(dir)
+          .setMemoryMapped(true).read().scan();
+      final List<NutmegPlotInfo> binInfos = binary(dir).setMemoryMapped(true)
+          .read().scan();
+
+      final List<NutmegPlot> plots = parse(binary(dir));
+
+      assertEquals(plots.size(), asciiInfos.size());
+      assertEquals(plots.size(), binInfos.size());
+
+      for (int i = 0; i < plots.size(); i++) {
+
+        final NutmegPlotInfo asciiInfo = asciiInfos.get(i);
+        final NutmegPlotInfo binInfo = binInfos.get(i);
+        final NutmegPlot plot = plots.get(i);
+
+        assertEquals(plot.getPlotname(), binInfo.getPlotname());
+        assertEquals(plot.getPlotname(), asciiInfo.getPlotname());
+        assertEquals(plot.getNoOfPoints(), binInfo.getNoOfPoints());
+        assertEquals(plot.getNoOfPoints(), asciiInfo.getNoOfPoints());
+        assertEquals(plot.isComplex(), binInfo.isComplex());
+        assertEquals(plot.isComplex(), asciiInfo.isComplex());
+        assertEquals(plot.getRefWave(), binInfo.getRefWave());
+        assertEquals(asciiInfo.getVariableNames(), binInfo.getVariableNames());
+        assertEquals(asciiInfo.getVariableUnits(), binInfo.getVariableUnits());
+
+        for (int j = 0; j < binInfo.getNoOfVariables(); j++) {
+          assertTrue(plot.containsWave(binInfo.getVariableNames().get(j)));
+        }
+
+        assertTrue(binInfo.isBinary());
+        assertFalse(asciiInfo.isBinary());
+
+        assertEquals((binInfo.isComplex() ? 2L : 1L) * Double.BYTES
+            * binInfo.getNoOfPoints() * binInfo.getNoOfVariables(),
+            binInfo.getValueLength());
+        assertTrue(asciiInfo.getValueLength() > 0);
+      }
+
+      final NutmegPlotInfo last = binInfos.get(binInfos.size() - 1);
+
+      assertTrue((last.getValueOffset() + last.getValueLength()) <= new File(
+          dir + "nutbin.raw").length());
+    }
+  }
+
+  @Test
+  void testPlotFilter() {
+
+    final String dir = "./src/test/resources/rc1/spectre/";
+
+    for (final NutReader reader : new NutReader[] {
+        NutReader.getNutasciiReader(dir + "nutascii.raw"),
+        NutReader.getNutbinReader(dir + "nutbin.raw") }) {
+
+      reader.read();
+
+      assertEquals("ac", reader.scan().get(2).getAnalysis());
+
+      reader.setPlotFilter(NutmegPlotInfo.byAnalysis("tran")).parse();
+      assertEquals(1, reader.getPlots().size());
+      assertTrue(reader.getPlots().get(0).getPlotname()
+          .startsWith("Transient Analysis `tran'"));
+
+      reader.setPlotFilter(NutmegPlotInfo.byPlotname("DC Analysis `dc1'"))
+          .parse();
+      assertEquals(1, reader.getPlots().size());
+      assertEquals(1, reader.getPlots().get(0).getNoOfPoints());
+
+      reader.setPlotFilter(NutmegPlotInfo.byPlotname(Pattern.compile("DC.*")))
+          .parse();
+      assertEquals(2, reader.getPlots().size());
+
+      reader.setPlotFilter(null).setPool(ForkJoinPool.commonPool()).parse();
+      assertEquals(4, reader.getPlots().size());
+    }
+
+    assertEquals("dcop", NutReader
+        .getNutbinReader("./src/test/resources/op/nutbin.raw").read().scan()
+        .get(0).getAnalysis());
+  }
+
+  @Test
+  void testKeywordInPayload() throws IOException {
+
+    final String header = "Title: payload\nDate: today\n"
+        + "Plotname: first\nFlags: real\nNo. Variables: 2\n"
+        + "No. Points: 2\nVariables:\t0\ttime\ts\n\t\t1\tv\tV\n"
+        + "Binary:\n";
+
+    // The second value of the first plot is the keyword of the next plot
+    final ByteBuffer payload = ByteBuffer.allocate(4 * Double.BYTES);
+    payload.putDouble(0.0);
+    payload.put("Plotname".getBytes(StandardCharsets.US_ASCII));
+    payload.putDouble(1.0);
+    payload.put("Flags: r".getBytes(StandardCharsets.US_ASCII));
+
+    final String next = "Plotname: second\nFlags: real\nNo. Variables: 1\n"
+        + "No. Points: 1\nVariables:\t0\ttime\ts\nBinary:\n";
+
+    final ByteBuffer file = ByteBuffer.allocate(header.length()
+        + payload.capacity() + next.length() + Double.BYTES);
+    file.put(header.getBytes(StandardCharsets.US_ASCII));
+    file.put(payload.array());
+    file.put(next.getBytes(StandardCharsets.US_ASCII));
+    file.putDouble(2.0);
+
+    final Path path = Files.createTempFile("nutbin", ".raw");
+    path.toFile().deleteOnExit();
+    Files.write(path, file.array());
+
+    final NutReader reader = NutReader.getNutbinReader(path.toString())
+        .read().parse();
+
+    assertEquals(2, reader.getPlots().size());
+    assertEquals("first", reader.getPlots().get(0).getPlotname());
+    assertEquals("second", reader.getPlots().get(1).getPlotname());
+    assertEquals(2.0,
+        ((NutmegRealPlot) reader.getPlots().get(1)).getWave("time")[0]);
+  }
+}
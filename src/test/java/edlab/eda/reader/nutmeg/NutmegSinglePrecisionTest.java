@@ -0,0 +1,197 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegSinglePrecisionTest {
+
+  @Test
+  void testStorage() {
+
+    final ForkJoinPool pool = new ForkJoinPool(2);
+
+    for (final String dir : DIRS) {
+
+      final List<NutmegPlot> binPlots = parse(binary(dir));
+
+      compare(parse(ascii(dir)), ascii(dir).setSinglePrecision(true));
+      compare(binPlots, binary(dir).setSinglePrecision(true).setPool(pool));
+      compare(binPlots, binary(dir).setSinglePrecision(true).setLazy(true)
+          .setMemoryMapped(true));
+    }
+
+    pool.shutdown();
+  }
+
+  @Test
+  void testFloatFile() throws IOException {
+
+    for (final boolean complex : new boolean[] { false, true }) {
+      for (final ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN,
+          ByteOrder.LITTLE_ENDIAN }) {
+
+        final Path path = Files.createTempFile("nutbin", ".raw");
+        path.toFile().deleteOnExit();
+
+        assertNotNull(NutmegGenerator.getNutmegGenerator().setNoOfPlots(2)
+            .setNoOfVariables(5).setNoOfPoints(2000).setComplex(complex)
+            .setByteOrder(order).setSinglePrecision(true)
+            .writeNutbin(path.toString()));
+
+        // the header does not state the size of the values
+        for (final NutmegPlotInfo info : NutReader.getReader(path.toString())
+            .read().scan()) {
+          assertFalse(info.isSinglePrecision());
+        }
+
+        final NutReader reader = NutReader.getReader(path.toString())
+            .setBinaryValueSize(4);
+
+        assertTrue(reader instanceof NutbinReader);
+        assertEquals(4, reader.getBinaryValueSize());
+
+        final List<NutmegPlotInfo> infos = reader.read().scan();
+
+        assertEquals(2, infos.size());
+        assertTrue(infos.get(0).isSinglePrecision());
+        assertEquals((complex ? 2L : 1L) * 5 * 2000 * Float.BYTES,
+            infos.get(0).getValueLength());
+
+        final List<NutmegPlot> plots = reader.parse().getPlots();
+
+        assertEquals(2, plots.size());
+
+        for (int plot = 0; plot < plots.size(); plot++) {
+          for (int variable = 0; variable < 5; variable++) {
+
+            final String name = plots.get(plot).isComplex()
+                ? (variable == 0 ? "freq" : "v" + variable)
+                : (variable == 0 ? "time" : "v" + variable);
+
+            for (int point = 0; point < 2000; point += 7) {
+
+              final float re = (float) NutmegGenerator.getReal(plot, point,
+                  variable);
+
+              if (complex) {
+
+                final NutmegComplexPlot complexPlot;
+                complexPlot = (NutmegComplexPlot) plots.get(plot);
+
+                assertEquals(re, complexPlot.getReal(name)[point]);
+                assertEquals(
+                    (float) NutmegGenerator.getImag(plot, point, variable),
+                    complexPlot.getImag(name)[point]);
+
+              } else {
+                assertEquals(re,
+                    ((NutmegRealPlot) plots.get(plot)).getWave(name)[point]);
+              }
+            }
+          }
+        }
+
+        reader.close();
+      }
+    }
+  }
+
+  private static void compare(final List<NutmegPlot> plots,
+      final NutReader reader) {
+
+    final List<NutmegPlot> floatPlots = parse(reader);
+
+    assertEquals(plots.size(), floatPlots.size());
+
+    for (int i = 0; i < plots.size(); i++) {
+
+      final NutmegPlot plot = plots.get(i);
+      final NutmegPlot floatPlot = floatPlots.get(i);
+
+      assertTrue(floatPlot.isSinglePrecision());
+      assertFalse(plot.isSinglePrecision());
+      assertEquals(plot.getWaves(), floatPlot.getWaves());
+
+      final String refWave = plot.getRefWave();
+
+      for (final String wave : plot.getWaves()) {
+
+        if (plot.isReal()) {
+
+          final NutmegRealPlot realPlot = (NutmegRealPlot) plot;
+          final NutmegRealPlot floatRealPlot = (NutmegRealPlot) floatPlot;
+
+          if (wave.equals(refWave)) {
+            assertArrayEquals(realPlot.getWave(wave),
+                floatRealPlot.getWave(wave));
+            assertNotSame(floatRealPlot.getWave(wave),
+                floatRealPlot.getWave(wave));
+          } else {
+            assertSame(floatRealPlot.getFloatWave(wave),
+                floatRealPlot.getFloatWave(wave));
+            assertArrayEquals(ValueBlock.toDouble(
+                ValueBlock.toFloat(realPlot.getWave(wave))),
+                floatRealPlot.getWave(wave));
+          }
+
+          assertArrayEquals(realPlot.getFloatWave(wave),
+              floatRealPlot.getFloatWave(wave));
+
+        } else {
+
+          final NutmegComplexPlot complexPlot = (NutmegComplexPlot) plot;
+          final NutmegComplexPlot floatComplexPlot;
+          floatComplexPlot = (NutmegComplexPlot) floatPlot;
+
+          if (wave.equals(refWave)) {
+            assertArrayEquals(complexPlot.getReal(wave),
+                floatComplexPlot.getReal(wave));
+            assertArrayEquals(complexPlot.getImag(wave),
+                floatComplexPlot.getImag(wave));
+            assertNotSame(floatComplexPlot.getReal(wave),
+                floatComplexPlot.getReal(wave));
+          } else {
+            assertArrayEquals(ValueBlock.toDouble(
+                ValueBlock.toFloat(complexPlot.getImag(wave))),
+                floatComplexPlot.getImag(wave));
+          }
+
+          assertArrayEquals(complexPlot.getRealFloat(wave),
+              floatComplexPlot.getRealFloat(wave));
+          assertArrayEquals(complexPlot.getImagFloat(wave),
+              floatComplexPlot.getImagFloat(wave));
+        }
+      }
+    }
+
+    floatPlots.get(0).close();
+
+    assertTrue(floatPlots.get(0).isClosed());
+
+    if (floatPlots.get(0).isReal()) {
+      assertNull(((NutmegRealPlot) floatPlots.get(0))
+          .getFloatWave(floatPlots.get(0).getRefWave()));
+    }
+
+    reader.close();
+  }
+}
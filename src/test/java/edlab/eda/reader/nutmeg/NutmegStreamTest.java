@@ -0,0 +1,179 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class NutmegStreamTest {
+
+  @Test
+  void test() {
+
+    for (final String dir : DIRS) {
+
+      compare(ascii(dir), -1);
+      compare(ascii(dir), 7);
+      compare(binary(dir), -1);
+      compare(binary(dir), 7);
+    }
+  }
+
+  @Test
+  void testInvalid() throws IOException {
+
+    final String text = new String(Files.readAllBytes(
+        Paths.get("./src/test/resources/rc2/nutascii.raw")),
+        StandardCharsets.US_ASCII);
+    final Path file = Files.createTempFile("nutascii", ".raw");
+    file.toFile().deleteOnExit();
+
+    // the file ends in the middle of the values of the first plot
+    Files.write(file, text.substring(0, text.indexOf("Values:") + 20)
+        .getBytes(StandardCharsets.US_ASCII));
+
+    final int[] calls = new int[2];
+
+    final PlotHandler handler = new PlotHandler() {
+
+      @Override
+      public void startPlot(final NutmegPlotInfo info) {
+        calls[0]++;
+      }
+
+      @Override
+      public void points(final PointChunk chunk) {
+      }
+
+      @Override
+      public void endPlot() {
+        calls[1]++;
+      }
+    };
+
+    assertNull(NutReader.getNutasciiReader(file.toString()).stream(handler));
+    assertEquals(1, calls[0]);
+    assertEquals(calls[0], calls[1]);
+  }
+
+  private static void compare(final NutReader reader, final int chunkSize) {
+
+    final Collector collector = new Collector();
+
+    assertNotNull(reader.stream(collector, chunkSize));
+
+    final List<NutmegPlot> plots = parse(reader);
+
+    assertEquals(plots.size(), collector.infos.size());
+
+    for (int i = 0; i < plots.size(); i++) {
+
+      final NutmegPlot plot = plots.get(i);
+      final NutmegPlotInfo info = collector.infos.get(i);
+      final double[][] re = collector.re.get(i);
+      final double[][] im = collector.im.get(i);
+
+      assertEquals(plot.getPlotname(), info.getPlotname());
+
+      for (final String wave : plot.getWaves()) {
+
+        final int column = info.getVariableNames().indexOf(wave);
+
+        if (plot.isReal()) {
+          assertArrayEquals(((NutmegRealPlot) plot).getWave(wave),
+              re[column]);
+          assertNull(im[column]);
+        } else {
+          assertArrayEquals(((NutmegComplexPlot) plot).getReal(wave),
+              re[column]);
+          assertArrayEquals(((NutmegComplexPlot) plot).getImag(wave),
+              im[column]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Handler that collects all streamed values
+   */
+  private static final class Collector implements PlotHandler {
+
+    private final List<NutmegPlotInfo> infos = new ArrayList<>();
+    private final List<double[][]> re = new ArrayList<>();
+    private final List<double[][]> im = new ArrayList<>();
+
+    private NutmegPlotInfo info = null;
+    private int noOfPoints = 0;
+
+    @Override
+    public void startPlot(final NutmegPlotInfo info) {
+
+      assertNull(this.info);
+
+      this.info = info;
+      this.noOfPoints = 0;
+      this.re.add(new double[info.getNoOfVariables()][info.getNoOfPoints()]);
+      this.im.add(new double[info.getNoOfVariables()][]);
+
+      if (info.isComplex()) {
+        for (int i = 0; i < info.getNoOfVariables(); i++) {
+          this.im.get(this.im.size() - 1)[i] = new double[info
+              .getNoOfPoints()];
+        }
+      }
+    }
+
+    @Override
+    public void points(final PointChunk chunk) {
+
+      assertEquals(this.noOfPoints, chunk.getFirstPoint());
+      assertTrue(chunk.getNoOfPoints() > 0);
+      assertEquals(this.info.getNoOfVariables(), chunk.getNoOfVariables());
+
+      final double[][] re = this.re.get(this.re.size() - 1);
+      final double[][] im = this.im.get(this.im.size() - 1);
+
+      for (int i = 0; i < chunk.getNoOfVariables(); i++) {
+
+        if (chunk.getReal(i) == null) {
+          re[i] = null;
+          continue;
+        }
+
+        System.arraycopy(chunk.getReal(i), 0, re[i], chunk.getFirstPoint(),
+            chunk.getNoOfPoints());
+
+        if (im[i] != null) {
+          System.arraycopy(chunk.getImag(i), 0, im[i], chunk.getFirstPoint(),
+              chunk.getNoOfPoints());
+        }
+      }
+
+      this.noOfPoints += chunk.getNoOfPoints();
+    }
+
+    @Override
+    public void endPlot() {
+
+      assertEquals(this.info.getNoOfPoints(), this.noOfPoints);
+
+      this.infos.add(this.info);
+      this.info = null;
+    }
+  }
+}
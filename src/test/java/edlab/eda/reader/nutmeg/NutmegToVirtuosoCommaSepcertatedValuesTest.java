@@ -2,7 +2,12 @@ package edlab.eda.reader.nutmeg;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -31,4 +36,93 @@ class NutmegToVirtuosoCommaSepcertatedValuesTest {
       plot.toVirtuosoCommaSeperatedValues();
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  void testStreaming() throws IOException {
+
+    final String path = "./src/test/resources/op/nutbin.raw";
+
+    final List<NutmegPlot> plots = NutReader.getNutbinReader(path).read()
+        .parse().getPlots();
+
+    final File file = File.createTempFile("nutmeg", ".vcsv");
+    file.deleteOnExit();
+
+    for (NutmegPlot plot : plots) {
+
+      final String vcsv = plot.toVirtuosoCommaSeperatedValues();
+
+      final StringWriter writer = new StringWriter();
+      plot.toVirtuosoCommaSeperatedValues(writer);
+      assertEquals(vcsv, writer.toString());
+
+      final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      plot.toVirtuosoCommaSeperatedValues(stream);
+      assertEquals(vcsv, stream.toString());
+
+      plot.toVirtuosoCommaSeperatedValues(file);
+      assertEquals(vcsv, new String(Files.readAllBytes(file.toPath())));
+
+      assertEquals(plot.getNoOfPoints() + 6, vcsv.split("\n").length);
+    }
+  }
+
+  @Test
+  void testLazy() throws IOException {
+
+    for (final boolean complex : new boolean[] { false, true }) {
+
+      final Path file = Files.createTempFile("nutbin", ".raw");
+      file.toFile().deleteOnExit();
+
+      // more points than are read at once
+      NutmegGenerator.getNutmegGenerator().setNoOfVariables(4)
+          .setNoOfPoints((2 * NutmegPlot.VCSV_POINTS) + 3).setComplex(complex)
+          .writeNutbin(file.toString());
+
+      final List<NutmegPlot> plots = NutReader
+          .getNutbinReader(file.toString()).read().parse().getPlots();
+
+      for (final boolean offHeap : new boolean[] { false, true }) {
+
+        final NutReader reader = NutReader.getNutbinReader(file.toString())
+            .setLazy(true).setOffHeap(offHeap).read().parse();
+
+        for (int i = 0; i < plots.size(); i++) {
+          assertEquals(plots.get(i).toVirtuosoCommaSeperatedValues(),
+              reader.getPlots().get(i).toVirtuosoCommaSeperatedValues());
+        }
+
+        reader.close();
+      }
+    }
+  }
+
+  @Test
+  void testLazyAscii() throws IOException {
+
+    for (final boolean complex : new boolean[] { false, true }) {
+
+      final Path file = Files.createTempFile("nutascii", ".raw");
+      file.toFile().deleteOnExit();
+
+      // the block is decoded once, not once per range of points
+      NutmegGenerator.getNutmegGenerator().setNoOfVariables(5)
+          .setNoOfPoints((10 * NutmegPlot.VCSV_POINTS) + 5)
+          .setComplex(complex).writeNutascii(file.toString());
+
+      final List<NutmegPlot> plots = NutReader
+          .getNutasciiReader(file.toString()).read().parse().getPlots();
+
+      final NutReader reader = NutReader.getNutasciiReader(file.toString())
+          .setLazy(true).read().parse();
+
+      for (int i = 0; i < plots.size(); i++) {
+        assertEquals(plots.get(i).toVirtuosoCommaSeperatedValues(),
+            reader.getPlots().get(i).toVirtuosoCommaSeperatedValues());
+      }
+
+      reader.close();
+    }
+  }
+}
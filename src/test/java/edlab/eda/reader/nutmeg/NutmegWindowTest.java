@@ -0,0 +1,203 @@
+package edlab.eda.reader.nutmeg;
+
+import static edlab.eda.reader.nutmeg.NutmegFixtures.DIRS;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.ascii;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.binary;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.parse;
+import static edlab.eda.reader.nutmeg.NutmegFixtures.toArray;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.complex.Complex;
+import org.junit.jupiter.api.Test;
+
+class NutmegWindowTest {
+
+  @Test
+  void test() throws IOException {
+
+    for (final String dir : DIRS) {
+
+      final List<NutmegPlot> plots = parse(binary(dir));
+
+      final Path cache = Files.createTempFile("nutcache", ".cache");
+      cache.toFile().deleteOnExit();
+
+      assertNotNull(binary(dir).writeCache(cache.toString()));
+
+      compare(plots, binary(dir));
+      compare(plots, binary(dir).setLazy(true).setMemoryMapped(true));
+      compare(plots, binary(dir).setOffHeap(true));
+      compare(plots, NutReader.getNutcacheReader(cache.toString()));
+      compare(parse(ascii(dir)), ascii(dir).setLazy(true));
+    }
+  }
+
+  @Test
+  void testLargePlot() throws IOException {
+
+    final Path ascii = Files.createTempFile("nutascii", ".raw");
+    ascii.toFile().deleteOnExit();
+    final Path binary = Files.createTempFile("nutbin", ".raw");
+    binary.toFile().deleteOnExit();
+
+    for (final boolean complex : new boolean[] { false, true }) {
+
+      NutmegGenerator.getNutmegGenerator().setNoOfVariables(4)
+          .setNoOfPoints(10000).setComplex(complex)
+          .writeNutascii(ascii.toString()).writeNutbin(binary.toString());
+
+      final List<NutmegPlot> plots = parse(
+          NutReader.getNutbinReader(binary.toString()));
+
+      compare(plots, NutReader.getNutbinReader(binary.toString())
+          .setLazy(true).setMemoryMapped(true));
+      compare(parse(NutReader.getNutasciiReader(ascii.toString())),
+          NutReader.getNutasciiReader(ascii.toString()).setLazy(true)
+              .setIndexed(true));
+      compare(plots, NutReader.getNutbinReader(binary.toString())
+          .setSinglePrecision(true));
+
+      new java.io.File(ascii + PlotIndex.EXTENSION).delete();
+    }
+  }
+
+  @Test
+  void testDescending() {
+
+    final Map<String, String> units = new HashMap<>();
+    units.put("v", "V");
+    units.put("i", "A");
+
+    final Map<String, double[]> waves = new HashMap<>();
+    waves.put("v", new double[] { 5.0, 4.0, 3.0, 2.0, 1.0 });
+    waves.put("i", new double[] { 0.5, 0.4, 0.3, 0.2, 0.1 });
+
+    final NutmegRealPlot plot = NutmegRealPlot.make("DC Analysis `dc'", 2,
+        5, "v", units, waves);
+
+    assertArrayEquals(new int[] { 2, 4 }, plot.getRange(3.5, 1.5));
+    assertArrayEquals(new double[] { 0.3, 0.2 },
+        toArray(plot.getWave("i", 1.5, 3.5)));
+    assertArrayEquals(new int[] { 5, 5 }, plot.getRange(-1.0, 0.0));
+    assertEquals(0, plot.getWave("i", 10.0, 20.0).remaining());
+
+    assertNull(plot.getBuffer("i", 3, 6));
+    assertNull(plot.getWave("x", 1.5, 3.5));
+
+    plot.close();
+
+    assertNull(plot.getRange(1.5, 3.5));
+    assertNull(plot.getWave("i", 1.5, 3.5));
+  }
+
+  private static void compare(final List<NutmegPlot> plots,
+      final NutReader reader) {
+
+    final List<NutmegPlot> windowPlots = parse(reader);
+
+    assertEquals(plots.size(), windowPlots.size());
+
+    for (int i = 0; i < plots.size(); i++) {
+
+      final NutmegPlot plot = plots.get(i);
+      final NutmegPlot windowPlot = windowPlots.get(i);
+
+      final double[] ref = plot.isReal()
+          ? ((NutmegRealPlot) plot).getWave(plot.getRefWave())
+          : ((NutmegComplexPlot) plot).getReal(plot.getRefWave());
+
+      if (!isAscending(ref)) {
+        continue;
+      }
+
+      final double from = ref[ref.length / 4];
+      final double to = ref[ref.length / 2];
+
+      int first = 0;
+      int last = ref.length;
+
+      while ((first < ref.length) && (ref[first] < from)) {
+        first++;
+      }
+
+      while ((last > 0) && (ref[last - 1] > to)) {
+        last--;
+      }
+
+      assertArrayEquals(new int[] { first, last },
+          windowPlot.getRange(to, from));
+
+      for (final String wave : plot.getWaves()) {
+
+        if (plot.isReal()) {
+
+          final double[] values = Arrays.copyOfRange(
+              ((NutmegRealPlot) plot).getWave(wave), first, last);
+          final DoubleBuffer buffer = ((NutmegRealPlot) windowPlot)
+              .getWave(wave, from, to);
+
+          assertTrue(buffer.isReadOnly());
+
+          if (windowPlot.isSinglePrecision()
+              && !wave.equals(plot.getRefWave())) {
+            assertArrayEquals(ValueBlock.toDouble(ValueBlock.toFloat(values)),
+                toArray(buffer));
+          } else {
+            assertArrayEquals(values, toArray(buffer));
+          }
+
+        } else {
+
+          final NutmegComplexPlot complexPlot = (NutmegComplexPlot) plot;
+          final NutmegComplexPlot windowComplexPlot;
+          windowComplexPlot = (NutmegComplexPlot) windowPlot;
+
+          final Complex[] values = windowComplexPlot.getWave(wave, from, to);
+
+          assertEquals(last - first, values.length);
+
+          for (int j = first; j < last; j++) {
+
+            if (windowPlot.isSinglePrecision()
+                && !wave.equals(plot.getRefWave())) {
+              assertEquals((float) complexPlot.getReal(wave)[j],
+                  values[j - first].getReal());
+            } else {
+              assertEquals(complexPlot.getReal(wave)[j],
+                  values[j - first].getReal());
+              assertEquals(complexPlot.getImag(wave)[j],
+                  windowComplexPlot.getImagBuffer(wave, first, last)
+                      .get(j - first));
+            }
+          }
+        }
+      }
+    }
+
+    reader.close();
+  }
+
+  private static boolean isAscending(final double[] values) {
+
+    for (int i = 1; i < values.length; i++) {
+      if (values[i] < values[i - 1]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}